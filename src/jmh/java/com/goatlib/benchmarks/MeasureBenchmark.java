@@ -0,0 +1,40 @@
+package com.goatlib.benchmarks;
+
+import com.goatlib.warmup.SyntheticWave;
+import edu.wpi.first.units.Angle;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static edu.wpi.first.units.Units.RPM;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+
+/**
+ * The unit conversions the subsystems do on every control tick.
+ */
+@State(Scope.Thread)
+public class MeasureBenchmark {
+
+    private final MutableMeasure<Velocity<Angle>> velocity = MutableMeasure.zero(RadiansPerSecond);
+    private SyntheticWave velocities;
+
+    @Setup
+    public void setup() {
+        velocities = new SyntheticWave(600.0);
+    }
+
+    @Benchmark
+    public double setAndReadSameUnit() {
+        velocity.mut_setMagnitude(velocities.next());
+        return velocity.in(RadiansPerSecond);
+    }
+
+    @Benchmark
+    public double setAndReadOtherUnit() {
+        velocity.mut_setMagnitude(velocities.next());
+        return velocity.in(RPM);
+    }
+}
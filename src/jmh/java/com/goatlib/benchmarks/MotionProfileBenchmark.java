@@ -0,0 +1,52 @@
+package com.goatlib.benchmarks;
+
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.ExponentialMotionProfile;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.motorprofiles.TrapezoidMotionProfile;
+import com.goatlib.warmup.SyntheticWave;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class MotionProfileBenchmark {
+
+    private final PositionState currentState = new PositionState();
+    private final PositionState nextState = new PositionState();
+    private TrapezoidMotionProfile trapezoidMotionProfile;
+    private ExponentialMotionProfile exponentialMotionProfile;
+    private SyntheticWave positions;
+    private SyntheticWave setpoints;
+    private double dtSeconds;
+
+    @Setup
+    public void setup() {
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        trapezoidMotionProfile = new TrapezoidMotionProfile(new SimpleMotorFeedforward(
+                turretConfigs.kS(),
+                turretConfigs.kV(),
+                turretConfigs.kA()));
+        exponentialMotionProfile = new ExponentialMotionProfile(turretConfigs.kV(), turretConfigs.kA());
+        positions = new SyntheticWave(Math.PI);
+        setpoints = new SyntheticWave(Math.PI / 2);
+        dtSeconds = turretConfigs.controlLoopPeriodSeconds();
+    }
+
+    @Benchmark
+    public double trapezoid() {
+        currentState.position = positions.next();
+        nextState.position = setpoints.next();
+        return trapezoidMotionProfile.calculate(currentState, nextState, dtSeconds).velocity;
+    }
+
+    @Benchmark
+    public double exponential() {
+        currentState.position = positions.next();
+        nextState.position = setpoints.next();
+        return exponentialMotionProfile.calculate(currentState, nextState, dtSeconds).velocity;
+    }
+}
@@ -0,0 +1,117 @@
+package com.goatlib.benchmarks;
+
+import com.goatlib.motors.MotorInputs;
+import com.goatlib.motors.ReplayMotor;
+import com.goatlib.motors.SimMotor;
+import com.goatlib.motors.SimMotorGroup;
+import com.goatlib.motors.rev.REVAbsoluteMotor;
+import com.goatlib.motors.rev.REVFusedMotor;
+import com.goatlib.motors.rev.REVMotorGroup;
+import com.goatlib.motors.rev.REVRelativeMotor;
+import com.goatlib.warmup.SyntheticWave;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Voltage;
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import static edu.wpi.first.units.Units.Volts;
+
+/**
+ * One control tick of each motor: command a voltage, then read back the new state. The REV motors run against
+ * REVLib's simulated devices, so they measure the JNI and bookkeeping cost, not CAN latency. Each REV motor gets its
+ * own device id, and the motor group has one follower.
+ */
+@State(Scope.Thread)
+public class MotorBenchmark {
+
+    private final MutableMeasure<Voltage> voltage = MutableMeasure.zero(Volts);
+    private final MotorInputs inputs = new MotorInputs();
+    private SimMotor simMotor;
+    private ReplayMotor replayMotor;
+    private REVRelativeMotor revRelativeMotor;
+    private REVAbsoluteMotor revAbsoluteMotor;
+    private REVFusedMotor revFusedMotor;
+    private REVMotorGroup revMotorGroup;
+    private SimMotorGroup simMotorGroup;
+    private SyntheticWave voltages;
+
+    @Setup
+    public void setup() {
+        HAL.initialize(500, 0);
+        simMotor = new SimMotor(Constants.ExampleFlywheel.flywheelConfigs);
+        replayMotor = new ReplayMotor(Constants.ExampleFlywheel.flywheelConfigs.historyLength());
+        revRelativeMotor = new REVRelativeMotor(Constants.ExampleFlywheel.revConfigs);
+        revAbsoluteMotor = new REVAbsoluteMotor(Constants.ExampleTurret.revConfigs);
+        revFusedMotor = new REVFusedMotor(
+                Constants.ExampleTurret.revConfigs.withDeviceId(11),
+                Constants.ExampleTurret.fusedEncoderConfigs);
+        revMotorGroup = new REVMotorGroup(
+                Constants.ExampleFlywheel.revConfigs.withDeviceId(17),
+                List.of(Constants.ExampleFlywheel.revConfigs.withDeviceId(18)));
+        simMotorGroup = new SimMotorGroup(Constants.ExampleFlywheel.flywheelConfigs, 2);
+        voltages = new SyntheticWave(12.0);
+    }
+
+    @Benchmark
+    public double simMotor() {
+        voltage.mut_setMagnitude(voltages.next());
+        simMotor.setVoltage(voltage);
+        simMotor.update();
+        return simMotor.getVelocity().magnitude();
+    }
+
+    @Benchmark
+    public double replayMotor() {
+        inputs.timestampSeconds += 0.01;
+        inputs.velocity = voltages.next();
+        replayMotor.setInputs(inputs);
+        replayMotor.update();
+        return replayMotor.getVelocity().magnitude();
+    }
+
+    @Benchmark
+    public double revRelativeMotor() {
+        voltage.mut_setMagnitude(voltages.next());
+        revRelativeMotor.setVoltage(voltage);
+        revRelativeMotor.update();
+        return revRelativeMotor.getVelocity().magnitude();
+    }
+
+    @Benchmark
+    public double revAbsoluteMotor() {
+        voltage.mut_setMagnitude(voltages.next());
+        revAbsoluteMotor.setVoltage(voltage);
+        revAbsoluteMotor.update();
+        return revAbsoluteMotor.getVelocity().magnitude();
+    }
+
+    @Benchmark
+    public double revFusedMotor() {
+        voltage.mut_setMagnitude(voltages.next());
+        revFusedMotor.setVoltage(voltage);
+        revFusedMotor.update();
+        return revFusedMotor.getPosition().magnitude();
+    }
+
+    @Benchmark
+    public double revMotorGroup() {
+        voltage.mut_setMagnitude(voltages.next());
+        revMotorGroup.setVoltage(voltage);
+        revMotorGroup.update();
+        return revMotorGroup.getVelocity().magnitude();
+    }
+
+    @Benchmark
+    public double simMotorGroup() {
+        voltage.mut_setMagnitude(voltages.next());
+        simMotorGroup.setVoltage(voltage);
+        simMotorGroup.update();
+        return simMotorGroup.getVelocity().magnitude();
+    }
+}
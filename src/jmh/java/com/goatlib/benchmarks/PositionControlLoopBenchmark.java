@@ -0,0 +1,51 @@
+package com.goatlib.benchmarks;
+
+import com.goatlib.controlLoops.position.SimplePIDPositionControlLoop;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.warmup.SyntheticWave;
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class PositionControlLoopBenchmark {
+
+    private final PositionState currentState = new PositionState();
+    private final PositionState nextState = new PositionState();
+    private SimplePIDPositionControlLoop trapezoidControlLoop;
+    private SimplePIDPositionControlLoop exponentialControlLoop;
+    private SyntheticWave positions;
+    private SyntheticWave setpoints;
+
+    @Setup
+    public void setup() {
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        trapezoidControlLoop = SimplePIDPositionControlLoop.createWithTrapezoidProfile(
+                turretConfigs,
+                -Math.PI / 2,
+                Math.PI / 2);
+        exponentialControlLoop = SimplePIDPositionControlLoop.createwithExponentialProfile(
+                turretConfigs,
+                -Math.PI / 2,
+                Math.PI / 2);
+        positions = new SyntheticWave(Math.PI / 2);
+        setpoints = new SyntheticWave(Math.PI / 4);
+    }
+
+    @Benchmark
+    public double trapezoidProfile() {
+        currentState.position = positions.next();
+        nextState.position = setpoints.next();
+        return trapezoidControlLoop.getOutput(currentState, nextState);
+    }
+
+    @Benchmark
+    public double exponentialProfile() {
+        currentState.position = positions.next();
+        nextState.position = setpoints.next();
+        return exponentialControlLoop.getOutput(currentState, nextState);
+    }
+}
@@ -0,0 +1,60 @@
+package com.goatlib.benchmarks;
+
+import com.goatlib.controlLoops.GainSchedule;
+import com.goatlib.controlLoops.velocity.ScheduledPIDFVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimpleLQRVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimplePIDFVelocityControlLoop;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.warmup.SyntheticWave;
+import frc.robot.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class VelocityControlLoopBenchmark {
+
+    private SimplePIDFVelocityControlLoop simplePIDFVelocityControlLoop;
+    private SimpleLQRVelocityControlLoop simpleLQRVelocityControlLoop;
+    private ScheduledPIDFVelocityControlLoop scheduledPIDFVelocityControlLoop;
+    private SyntheticWave measurements;
+    private SyntheticWave setpoints;
+
+    @Setup
+    public void setup() {
+        SimpleMotorConfigs flywheelConfigs = Constants.ExampleFlywheel.flywheelConfigs;
+        simplePIDFVelocityControlLoop = new SimplePIDFVelocityControlLoop(flywheelConfigs);
+        simpleLQRVelocityControlLoop = new SimpleLQRVelocityControlLoop(
+                flywheelConfigs.kV(),
+                flywheelConfigs.kA(),
+                3.0,
+                0.01,
+                8.0,
+                12.0,
+                flywheelConfigs.controlLoopPeriodSeconds());
+        scheduledPIDFVelocityControlLoop = new ScheduledPIDFVelocityControlLoop(
+                flywheelConfigs,
+                Constants.ExampleFlywheel.gainScheduleConfigs,
+                GainSchedule.velocityLQR(
+                        Constants.ExampleFlywheel.scheduledVelocityToleranceFraction,
+                        Constants.ExampleFlywheel.scheduledMinVelocityToleranceRadiansPerSecond));
+        measurements = new SyntheticWave(500.0);
+        setpoints = new SyntheticWave(600.0);
+    }
+
+    @Benchmark
+    public double simplePIDF() {
+        return simplePIDFVelocityControlLoop.getOutput(measurements.next(), setpoints.next());
+    }
+
+    @Benchmark
+    public double simpleLQR() {
+        return simpleLQRVelocityControlLoop.getOutput(measurements.next(), setpoints.next());
+    }
+
+    @Benchmark
+    public double scheduledPIDF() {
+        return scheduledPIDFVelocityControlLoop.getOutput(measurements.next(), setpoints.next());
+    }
+}
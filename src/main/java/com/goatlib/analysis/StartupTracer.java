@@ -0,0 +1,71 @@
+package com.goatlib.analysis;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Times each construction step of the robot code, so slow startup can be traced to the step that caused it.
+ * <p>
+ * {@link #finish()} logs every step and the time from JVM start to robot code ready, and puts them on the dashboard
+ * under Startup.
+ */
+public class StartupTracer {
+
+    private final List<String> steps = new ArrayList<>();
+    private final List<Double> stepMillis = new ArrayList<>();
+    private double tracedMillis = 0.0;
+
+    /**
+     * Runs a construction step that builds something.
+     *
+     * @return what the step built
+     */
+    public <T> T trace(String step, Supplier<T> construction) {
+        long startNanos = System.nanoTime();
+        T result = construction.get();
+        record(step, startNanos);
+        return result;
+    }
+
+    /**
+     * Runs a construction step that only has side effects.
+     */
+    public void run(String step, Runnable construction) {
+        long startNanos = System.nanoTime();
+        construction.run();
+        record(step, startNanos);
+    }
+
+    private void record(String step, long startNanos) {
+        double millis = (System.nanoTime() - startNanos) * 1e-6;
+        steps.add(step);
+        stepMillis.add(millis);
+        tracedMillis += millis;
+    }
+
+    /**
+     * Reports the traced steps. Call once the robot code is ready.
+     */
+    public void finish() {
+        long readyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        for (int i = 0; i < steps.size(); i++) {
+            DataLogManager.log(String.format("Startup: %s took %.1f ms", steps.get(i), stepMillis.get(i)));
+            SmartDashboard.putNumber(String.format("Startup/%s (ms)", steps.get(i)), stepMillis.get(i));
+        }
+        DataLogManager.log(String.format(
+                "Startup: robot code ready %d ms after JVM start, %.1f ms in traced steps",
+                readyMillis,
+                tracedMillis));
+        SmartDashboard.putNumber("Startup/Ready (ms)", readyMillis);
+        SmartDashboard.putNumber("Startup/Traced (ms)", tracedMillis);
+    }
+
+    public double getTracedMillis() {
+        return tracedMillis;
+    }
+}
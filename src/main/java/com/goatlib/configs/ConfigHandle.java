@@ -0,0 +1,46 @@
+package com.goatlib.configs;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current version of an immutable config record. Readers call {@link #get()} once per tick and use that one
+ * record for the whole tick, so a swap in the middle of a tick is only seen on the next one and a config is never
+ * half-applied. Swapping is a single volatile write, nothing on the read side locks.
+ * <p>
+ * A control loop can compare the record it gets with the last one it applied by identity to know when to rebuild
+ * its gains. Work too slow for a control tick, like solving a gain schedule, goes in a listener instead, which runs
+ * on the thread that publishes the record.
+ *
+ * @param <T> config record type
+ */
+public class ConfigHandle<T> {
+
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    private volatile T value;
+
+    public ConfigHandle(T value) {
+        this.value = value;
+    }
+
+    public T get() {
+        return value;
+    }
+
+    public synchronized void set(T value) {
+        this.value = value;
+        for (Consumer<T> listener : listeners) {
+            listener.accept(value);
+        }
+    }
+
+    /**
+     * Adds a listener that is called with every record published from now on, in order, on the publishing thread.
+     * It is also called once with the current record before this returns, so it never misses one.
+     */
+    public synchronized void addListener(Consumer<T> listener) {
+        listeners.add(listener);
+        listener.accept(value);
+    }
+}
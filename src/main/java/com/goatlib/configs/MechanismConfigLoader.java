@@ -0,0 +1,109 @@
+package com.goatlib.configs;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import edu.wpi.first.math.system.plant.DCMotor;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Parses {@link MechanismConfigs} from JSON. The JSON mirrors the records field for field, except the gearbox, which
+ * is written as <code>{"motor": "NEOVortex", "count": 1}</code>. Unknown or missing fields are errors, so a typo in a
+ * field name fails the load instead of silently leaving a gain at zero.
+ */
+public final class MechanismConfigLoader {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES)
+            .enable(DeserializationFeature.FAIL_ON_MISSING_CREATOR_PROPERTIES)
+            .registerModule(new SimpleModule().addDeserializer(DCMotor.class, new GearboxDeserializer()));
+
+    private MechanismConfigLoader() {
+    }
+
+    /**
+     * @param path JSON file
+     * @return the parsed and validated configs
+     * @throws IOException              if the file can't be read or parsed
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public static MechanismConfigs load(Path path) throws IOException {
+        MechanismConfigs mechanismConfigs = OBJECT_MAPPER.readValue(path.toFile(), MechanismConfigs.class);
+        if (mechanismConfigs.simpleMotorConfigs() == null || mechanismConfigs.revConfigs() == null) {
+            throw new IllegalArgumentException("simpleMotorConfigs and revConfigs are both required");
+        }
+        validate(mechanismConfigs.simpleMotorConfigs());
+        validate(mechanismConfigs.revConfigs());
+        return mechanismConfigs;
+    }
+
+    public static void validate(SimpleMotorConfigs simpleMotorConfigs) {
+        requirePositive("gearing", simpleMotorConfigs.gearing());
+        requirePositive("controlLoopPeriodSeconds", simpleMotorConfigs.controlLoopPeriodSeconds());
+        requirePositive("updatePeriodSeconds", simpleMotorConfigs.updatePeriodSeconds());
+        requireNonNegative("controlLoopPeriodOffsetSeconds", simpleMotorConfigs.controlLoopPeriodOffsetSeconds());
+        requireNonNegative("updatePeriodOffsetSeconds", simpleMotorConfigs.updatePeriodOffsetSeconds());
+        requireNonNegative("kS", simpleMotorConfigs.kS());
+        requirePositive("kV", simpleMotorConfigs.kV());
+        requirePositive("kA", simpleMotorConfigs.kA());
+        requireNonNegative("kP", simpleMotorConfigs.kP());
+        requireNonNegative("kI", simpleMotorConfigs.kI());
+        requireNonNegative("kD", simpleMotorConfigs.kD());
+        if (simpleMotorConfigs.historyLength() < 2) {
+            throw new IllegalArgumentException("historyLength must be at least 2");
+        }
+        if (simpleMotorConfigs.name() == null || simpleMotorConfigs.gearbox() == null) {
+            throw new IllegalArgumentException("name and gearbox are required");
+        }
+    }
+
+    public static void validate(REVConfigs revConfigs) {
+        if (revConfigs.deviceId() < 1 || revConfigs.deviceId() > 62) {
+            throw new IllegalArgumentException("deviceId must be between 1 and 62, got " + revConfigs.deviceId());
+        }
+        if (revConfigs.smartCurrentLimit() <= 0) {
+            throw new IllegalArgumentException("smartCurrentLimit must be positive");
+        }
+        if (revConfigs.revMotorType() == null || revConfigs.revEncoderType() == null || revConfigs.mode() == null) {
+            throw new IllegalArgumentException("revMotorType, revEncoderType and mode are required");
+        }
+        requirePositive("motorToMechanismConversionFactor", revConfigs.motorToMechanismConversionFactor());
+    }
+
+    private static void requirePositive(String name, double value) {
+        if (!(value > 0.0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(String.format("%s must be positive and finite, got %s", name, value));
+        }
+    }
+
+    private static void requireNonNegative(String name, double value) {
+        if (!(value >= 0.0) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException(String.format("%s must be non-negative and finite, got %s", name, value));
+        }
+    }
+
+    private static class GearboxDeserializer extends JsonDeserializer<DCMotor> {
+        @Override
+        public DCMotor deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonNode node = parser.readValueAsTree();
+            String motor = node.path("motor").asText();
+            int count = node.path("count").asInt(1);
+            return switch (motor) {
+                case "NEOVortex" -> DCMotor.getNeoVortex(count);
+                case "NEO" -> DCMotor.getNEO(count);
+                case "NEO550" -> DCMotor.getNeo550(count);
+                default -> throw new IllegalArgumentException(
+                        String.format("unknown gearbox motor \"%s\", expected NEOVortex, NEO or NEO550", motor));
+            };
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.goatlib.configs;
+
+import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+
+/**
+ * Everything one mechanism config file holds.
+ */
+public record MechanismConfigs(
+        SimpleMotorConfigs simpleMotorConfigs,
+        REVConfigs revConfigs) {
+}
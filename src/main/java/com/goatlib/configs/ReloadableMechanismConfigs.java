@@ -0,0 +1,195 @@
+package com.goatlib.configs;
+
+import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * A mechanism's configs loaded from a JSON file in the deploy directory, with gains that can be changed while the
+ * robot runs.
+ * <p>
+ * The file is parsed once at construction. Device ids, periods and the gearbox are fixed from then on, because the
+ * motors and periodic callbacks are built from them. The feedforward and PID gains live in a {@link ConfigHandle} that
+ * control loops read every tick; reloading the file or editing a gain over NetworkTables validates a complete new
+ * {@link SimpleMotorConfigs} and publishes it with one swap. A file that fails to load or validate leaves the current
+ * configs in place.
+ */
+public class ReloadableMechanismConfigs implements Sendable {
+
+    private final Path path;
+    private final REVConfigs revConfigs;
+    private final ConfigHandle<SimpleMotorConfigs> simpleMotorConfigs;
+    private Thread watchThread;
+
+    /**
+     * @param deployFileName JSON file relative to the deploy directory
+     * @param fallback       configs to use if the file can't be loaded at startup
+     */
+    public ReloadableMechanismConfigs(String deployFileName, MechanismConfigs fallback) {
+        this.path = Filesystem.getDeployDirectory().toPath().resolve(deployFileName);
+        MechanismConfigs mechanismConfigs = fallback;
+        try {
+            mechanismConfigs = MechanismConfigLoader.load(path);
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportWarning(String.format("Using compiled configs, failed to load %s: %s", path, e.getMessage()), false);
+        }
+        this.revConfigs = mechanismConfigs.revConfigs();
+        this.simpleMotorConfigs = new ConfigHandle<>(mechanismConfigs.simpleMotorConfigs());
+    }
+
+    /**
+     * @return the configs the mechanism was built with, to construct motors and schedule callbacks
+     */
+    public SimpleMotorConfigs getSimpleMotorConfigs() {
+        return simpleMotorConfigs.get();
+    }
+
+    public REVConfigs getRevConfigs() {
+        return revConfigs;
+    }
+
+    /**
+     * @return the handle control loops read their gains from
+     */
+    public ConfigHandle<SimpleMotorConfigs> getSimpleMotorConfigsHandle() {
+        return simpleMotorConfigs;
+    }
+
+    /**
+     * Reloads the gains from the file on the calling thread.
+     *
+     * @return whether new gains were published
+     */
+    public boolean reload() {
+        try {
+            SimpleMotorConfigs loaded = MechanismConfigLoader.load(path).simpleMotorConfigs();
+            publishGains(loaded.kS(), loaded.kV(), loaded.kA(), loaded.kP(), loaded.kI(), loaded.kD());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportWarning(String.format("Keeping previous gains, failed to load %s: %s", path, e.getMessage()), false);
+            return false;
+        }
+    }
+
+    /**
+     * Reloads the gains on a background thread so file I/O never runs on the robot thread.
+     */
+    public void reloadAsync() {
+        Thread thread = new Thread(this::reload, "config-reload-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Starts a background thread that reloads the gains whenever the file is written, e.g. by a deploy.
+     */
+    public void startWatching() {
+        if (watchThread != null) {
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "config-watch-" + path.getFileName());
+        watchThread.setDaemon(true);
+        watchThread.setPriority(Thread.MIN_PRIORITY);
+        watchThread.start();
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.addDoubleProperty("kS", () -> simpleMotorConfigs.get().kS(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(value, c.kV(), c.kA(), c.kP(), c.kI(), c.kD());
+        });
+        builder.addDoubleProperty("kV", () -> simpleMotorConfigs.get().kV(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(c.kS(), value, c.kA(), c.kP(), c.kI(), c.kD());
+        });
+        builder.addDoubleProperty("kA", () -> simpleMotorConfigs.get().kA(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(c.kS(), c.kV(), value, c.kP(), c.kI(), c.kD());
+        });
+        builder.addDoubleProperty("kP", () -> simpleMotorConfigs.get().kP(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(c.kS(), c.kV(), c.kA(), value, c.kI(), c.kD());
+        });
+        builder.addDoubleProperty("kI", () -> simpleMotorConfigs.get().kI(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(c.kS(), c.kV(), c.kA(), c.kP(), value, c.kD());
+        });
+        builder.addDoubleProperty("kD", () -> simpleMotorConfigs.get().kD(), value -> {
+            SimpleMotorConfigs c = simpleMotorConfigs.get();
+            publishGainsFromDashboard(c.kS(), c.kV(), c.kA(), c.kP(), c.kI(), value);
+        });
+    }
+
+    private void publishGainsFromDashboard(double kS, double kV, double kA, double kP, double kI, double kD) {
+        try {
+            publishGains(kS, kV, kA, kP, kI, kD);
+        } catch (IllegalArgumentException e) {
+            DriverStation.reportWarning(String.format("Rejected gain edit for %s: %s", path.getFileName(), e.getMessage()), false);
+        }
+    }
+
+    private synchronized void publishGains(double kS, double kV, double kA, double kP, double kI, double kD) {
+        SimpleMotorConfigs current = simpleMotorConfigs.get();
+        if (current.kS() == kS && current.kV() == kV && current.kA() == kA
+                && current.kP() == kP && current.kI() == kI && current.kD() == kD) {
+            return;
+        }
+        SimpleMotorConfigs next = new SimpleMotorConfigs(
+                current.name(),
+                current.gearbox(),
+                current.gearing(),
+                current.controlLoopPeriodSeconds(),
+                current.controlLoopPeriodOffsetSeconds(),
+                current.updatePeriodSeconds(),
+                current.updatePeriodOffsetSeconds(),
+                kS,
+                kV,
+                kA,
+                kP,
+                kI,
+                kD,
+                current.historyLength());
+        MechanismConfigLoader.validate(next);
+        simpleMotorConfigs.set(next);
+    }
+
+    private void watchLoop() {
+        Path directory = path.getParent();
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            directory.register(
+                    watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= path.getFileName().equals(event.context());
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (IOException | ClosedWatchServiceException e) {
+            DriverStation.reportWarning(String.format("Stopped watching %s: %s", path, e.getMessage()), false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -18,6 +18,31 @@ public record REVConfigs(
         int periodicStatusFrame4PeriodMs,
         int periodicStatusFrame5PeriodMs,
         int periodicStatusFrame6PeriodMs,
-        double motorToMechanismConversionFactor
+        double motorToMechanismConversionFactor,
+        int historyLength
 ) {
+
+    /**
+     * @return these configs for another device, e.g. a follower or a second motor of the same kind
+     */
+    public REVConfigs withDeviceId(int deviceId) {
+        return new REVConfigs(
+                deviceId,
+                revMotorType,
+                revEncoderType,
+                mode,
+                isInverted,
+                smartCurrentLimit,
+                averageDepth,
+                measurementPeriodMs,
+                periodicStatusFrame0PeriodMs,
+                periodicStatusFrame1PeriodMs,
+                periodicStatusFrame2PeriodMs,
+                periodicStatusFrame3PeriodMs,
+                periodicStatusFrame4PeriodMs,
+                periodicStatusFrame5PeriodMs,
+                periodicStatusFrame6PeriodMs,
+                motorToMechanismConversionFactor,
+                historyLength);
+    }
 }
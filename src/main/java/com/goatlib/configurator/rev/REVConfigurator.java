@@ -7,6 +7,12 @@ import com.revrobotics.RelativeEncoder;
 import static com.revrobotics.CANSparkLowLevel.*;
 
 public class REVConfigurator {
+    // the longest period REVLib accepts, for frames nothing reads
+    public static final int SLOWEST_STATUS_FRAME_PERIOD_MS = 65535;
+    // frame 0 carries the faults, kept under REVLib's 500 ms periodic frame timeout so a follower that drops out or
+    // browns out still shows up
+    public static final int FOLLOWER_STATUS_FRAME_0_PERIOD_MS = 100;
+
     private final CANSparkBase canSparkBase;
 
     public static REVConfigurator configure(CANSparkBase canSparkBase) {
@@ -67,6 +73,36 @@ public class REVConfigurator {
         return this;
     }
 
+    /**
+     * Makes the motor controller mirror the leader's output in hardware, so it needs no commands from the robot. The
+     * follower takes the leader's output from the leader's status frame 0, so keep that frame fast on the leader.
+     *
+     * @param leader   motor controller to follow
+     * @param inverted whether to spin opposite to the leader
+     * @return the REVConfigurator for method chaining
+     */
+    public REVConfigurator withFollow(CANSparkBase leader, boolean inverted) {
+        canSparkBase.follow(leader, inverted);
+        return this;
+    }
+
+    /**
+     * Slows every status frame to the longest period, for a follower whose readings are never used, except frame 0
+     * which is kept at {@link #FOLLOWER_STATUS_FRAME_0_PERIOD_MS} so the follower's faults and connection can still be
+     * checked.
+     *
+     * @return the REVConfigurator for method chaining
+     */
+    public REVConfigurator withFollowerStatusFrames() {
+        return withPeriodicStatusFrame0Period(FOLLOWER_STATUS_FRAME_0_PERIOD_MS)
+                .withPeriodicStatusFrame1Period(SLOWEST_STATUS_FRAME_PERIOD_MS)
+                .withPeriodicStatusFrame2Period(SLOWEST_STATUS_FRAME_PERIOD_MS)
+                .withPeriodicStatusFrame3Period(SLOWEST_STATUS_FRAME_PERIOD_MS)
+                .withPeriodicStatusFrame4Period(SLOWEST_STATUS_FRAME_PERIOD_MS)
+                .withPeriodicStatusFrame5Period(SLOWEST_STATUS_FRAME_PERIOD_MS)
+                .withPeriodicStatusFrame6Period(SLOWEST_STATUS_FRAME_PERIOD_MS);
+    }
+
     public REVConfigurator withAverageDepth(RelativeEncoder encoder, int depth) {
         encoder.setAverageDepth(depth);
         return this;
@@ -0,0 +1,43 @@
+package com.goatlib.controlLoops;
+
+/**
+ * The voltage that takes a kS/kV/kA motor from one velocity to the next over one control period.
+ * <p>
+ * This is the same plant inversion {@code SimpleMotorFeedforward.calculate(current, next, dt)} does, worked out in
+ * closed form for the one-state velocity model. WPILib's version builds a new discretized system and matrices on
+ * every call; here the discretization is done once, so a call is a few multiplies and allocates nothing.
+ */
+public class DiscreteMotorFeedforward {
+
+    private final double kS;
+    private final double discreteA;
+    private final double inverseDiscreteB;
+
+    /**
+     * @param kS                       static gain in volts
+     * @param kV                       velocity gain in volts per unit of velocity
+     * @param kA                       acceleration gain in volts per unit of acceleration, must be positive
+     * @param controlLoopPeriodSeconds time between the current and the next velocity
+     */
+    public DiscreteMotorFeedforward(double kS, double kV, double kA, double controlLoopPeriodSeconds) {
+        if (!(kV > 0.0) || !(kA > 0.0)) {
+            throw new IllegalArgumentException("kV and kA must be positive");
+        }
+        this.kS = kS;
+        // x' = -kV/kA x + 1/kA u discretizes to x[k+1] = e^(-kV/kA dt) x[k] + (1 - e^(-kV/kA dt)) / kV u[k]
+        this.discreteA = Math.exp(-kV / kA * controlLoopPeriodSeconds);
+        this.inverseDiscreteB = kV / (1.0 - discreteA);
+    }
+
+    public double calculate(double currentVelocity, double nextVelocity) {
+        return kS * Math.signum(currentVelocity) + (nextVelocity - discreteA * currentVelocity) * inverseDiscreteB;
+    }
+
+    /**
+     * Returns the velocity one control period after the current one with a voltage applied, the model
+     * {@link #calculate} inverts.
+     */
+    public double predict(double currentVelocity, double volts) {
+        return discreteA * currentVelocity + (volts - kS * Math.signum(currentVelocity)) / inverseDiscreteB;
+    }
+}
@@ -0,0 +1,163 @@
+package com.goatlib.controlLoops;
+
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.controller.LinearQuadraticRegulator;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Function;
+
+/**
+ * PID gains computed once over a grid of operating points and bus voltages, then looked up by bilinear
+ * interpolation.
+ * <p>
+ * The grid is evenly spaced, so a lookup finds its cell with one multiply per axis and costs the same anywhere in the
+ * table. Lookups outside the grid use its edge. Interpolating means the gains change smoothly as the operating point
+ * moves instead of jumping at cell boundaries.
+ */
+public class GainSchedule {
+
+    @FunctionalInterface
+    public interface GainFunction {
+        /**
+         * Computes the gains for one grid point. Only called while the schedule is built, so it may be slow.
+         */
+        void compute(double operatingPoint, double busVolts, PIDGains gains);
+    }
+
+    private final GainScheduleConfigs gainScheduleConfigs;
+    private final int busVoltsCount;
+    private final double inverseOperatingPointStep;
+    private final double inverseBusVoltsStep;
+    private final double[] kP;
+    private final double[] kI;
+    private final double[] kD;
+
+    public GainSchedule(GainScheduleConfigs gainScheduleConfigs, GainFunction gainFunction) {
+        if (gainScheduleConfigs.operatingPointCount() < 2 || gainScheduleConfigs.busVoltsCount() < 2) {
+            throw new IllegalArgumentException("a gain schedule needs at least two points on each axis");
+        }
+        if (!(gainScheduleConfigs.maxOperatingPoint() > gainScheduleConfigs.minOperatingPoint())
+                || !(gainScheduleConfigs.maxBusVolts() > gainScheduleConfigs.minBusVolts())) {
+            throw new IllegalArgumentException("a gain schedule's max must be above its min on each axis");
+        }
+        this.gainScheduleConfigs = gainScheduleConfigs;
+        this.busVoltsCount = gainScheduleConfigs.busVoltsCount();
+        int operatingPointCount = gainScheduleConfigs.operatingPointCount();
+        double operatingPointStep = (gainScheduleConfigs.maxOperatingPoint() - gainScheduleConfigs.minOperatingPoint())
+                / (operatingPointCount - 1);
+        double busVoltsStep = (gainScheduleConfigs.maxBusVolts() - gainScheduleConfigs.minBusVolts())
+                / (busVoltsCount - 1);
+        this.inverseOperatingPointStep = 1.0 / operatingPointStep;
+        this.inverseBusVoltsStep = 1.0 / busVoltsStep;
+        this.kP = new double[operatingPointCount * busVoltsCount];
+        this.kI = new double[operatingPointCount * busVoltsCount];
+        this.kD = new double[operatingPointCount * busVoltsCount];
+        PIDGains gains = new PIDGains();
+        for (int i = 0; i < operatingPointCount; i++) {
+            for (int j = 0; j < busVoltsCount; j++) {
+                gainFunction.compute(
+                        gainScheduleConfigs.minOperatingPoint() + i * operatingPointStep,
+                        gainScheduleConfigs.minBusVolts() + j * busVoltsStep,
+                        gains);
+                int index = i * busVoltsCount + j;
+                kP[index] = gains.kP;
+                kI[index] = gains.kI;
+                kD[index] = gains.kD;
+            }
+        }
+    }
+
+    /**
+     * Interpolates the gains at an operating point and bus voltage.
+     *
+     * @param gains written with the result
+     */
+    public void lookup(double operatingPoint, double busVolts, PIDGains gains) {
+        double x = MathUtil.clamp(
+                (operatingPoint - gainScheduleConfigs.minOperatingPoint()) * inverseOperatingPointStep,
+                0.0,
+                gainScheduleConfigs.operatingPointCount() - 1);
+        double y = MathUtil.clamp(
+                (busVolts - gainScheduleConfigs.minBusVolts()) * inverseBusVoltsStep,
+                0.0,
+                busVoltsCount - 1);
+        int i = Math.min((int) x, gainScheduleConfigs.operatingPointCount() - 2);
+        int j = Math.min((int) y, busVoltsCount - 2);
+        double xFraction = x - i;
+        double yFraction = y - j;
+        int index = i * busVoltsCount + j;
+        gains.kP = interpolate(kP, index, xFraction, yFraction);
+        gains.kI = interpolate(kI, index, xFraction, yFraction);
+        gains.kD = interpolate(kD, index, xFraction, yFraction);
+    }
+
+    private double interpolate(double[] table, int index, double xFraction, double yFraction) {
+        double low = table[index] + (table[index + 1] - table[index]) * yFraction;
+        double high = table[index + busVoltsCount]
+                + (table[index + busVoltsCount + 1] - table[index + busVoltsCount]) * yFraction;
+        return low + (high - low) * xFraction;
+    }
+
+    /**
+     * LQR velocity gains. The allowed velocity error grows with the operating velocity, so the loop is tight near
+     * standstill where friction dominates and softer at speed, and the allowed control effort is the bus voltage, so
+     * the gains drop as the battery sags instead of the loop saturating. The gains are compensated for the output
+     * being applied a tick late. kI comes from the configs.
+     *
+     * @param velocityToleranceFraction allowed velocity error as a fraction of the operating velocity
+     * @param minVelocityTolerance      allowed velocity error near standstill
+     */
+    public static Function<SimpleMotorConfigs, GainFunction> velocityLQR(
+            double velocityToleranceFraction,
+            double minVelocityTolerance) {
+        return simpleMotorConfigs -> (velocity, busVolts, gains) -> {
+            LinearSystem<N1, N1, N1> plant = LinearSystemId.identifyVelocitySystem(
+                    simpleMotorConfigs.kV(),
+                    simpleMotorConfigs.kA());
+            LinearQuadraticRegulator<N1, N1, N1> regulator = new LinearQuadraticRegulator<>(
+                    plant,
+                    VecBuilder.fill(Math.max(minVelocityTolerance, velocityToleranceFraction * Math.abs(velocity))),
+                    VecBuilder.fill(busVolts),
+                    simpleMotorConfigs.controlLoopPeriodSeconds());
+            // the output is applied on the next tick
+            regulator.latencyCompensate(
+                    plant,
+                    simpleMotorConfigs.controlLoopPeriodSeconds(),
+                    simpleMotorConfigs.controlLoopPeriodSeconds());
+            gains.kP = regulator.getK(0, 0);
+            gains.kI = simpleMotorConfigs.kI();
+            gains.kD = 0.0;
+        };
+    }
+
+    /**
+     * LQR position gains, kP on position error and kD on velocity error. The allowed control effort is the bus
+     * voltage, and kA is scaled by the load at each position, e.g. a turret dragging a cable chain. kI comes from the
+     * configs.
+     *
+     * @param loadScale multiplier on kA at a position, 1 where the load matches the configs
+     */
+    public static Function<SimpleMotorConfigs, GainFunction> positionLQR(
+            double positionTolerance,
+            double velocityTolerance,
+            DoubleUnaryOperator loadScale) {
+        return simpleMotorConfigs -> (position, busVolts, gains) -> {
+            LinearQuadraticRegulator<N2, N1, N1> regulator = new LinearQuadraticRegulator<>(
+                    LinearSystemId.identifyPositionSystem(
+                            simpleMotorConfigs.kV(),
+                            simpleMotorConfigs.kA() * loadScale.applyAsDouble(position)),
+                    VecBuilder.fill(positionTolerance, velocityTolerance),
+                    VecBuilder.fill(busVolts),
+                    simpleMotorConfigs.controlLoopPeriodSeconds());
+            gains.kP = regulator.getK(0, 0);
+            gains.kI = simpleMotorConfigs.kI();
+            gains.kD = regulator.getK(0, 1);
+        };
+    }
+}
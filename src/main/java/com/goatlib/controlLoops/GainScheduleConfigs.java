@@ -0,0 +1,14 @@
+package com.goatlib.controlLoops;
+
+/**
+ * An evenly spaced grid of operating points, e.g. velocity or position, by bus voltages. Each axis needs at least
+ * two points.
+ */
+public record GainScheduleConfigs(
+        double minOperatingPoint,
+        double maxOperatingPoint,
+        int operatingPointCount,
+        double minBusVolts,
+        double maxBusVolts,
+        int busVoltsCount) {
+}
@@ -0,0 +1,10 @@
+package com.goatlib.controlLoops;
+
+/**
+ * One set of PID gains. Mutable so a loop can look gains up into the same instance every tick.
+ */
+public class PIDGains {
+    public double kP;
+    public double kI;
+    public double kD;
+}
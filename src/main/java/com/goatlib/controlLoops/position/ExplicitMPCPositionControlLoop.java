@@ -0,0 +1,177 @@
+package com.goatlib.controlLoops.position;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.mpc.ExplicitMPCProblem;
+import com.goatlib.mpc.ExplicitMPCTable;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A constrained model-predictive position loop evaluated from a precomputed {@link ExplicitMPCTable}, so the voltage
+ * and soft limits are planned for instead of clipped. The next state passed in is the goal; the MPC does its own
+ * profiling, so no motion profile is used.
+ * <p>
+ * A voltage is applied on the tick after it is computed, so the table plans from the state and the voltage returned
+ * last tick, whichever loop returned it.
+ * <p>
+ * When the state is in none of the table's regions, which happens where the QP was infeasible or the generator's
+ * sampling missed an active set, the fallback loop runs instead. It is reset each time it takes over so it starts
+ * without a stale integrator or error, and it gets the goal clamped to the same soft limits, so give it a loop that
+ * doesn't wrap.
+ * <p>
+ * The table is built for one kV, kA and period. They are checked against the configs every time a record is
+ * published, and while they differ only the fallback runs; regenerate the table with ./gradlew generateTurretMPC
+ * after changing them.
+ */
+public class ExplicitMPCPositionControlLoop implements PositionControlLoop {
+
+    // relative difference allowed between the table's model and the configs, for values rounded when written to JSON
+    private static final double MODEL_TOLERANCE = 1e-6;
+
+    private final ExplicitMPCTable table;
+    private final PositionControlLoop fallback;
+    private final double minPosition;
+    private final double maxPosition;
+    private final PositionState limitedGoal = new PositionState();
+    private volatile boolean tableMatchesConfigs = false;
+    private boolean inFallback = false;
+    private int region = -1;
+    private long fallbackTicks = 0;
+    private double lastOutputVolts = 0.0;
+
+    /**
+     * Loads the table from the deploy directory, running only the fallback if it can't be loaded.
+     *
+     * @param deployFileName           table CSV relative to the deploy directory
+     * @param simpleMotorConfigsHandle configs the table's model is checked against
+     * @param fallback                 loop to use outside the table, e.g. {@link SimplePIDPositionControlLoop}
+     * @param minPosition              lower soft limit the table was generated with
+     * @param maxPosition              upper soft limit the table was generated with
+     */
+    public static ExplicitMPCPositionControlLoop fromDeployFile(
+            String deployFileName,
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            PositionControlLoop fallback,
+            double minPosition,
+            double maxPosition) {
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(deployFileName);
+        ExplicitMPCTable table;
+        try {
+            table = ExplicitMPCTable.fromCsv(path);
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportWarning(String.format("Using fallback only, failed to load %s: %s", path, e.getMessage()), false);
+            table = ExplicitMPCTable.EMPTY;
+        }
+        return new ExplicitMPCPositionControlLoop(table, simpleMotorConfigsHandle, fallback, minPosition, maxPosition);
+    }
+
+    /**
+     * @param table table to evaluate, only used if it records the problem it solves and that problem matches the
+     *              configs and soft limits
+     */
+    public ExplicitMPCPositionControlLoop(
+            ExplicitMPCTable table,
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            PositionControlLoop fallback,
+            double minPosition,
+            double maxPosition) {
+        this.table = table;
+        this.fallback = fallback;
+        this.minPosition = minPosition;
+        this.maxPosition = maxPosition;
+        simpleMotorConfigsHandle.addListener(
+                simpleMotorConfigs -> tableMatchesConfigs = checkTable(simpleMotorConfigs));
+    }
+
+    @Override
+    public double getOutput(PositionState currentState, PositionState nextState) {
+        double position = currentState.position;
+        double velocity = currentState.velocity;
+        double reference = MathUtil.clamp(nextState.position, minPosition, maxPosition);
+        region = tableMatchesConfigs ? table.findRegion(position, velocity, lastOutputVolts, reference, region) : -1;
+        if (region < 0) {
+            if (!inFallback) {
+                fallback.reset();
+                inFallback = true;
+            }
+            fallbackTicks++;
+            limitedGoal.position = reference;
+            limitedGoal.velocity = reference == nextState.position ? nextState.velocity : 0.0;
+            lastOutputVolts = fallback.getOutput(currentState, limitedGoal);
+            return lastOutputVolts;
+        }
+        inFallback = false;
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        lastOutputVolts = MathUtil.clamp(
+                table.evaluate(region, position, velocity, lastOutputVolts, reference),
+                -outputLimitVolts,
+                outputLimitVolts);
+        return lastOutputVolts;
+    }
+
+    @Override
+    public void reset() {
+        region = -1;
+        inFallback = false;
+        lastOutputVolts = 0.0;
+    }
+
+    /**
+     * @return whether the last tick used the table rather than the fallback
+     */
+    public boolean isInTable() {
+        return region >= 0;
+    }
+
+    public int getRegion() {
+        return region;
+    }
+
+    public long getFallbackTicks() {
+        return fallbackTicks;
+    }
+
+    public int getRegionCount() {
+        return table.getRegionCount();
+    }
+
+    private boolean checkTable(SimpleMotorConfigs simpleMotorConfigs) {
+        if (table.getRegionCount() == 0) {
+            return false;
+        }
+        ExplicitMPCProblem problem = table.getProblem();
+        if (problem == null) {
+            DriverStation.reportWarning("Using fallback only, the explicit MPC table doesn't say what problem it solves", false);
+            return false;
+        }
+        boolean matches = isClose(problem.kV(), simpleMotorConfigs.kV())
+                && isClose(problem.kA(), simpleMotorConfigs.kA())
+                && isClose(problem.dtSeconds(), simpleMotorConfigs.controlLoopPeriodSeconds())
+                && isClose(problem.minPosition(), minPosition)
+                && isClose(problem.maxPosition(), maxPosition);
+        if (!matches) {
+            DriverStation.reportWarning(String.format(
+                    "Using fallback only, the explicit MPC table solves %s but %s has kV=%s, kA=%s, period=%s s and "
+                            + "limits %s to %s",
+                    problem,
+                    simpleMotorConfigs.name(),
+                    simpleMotorConfigs.kV(),
+                    simpleMotorConfigs.kA(),
+                    simpleMotorConfigs.controlLoopPeriodSeconds(),
+                    minPosition,
+                    maxPosition), false);
+        }
+        return matches;
+    }
+
+    private static boolean isClose(double expected, double actual) {
+        return Math.abs(expected - actual) <= MODEL_TOLERANCE * Math.max(Math.abs(expected), Math.abs(actual));
+    }
+}
@@ -5,4 +5,11 @@ import com.goatlib.motorprofiles.PositionState;
 @FunctionalInterface
 public interface PositionControlLoop {
     double getOutput(PositionState currentState, PositionState nextState);
+
+    /**
+     * Clears state carried between ticks, like an integrator or the last error, so the loop can take over from
+     * another one without a bump.
+     */
+    default void reset() {
+    }
 }
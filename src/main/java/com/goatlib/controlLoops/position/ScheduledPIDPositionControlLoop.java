@@ -0,0 +1,160 @@
+package com.goatlib.controlLoops.position;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.DiscreteMotorFeedforward;
+import com.goatlib.controlLoops.GainSchedule;
+import com.goatlib.controlLoops.GainScheduleConfigs;
+import com.goatlib.controlLoops.PIDGains;
+import com.goatlib.mechanisms.MotionProfileType;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.ExponentialMotionProfile;
+import com.goatlib.motorprofiles.MotionProfile;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.motorprofiles.TrapezoidMotionProfile;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+
+import java.util.function.Function;
+
+/**
+ * {@link SimplePIDPositionControlLoop} with PID gains looked up every tick from a {@link GainSchedule} over the
+ * profiled position and bus voltage. kP acts on the position error and kD on the velocity error against the profile,
+ * which is the form LQR position gains come in.
+ * <p>
+ * The integrator accumulates kI times the error in volts rather than the bare error, so when the scheduled kI
+ * changes the integral term carries on from where it was instead of jumping. It stops accumulating while the output
+ * is saturated in the direction of the error.
+ * <p>
+ * Building a schedule solves an LQR problem at every grid point, so it is done on the thread that publishes new
+ * configs and swapped in whole, with the feedforward and profile for the same configs; a tick only interpolates.
+ */
+public class ScheduledPIDPositionControlLoop implements PositionControlLoop {
+
+    private final GainScheduleConfigs gainScheduleConfigs;
+    private final Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction;
+    private final MotionProfileType motionProfileType;
+    private final double minInput;
+    private final double maxInput;
+    private final double controlLoopPeriodSeconds;
+    private final PIDGains gains = new PIDGains();
+    private volatile ScheduledGains scheduledGains;
+    private double integralVolts = 0.0;
+
+    /**
+     * Creates a loop that wraps the position error between minInput and maxInput, like a continuous PIDController.
+     *
+     * @param gainScheduleConfigs grid of positions and bus voltages the gains are computed at
+     * @param gainFunction        gains at one grid point for a set of configs, e.g. {@link GainSchedule#positionLQR}
+     */
+    public static ScheduledPIDPositionControlLoop createWithTrapezoidProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            GainScheduleConfigs gainScheduleConfigs,
+            Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction,
+            double minInput,
+            double maxInput) {
+        return new ScheduledPIDPositionControlLoop(
+                simpleMotorConfigsHandle,
+                gainScheduleConfigs,
+                gainFunction,
+                MotionProfileType.TRAPEZOIDAL,
+                minInput,
+                maxInput);
+    }
+
+    /**
+     * Creates a loop that wraps the position error between minInput and maxInput, like a continuous PIDController.
+     *
+     * @param gainScheduleConfigs grid of positions and bus voltages the gains are computed at
+     * @param gainFunction        gains at one grid point for a set of configs, e.g. {@link GainSchedule#positionLQR}
+     */
+    public static ScheduledPIDPositionControlLoop createwithExponentialProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            GainScheduleConfigs gainScheduleConfigs,
+            Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction,
+            double minInput,
+            double maxInput) {
+        return new ScheduledPIDPositionControlLoop(
+                simpleMotorConfigsHandle,
+                gainScheduleConfigs,
+                gainFunction,
+                MotionProfileType.EXPONENTIAL,
+                minInput,
+                maxInput);
+    }
+
+    private ScheduledPIDPositionControlLoop(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            GainScheduleConfigs gainScheduleConfigs,
+            Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction,
+            MotionProfileType motionProfileType,
+            double minInput,
+            double maxInput) {
+        this.gainScheduleConfigs = gainScheduleConfigs;
+        this.gainFunction = gainFunction;
+        this.motionProfileType = motionProfileType;
+        this.minInput = minInput;
+        this.maxInput = maxInput;
+        this.controlLoopPeriodSeconds = simpleMotorConfigsHandle.get().controlLoopPeriodSeconds();
+        simpleMotorConfigsHandle.addListener(
+                simpleMotorConfigs -> scheduledGains = createScheduledGains(simpleMotorConfigs));
+    }
+
+    @Override
+    public double getOutput(PositionState currentState, PositionState nextState) {
+        ScheduledGains scheduledGains = this.scheduledGains;
+        PositionState actualNextState = scheduledGains.motionProfile().calculate(currentState, nextState, controlLoopPeriodSeconds);
+        double nextPosition = actualNextState.position;
+        double currentVelocity = currentState.velocity;
+        double nextVelocity = actualNextState.velocity;
+        scheduledGains.gainSchedule().lookup(nextPosition, BusVoltage.getVolts(), gains);
+
+        double errorBound = (maxInput - minInput) / 2.0;
+        double positionError = MathUtil.inputModulus(nextPosition - currentState.position, -errorBound, errorBound);
+        double velocityError = nextVelocity - currentVelocity;
+
+        double voltageFF = scheduledGains.discreteMotorFeedforward().calculate(
+                currentVelocity,
+                nextVelocity);
+        double voltagePD = gains.kP * positionError + gains.kD * velocityError;
+        double integralStep = gains.kI * positionError * controlLoopPeriodSeconds;
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        double unclampedVoltage = voltageFF + voltagePD + integralVolts + integralStep;
+        if (Math.abs(unclampedVoltage) < outputLimitVolts
+                || Math.signum(unclampedVoltage) != Math.signum(positionError)) {
+            integralVolts = MathUtil.clamp(integralVolts + integralStep, -outputLimitVolts, outputLimitVolts);
+        }
+        double totalVoltage = voltageFF + voltagePD + integralVolts;
+        totalVoltage = MathUtil.clamp(totalVoltage, -outputLimitVolts, outputLimitVolts);
+        return totalVoltage;
+    }
+
+    @Override
+    public void reset() {
+        integralVolts = 0.0;
+    }
+
+    private ScheduledGains createScheduledGains(SimpleMotorConfigs simpleMotorConfigs) {
+        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
+                simpleMotorConfigs.kS(),
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA());
+        // the integral is kept in volts, so it carries over to the new schedule without a bump
+        return new ScheduledGains(
+                new DiscreteMotorFeedforward(
+                        simpleMotorConfigs.kS(),
+                        simpleMotorConfigs.kV(),
+                        simpleMotorConfigs.kA(),
+                        controlLoopPeriodSeconds),
+                new GainSchedule(gainScheduleConfigs, gainFunction.apply(simpleMotorConfigs)),
+                motionProfileType == MotionProfileType.EXPONENTIAL
+                        ? new ExponentialMotionProfile(simpleMotorConfigs.kV(), simpleMotorConfigs.kA())
+                        : new TrapezoidMotionProfile(simpleMotorFeedforward));
+    }
+
+    private record ScheduledGains(
+            DiscreteMotorFeedforward discreteMotorFeedforward,
+            GainSchedule gainSchedule,
+            MotionProfile motionProfile) {
+    }
+}
@@ -1,116 +1,148 @@
 package com.goatlib.controlLoops.position;
 
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.DiscreteMotorFeedforward;
+import com.goatlib.mechanisms.MotionProfileType;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
 import com.goatlib.motorprofiles.ExponentialMotionProfile;
 import com.goatlib.motorprofiles.MotionProfile;
 import com.goatlib.motorprofiles.PositionState;
 import com.goatlib.motorprofiles.TrapezoidMotionProfile;
+import com.goatlib.power.BusVoltage;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 
 public class SimplePIDPositionControlLoop implements PositionControlLoop {
 
-    private final SimpleMotorFeedforward simpleMotorFeedforward;
+    private final ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle;
     private final PIDController pidController;
-    private final MotionProfile motionProfile;
+    private final MotionProfileType motionProfileType;
     private final double controlLoopPeriodSeconds;
+    private DiscreteMotorFeedforward discreteMotorFeedforward;
+    private MotionProfile motionProfile;
+    private SimpleMotorConfigs appliedConfigs;
 
     public static SimplePIDPositionControlLoop createWithTrapezoidProfile(
             SimpleMotorConfigs simpleMotorConfigs,
             double minInput,
             double maxInput) {
-        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
-                simpleMotorConfigs.kS(),
-                simpleMotorConfigs.kV(),
-                simpleMotorConfigs.kA());
-        PIDController pidController = new PIDController(
-                simpleMotorConfigs.kP(),
-                simpleMotorConfigs.kI(),
-                simpleMotorConfigs.kD());
-        pidController.enableContinuousInput(minInput, maxInput);
-        MotionProfile motionProfile = new TrapezoidMotionProfile(
-                simpleMotorFeedforward.maxAchievableVelocity(12.0, 0.0),
-                simpleMotorFeedforward.maxAchievableAcceleration(12.0, 0.0));
-        return new SimplePIDPositionControlLoop(simpleMotorFeedforward, pidController, motionProfile, simpleMotorConfigs.controlLoopPeriodSeconds());
+        return createWithTrapezoidProfile(new ConfigHandle<>(simpleMotorConfigs), minInput, maxInput);
     }
 
     public static SimplePIDPositionControlLoop createWithTrapezoidProfile(
             SimpleMotorConfigs simpleMotorConfigs) {
-        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
-                simpleMotorConfigs.kS(),
-                simpleMotorConfigs.kV(),
-                simpleMotorConfigs.kA());
-        PIDController pidController = new PIDController(
-                simpleMotorConfigs.kP(),
-                simpleMotorConfigs.kI(),
-                simpleMotorConfigs.kD());
-        MotionProfile motionProfile = new TrapezoidMotionProfile(
-                simpleMotorFeedforward.maxAchievableVelocity(12.0, 0.0),
-                simpleMotorFeedforward.maxAchievableAcceleration(12.0, 0.0));
-        return new SimplePIDPositionControlLoop(simpleMotorFeedforward, pidController, motionProfile, simpleMotorConfigs.controlLoopPeriodSeconds());
+        return createWithTrapezoidProfile(new ConfigHandle<>(simpleMotorConfigs));
     }
 
     public static SimplePIDPositionControlLoop createwithExponentialProfile(
             SimpleMotorConfigs simpleMotorConfigs,
             double minInput,
             double maxInput) {
-        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
-                simpleMotorConfigs.kS(),
-                simpleMotorConfigs.kV(),
-                simpleMotorConfigs.kA());
-        PIDController pidController = new PIDController(
-                simpleMotorConfigs.kP(),
-                simpleMotorConfigs.kI(),
-                simpleMotorConfigs.kD());
-        pidController.enableContinuousInput(minInput, maxInput);
-        MotionProfile motionProfile = new ExponentialMotionProfile(simpleMotorConfigs.kV(), simpleMotorConfigs.kA());
-        return new SimplePIDPositionControlLoop(simpleMotorFeedforward, pidController, motionProfile, simpleMotorConfigs.controlLoopPeriodSeconds());
+        return createwithExponentialProfile(new ConfigHandle<>(simpleMotorConfigs), minInput, maxInput);
     }
 
     public static SimplePIDPositionControlLoop createwithExponentialProfile(
             SimpleMotorConfigs simpleMotorConfigs) {
-        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
-                simpleMotorConfigs.kS(),
-                simpleMotorConfigs.kV(),
-                simpleMotorConfigs.kA());
-        PIDController pidController = new PIDController(
-                simpleMotorConfigs.kP(),
-                simpleMotorConfigs.kI(),
-                simpleMotorConfigs.kD());
-        MotionProfile motionProfile = new ExponentialMotionProfile(simpleMotorConfigs.kV(), simpleMotorConfigs.kA());
-        return new SimplePIDPositionControlLoop(simpleMotorFeedforward, pidController, motionProfile, simpleMotorConfigs.controlLoopPeriodSeconds());
+        return createwithExponentialProfile(new ConfigHandle<>(simpleMotorConfigs));
+    }
+
+    /**
+     * Creates a loop that reads its configs every tick and rebuilds its gains and profile when a new record is
+     * published.
+     */
+    public static SimplePIDPositionControlLoop createWithTrapezoidProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            double minInput,
+            double maxInput) {
+        PIDController pidController = new PIDController(0.0, 0.0, 0.0);
+        pidController.enableContinuousInput(minInput, maxInput);
+        return new SimplePIDPositionControlLoop(simpleMotorConfigsHandle, pidController, MotionProfileType.TRAPEZOIDAL);
+    }
+
+    public static SimplePIDPositionControlLoop createWithTrapezoidProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle) {
+        return new SimplePIDPositionControlLoop(
+                simpleMotorConfigsHandle,
+                new PIDController(0.0, 0.0, 0.0),
+                MotionProfileType.TRAPEZOIDAL);
+    }
+
+    public static SimplePIDPositionControlLoop createwithExponentialProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            double minInput,
+            double maxInput) {
+        PIDController pidController = new PIDController(0.0, 0.0, 0.0);
+        pidController.enableContinuousInput(minInput, maxInput);
+        return new SimplePIDPositionControlLoop(simpleMotorConfigsHandle, pidController, MotionProfileType.EXPONENTIAL);
+    }
+
+    public static SimplePIDPositionControlLoop createwithExponentialProfile(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle) {
+        return new SimplePIDPositionControlLoop(
+                simpleMotorConfigsHandle,
+                new PIDController(0.0, 0.0, 0.0),
+                MotionProfileType.EXPONENTIAL);
     }
 
     private SimplePIDPositionControlLoop(
-            SimpleMotorFeedforward simpleMotorFeedforward,
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
             PIDController pidController,
-            MotionProfile motionProfile,
-            double controlLoopPeriodSeconds
+            MotionProfileType motionProfileType
     ) {
-        this.simpleMotorFeedforward = simpleMotorFeedforward;
+        this.simpleMotorConfigsHandle = simpleMotorConfigsHandle;
         this.pidController = pidController;
-        this.motionProfile = motionProfile;
-        this.controlLoopPeriodSeconds = controlLoopPeriodSeconds;
+        this.motionProfileType = motionProfileType;
+        this.controlLoopPeriodSeconds = simpleMotorConfigsHandle.get().controlLoopPeriodSeconds();
+        applyGains(simpleMotorConfigsHandle.get());
     }
 
 
     @Override
     public double getOutput(PositionState currentState, PositionState nextState) {
+        SimpleMotorConfigs simpleMotorConfigs = simpleMotorConfigsHandle.get();
+        if (simpleMotorConfigs != appliedConfigs) {
+            applyGains(simpleMotorConfigs);
+        }
         PositionState actualNextState = motionProfile.calculate(currentState, nextState, controlLoopPeriodSeconds);
         double currentPosition = currentState.position;
         double nextPosition = actualNextState.position;
         double currentVelocity = currentState.velocity;
         double nextVelocity = actualNextState.velocity;
-        double voltageFF = simpleMotorFeedforward.calculate(
+        double voltageFF = discreteMotorFeedforward.calculate(
                 currentVelocity,
-                nextVelocity,
-                controlLoopPeriodSeconds);
+                nextVelocity);
         double voltageFB = pidController.calculate(
                 currentPosition,
                 nextPosition);
         double totalVoltage = voltageFF + voltageFB;
-        totalVoltage = MathUtil.clamp(totalVoltage, -12.0, 12.0);
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        totalVoltage = MathUtil.clamp(totalVoltage, -outputLimitVolts, outputLimitVolts);
         return totalVoltage;
     }
+
+    @Override
+    public void reset() {
+        pidController.reset();
+    }
+
+    private void applyGains(SimpleMotorConfigs simpleMotorConfigs) {
+        SimpleMotorFeedforward simpleMotorFeedforward = new SimpleMotorFeedforward(
+                simpleMotorConfigs.kS(),
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA());
+        discreteMotorFeedforward = new DiscreteMotorFeedforward(
+                simpleMotorConfigs.kS(),
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA(),
+                controlLoopPeriodSeconds);
+        pidController.setPID(
+                simpleMotorConfigs.kP(),
+                simpleMotorConfigs.kI(),
+                simpleMotorConfigs.kD());
+        motionProfile = motionProfileType == MotionProfileType.EXPONENTIAL
+                ? new ExponentialMotionProfile(simpleMotorConfigs.kV(), simpleMotorConfigs.kA())
+                : new TrapezoidMotionProfile(simpleMotorFeedforward);
+        appliedConfigs = simpleMotorConfigs;
+    }
 }
@@ -0,0 +1,120 @@
+package com.goatlib.controlLoops.velocity;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.DiscreteMotorFeedforward;
+import com.goatlib.controlLoops.GainSchedule;
+import com.goatlib.controlLoops.GainScheduleConfigs;
+import com.goatlib.controlLoops.PIDGains;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+
+import java.util.function.Function;
+
+/**
+ * {@link SimplePIDFVelocityControlLoop} with PID gains looked up every tick from a {@link GainSchedule} over
+ * setpoint velocity and bus voltage.
+ * <p>
+ * The integrator accumulates kI times the error in volts rather than the bare error, so when the scheduled kI
+ * changes the integral term carries on from where it was instead of jumping. It stops accumulating while the output
+ * is saturated in the direction of the error.
+ * <p>
+ * Like {@link SimplePIDFVelocityControlLoop}, the feedforward plans from the velocity predicted for when the output is
+ * applied, a tick later, and the scheduled gains are compensated for that tick of delay.
+ * <p>
+ * Building a schedule solves an LQR problem at every grid point, so it is done on the thread that publishes new
+ * configs and swapped in whole; a tick only interpolates.
+ */
+public class ScheduledPIDFVelocityControlLoop implements VelocityControlLoop {
+
+    private final GainScheduleConfigs gainScheduleConfigs;
+    private final Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction;
+    private final double controlLoopPeriodSeconds;
+    private final PIDGains gains = new PIDGains();
+    private volatile ScheduledGains scheduledGains;
+    private double integralVolts = 0.0;
+    private double lastError = 0.0;
+    private boolean hasLastError = false;
+    private double lastOutputVolts = 0.0;
+
+    public ScheduledPIDFVelocityControlLoop(
+            SimpleMotorConfigs flywheelConfigs,
+            GainScheduleConfigs gainScheduleConfigs,
+            Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction) {
+        this(new ConfigHandle<>(flywheelConfigs), gainScheduleConfigs, gainFunction);
+    }
+
+    /**
+     * @param flywheelConfigsHandle configs the schedule is built from, rebuilt on the publishing thread when a new
+     *                              record is published
+     * @param gainScheduleConfigs   grid of setpoint velocities and bus voltages the gains are computed at
+     * @param gainFunction          gains at one grid point for a set of configs, e.g. {@link GainSchedule#velocityLQR}
+     */
+    public ScheduledPIDFVelocityControlLoop(
+            ConfigHandle<SimpleMotorConfigs> flywheelConfigsHandle,
+            GainScheduleConfigs gainScheduleConfigs,
+            Function<SimpleMotorConfigs, GainSchedule.GainFunction> gainFunction) {
+        this.gainScheduleConfigs = gainScheduleConfigs;
+        this.gainFunction = gainFunction;
+        this.controlLoopPeriodSeconds = flywheelConfigsHandle.get().controlLoopPeriodSeconds();
+        flywheelConfigsHandle.addListener(flywheelConfigs -> scheduledGains = createScheduledGains(flywheelConfigs));
+    }
+
+    @Override
+    public double getOutput(double currentVelocity, double nextVelocity) {
+        ScheduledGains scheduledGains = this.scheduledGains;
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        // don't ask the feedforward for a velocity the available voltage can't hold
+        double maxVelocity = scheduledGains.simpleMotorFeedforward().maxAchievableVelocity(outputLimitVolts, 0.0);
+        nextVelocity = MathUtil.clamp(nextVelocity, -maxVelocity, maxVelocity);
+        scheduledGains.gainSchedule().lookup(Math.abs(nextVelocity), BusVoltage.getVolts(), gains);
+
+        double error = nextVelocity - currentVelocity;
+        double derivative = hasLastError ? (error - lastError) / controlLoopPeriodSeconds : 0.0;
+        lastError = error;
+        hasLastError = true;
+
+        DiscreteMotorFeedforward discreteMotorFeedforward = scheduledGains.discreteMotorFeedforward();
+        double predictedVelocity = discreteMotorFeedforward.predict(currentVelocity, lastOutputVolts);
+        double voltageFF = discreteMotorFeedforward.calculate(
+                predictedVelocity,
+                nextVelocity);
+        double voltagePD = gains.kP * error + gains.kD * derivative;
+        double integralStep = gains.kI * error * controlLoopPeriodSeconds;
+        double unclampedVoltage = voltageFF + voltagePD + integralVolts + integralStep;
+        if (Math.abs(unclampedVoltage) < outputLimitVolts || Math.signum(unclampedVoltage) != Math.signum(error)) {
+            integralVolts = MathUtil.clamp(integralVolts + integralStep, -outputLimitVolts, outputLimitVolts);
+        }
+        double totalVoltage = voltageFF + voltagePD + integralVolts;
+        totalVoltage = MathUtil.clamp(totalVoltage, -outputLimitVolts, outputLimitVolts);
+        lastOutputVolts = totalVoltage;
+        return totalVoltage;
+    }
+
+    @Override
+    public void reset() {
+        integralVolts = 0.0;
+        lastError = 0.0;
+        hasLastError = false;
+        lastOutputVolts = 0.0;
+    }
+
+    private ScheduledGains createScheduledGains(SimpleMotorConfigs flywheelConfigs) {
+        // the integral is kept in volts, so it carries over to the new schedule without a bump
+        return new ScheduledGains(
+                new SimpleMotorFeedforward(flywheelConfigs.kS(), flywheelConfigs.kV(), flywheelConfigs.kA()),
+                new DiscreteMotorFeedforward(
+                        flywheelConfigs.kS(),
+                        flywheelConfigs.kV(),
+                        flywheelConfigs.kA(),
+                        controlLoopPeriodSeconds),
+                new GainSchedule(gainScheduleConfigs, gainFunction.apply(flywheelConfigs)));
+    }
+
+    private record ScheduledGains(
+            SimpleMotorFeedforward simpleMotorFeedforward,
+            DiscreteMotorFeedforward discreteMotorFeedforward,
+            GainSchedule gainSchedule) {
+    }
+}
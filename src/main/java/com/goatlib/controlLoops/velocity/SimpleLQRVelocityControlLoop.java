@@ -1,23 +1,32 @@
 package com.goatlib.controlLoops.velocity;
 
-import edu.wpi.first.math.MatBuilder;
-import edu.wpi.first.math.Nat;
-import edu.wpi.first.math.VecBuilder;
-import edu.wpi.first.math.Vector;
-import edu.wpi.first.math.controller.LinearQuadraticRegulator;
-import edu.wpi.first.math.estimator.KalmanFilter;
-import edu.wpi.first.math.numbers.N1;
-import edu.wpi.first.math.system.LinearSystem;
-import edu.wpi.first.math.system.LinearSystemLoop;
-import edu.wpi.first.math.system.plant.LinearSystemId;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.MathUtil;
 
+/**
+ * An LQR velocity loop with a Kalman filter and plant inversion feedforward, the same loop WPILib's
+ * {@code LinearSystemLoop} runs for a velocity system, worked out in closed form.
+ * <p>
+ * The plant has one state, so the regulator and filter Riccati equations are quadratics solved once here, and a
+ * tick is a few multiplies. WPILib's version returns new matrices from every step of every call.
+ */
 public class SimpleLQRVelocityControlLoop implements VelocityControlLoop {
 
-    private final Vector<N1> currentReference;
-    private final Vector<N1> nextReference;
-    private final LinearSystemLoop<N1, N1, N1> loop;
-    private final double controlLoopPeriodSeconds;
+    private final double discreteA;
+    private final double discreteB;
+    private final double controllerGain;
+    private final double observerGain;
+    private final double maxControlEffortVolts;
+    private double estimatedVelocity = 0.0;
+    private double feedforwardReference = 0.0;
+    private double lastOutputVolts = 0.0;
 
+    /**
+     * @param stateStdDev            model standard deviation of the velocity
+     * @param measurementStdDev      standard deviation of the velocity measurement
+     * @param velocityErrorTolerance velocity error weighted the same as the max control effort
+     * @param maxControlEffortVolts  control effort the cost is weighted against, and the output is limited to
+     */
     public SimpleLQRVelocityControlLoop(
             double kV,
             double kA,
@@ -26,39 +35,46 @@ public class SimpleLQRVelocityControlLoop implements VelocityControlLoop {
             double velocityErrorTolerance,
             double maxControlEffortVolts,
             double controlLoopPeriodSeconds) {
-        LinearSystem<N1, N1, N1> plant = LinearSystemId.identifyVelocitySystem(kV, kA);
-        KalmanFilter<N1, N1, N1> observer = new KalmanFilter<>(
-                Nat.N1(),
-                Nat.N1(),
-                plant,
-                MatBuilder.fill(Nat.N1(), Nat.N1(), stateStdDev),
-                MatBuilder.fill(Nat.N1(), Nat.N1(), measurementStdDev),
-                controlLoopPeriodSeconds);
-        LinearQuadraticRegulator<N1, N1, N1> controller = new LinearQuadraticRegulator<>(
-                plant,
-                VecBuilder.fill(velocityErrorTolerance),
-                VecBuilder.fill(maxControlEffortVolts),
-                controlLoopPeriodSeconds);
-        loop = new LinearSystemLoop<>(
-                plant,
-                controller,
-                observer,
-                maxControlEffortVolts,
-                controlLoopPeriodSeconds);
-        this.controlLoopPeriodSeconds = controlLoopPeriodSeconds;
+        double continuousA = -kV / kA;
+        double continuousB = 1.0 / kA;
+        discreteA = Math.exp(continuousA * controlLoopPeriodSeconds);
+        discreteB = (discreteA - 1.0) / continuousA * continuousB;
+        this.maxControlEffortVolts = maxControlEffortVolts;
 
-        currentReference = VecBuilder.fill(0.0);
-        nextReference = VecBuilder.fill(0.0);
+        double stateCost = 1.0 / (velocityErrorTolerance * velocityErrorTolerance);
+        double inputCost = 1.0 / (maxControlEffortVolts * maxControlEffortVolts);
+        double costToGo = solveRiccati(discreteA, discreteB, stateCost, inputCost);
+        controllerGain = discreteB * costToGo * discreteA / (inputCost + discreteB * discreteB * costToGo);
+
+        // the filter's process noise integrated over the period, and its measurement noise sampled at the period
+        double processNoise = stateStdDev * stateStdDev
+                * (Math.exp(2.0 * continuousA * controlLoopPeriodSeconds) - 1.0) / (2.0 * continuousA);
+        double measurementNoise = measurementStdDev * measurementStdDev / controlLoopPeriodSeconds;
+        double errorCovariance = solveRiccati(discreteA, 1.0, processNoise, measurementNoise);
+        observerGain = errorCovariance / (errorCovariance + measurementNoise);
     }
 
     @Override
     public double getOutput(double currentVelocity, double nextVelocity) {
-        currentReference.set(0, 0, currentVelocity);
-        nextReference.set(0, 0, nextVelocity);
-        loop.setNextR(nextReference);
-        loop.correct(currentReference);
-        loop.predict(controlLoopPeriodSeconds);
-        return loop.getU(0);
+        // correct with the measurement, predict with last tick's output, then plan the next output
+        estimatedVelocity += observerGain * (currentVelocity - estimatedVelocity);
+        double feedbackVolts = controllerGain * (nextVelocity - estimatedVelocity);
+        double feedforwardVolts = (nextVelocity - discreteA * feedforwardReference) / discreteB;
+        feedforwardReference = nextVelocity;
+        lastOutputVolts = MathUtil.clamp(feedbackVolts + feedforwardVolts, -maxControlEffortVolts, maxControlEffortVolts);
+        estimatedVelocity = discreteA * estimatedVelocity + discreteB * lastOutputVolts;
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        return MathUtil.clamp(lastOutputVolts, -outputLimitVolts, outputLimitVolts);
     }
-}
 
+    /**
+     * Solves the scalar discrete algebraic Riccati equation p = a^2 p - a^2 p^2 b^2 / (r + b^2 p) + q, which
+     * rearranges to b^2 p^2 + (r (1 - a^2) - q b^2) p - q r = 0, for its positive root.
+     */
+    private static double solveRiccati(double a, double b, double q, double r) {
+        double quadratic = b * b;
+        double linear = r * (1.0 - a * a) - q * b * b;
+        double constant = -q * r;
+        return (-linear + Math.sqrt(linear * linear - 4.0 * quadratic * constant)) / (2.0 * quadratic);
+    }
+}
@@ -1,40 +1,87 @@
 package com.goatlib.controlLoops.velocity;
 
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.DiscreteMotorFeedforward;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.power.BusVoltage;
 
+/**
+ * A PID loop on velocity with a kS/kV/kA plant inversion feedforward.
+ * <p>
+ * The output is applied on the next tick, so the velocity measured now isn't where the next output starts from. The
+ * feedforward plans from the velocity this tick's output will have reached, predicted with the model from the last
+ * output. Planning from the measured velocity instead rings, and a load the model doesn't know about, like a game
+ * piece, then sets the wheel oscillating.
+ */
 public class SimplePIDFVelocityControlLoop implements VelocityControlLoop {
 
-    private final SimpleMotorFeedforward simpleMotorFeedforward;
+    private final ConfigHandle<SimpleMotorConfigs> flywheelConfigsHandle;
     private final PIDController pidController;
     private final double controlLoopPeriodSeconds;
+    private SimpleMotorFeedforward simpleMotorFeedforward;
+    private DiscreteMotorFeedforward discreteMotorFeedforward;
+    private SimpleMotorConfigs appliedConfigs;
+    private double lastOutputVolts = 0.0;
 
     public SimplePIDFVelocityControlLoop(SimpleMotorConfigs flywheelConfigs) {
-        simpleMotorFeedforward = new SimpleMotorFeedforward(
-                flywheelConfigs.kS(),
-                flywheelConfigs.kV(),
-                flywheelConfigs.kA());
+        this(new ConfigHandle<>(flywheelConfigs));
+    }
+
+    /**
+     * @param flywheelConfigsHandle configs read every tick, the gains are rebuilt when a new record is published
+     */
+    public SimplePIDFVelocityControlLoop(ConfigHandle<SimpleMotorConfigs> flywheelConfigsHandle) {
+        SimpleMotorConfigs flywheelConfigs = flywheelConfigsHandle.get();
+        this.flywheelConfigsHandle = flywheelConfigsHandle;
         pidController = new PIDController(
                 flywheelConfigs.kP(),
                 flywheelConfigs.kI(),
                 flywheelConfigs.kD(),
                 flywheelConfigs.controlLoopPeriodSeconds());
         this.controlLoopPeriodSeconds = flywheelConfigs.controlLoopPeriodSeconds();
+        applyGains(flywheelConfigs);
     }
 
     @Override
     public double getOutput(double currentVelocity, double nextVelocity) {
-        double voltageFF = simpleMotorFeedforward.calculate(
-                currentVelocity,
-                nextVelocity,
-                controlLoopPeriodSeconds);
+        SimpleMotorConfigs flywheelConfigs = flywheelConfigsHandle.get();
+        if (flywheelConfigs != appliedConfigs) {
+            applyGains(flywheelConfigs);
+        }
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        // don't ask the feedforward for a velocity the available voltage can't hold
+        double maxVelocity = simpleMotorFeedforward.maxAchievableVelocity(outputLimitVolts, 0.0);
+        nextVelocity = MathUtil.clamp(nextVelocity, -maxVelocity, maxVelocity);
+        double predictedVelocity = discreteMotorFeedforward.predict(currentVelocity, lastOutputVolts);
+        double voltageFF = discreteMotorFeedforward.calculate(
+                predictedVelocity,
+                nextVelocity);
         double voltageFB = pidController.calculate(
                 currentVelocity,
                 nextVelocity);
         double totalVoltage = voltageFF + voltageFB;
-        totalVoltage = MathUtil.clamp(totalVoltage, -12.0, 12.0);
+        totalVoltage = MathUtil.clamp(totalVoltage, -outputLimitVolts, outputLimitVolts);
+        lastOutputVolts = totalVoltage;
         return totalVoltage;
     }
+
+    private void applyGains(SimpleMotorConfigs flywheelConfigs) {
+        simpleMotorFeedforward = new SimpleMotorFeedforward(
+                flywheelConfigs.kS(),
+                flywheelConfigs.kV(),
+                flywheelConfigs.kA());
+        discreteMotorFeedforward = new DiscreteMotorFeedforward(
+                flywheelConfigs.kS(),
+                flywheelConfigs.kV(),
+                flywheelConfigs.kA(),
+                controlLoopPeriodSeconds);
+        pidController.setPID(
+                flywheelConfigs.kP(),
+                flywheelConfigs.kI(),
+                flywheelConfigs.kD());
+        appliedConfigs = flywheelConfigs;
+    }
 }
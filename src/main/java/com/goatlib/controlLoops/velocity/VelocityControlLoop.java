@@ -4,4 +4,11 @@ package com.goatlib.controlLoops.velocity;
 public interface VelocityControlLoop {
 
     double getOutput(double currentVelocity, double nextVelocity);
+
+    /**
+     * Clears state carried between ticks, like an integrator or the last error, so the loop can take over from
+     * another one without a bump.
+     */
+    default void reset() {
+    }
 }
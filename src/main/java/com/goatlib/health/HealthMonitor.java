@@ -0,0 +1,177 @@
+package com.goatlib.health;
+
+import com.goatlib.power.BusVoltage;
+
+/**
+ * Watches one mechanism's control callback for signs that it is acting on bad data or can't do what it is asked.
+ * <ul>
+ *     <li>frozen sensor: the measurement is bit-for-bit unchanged while the loop is driving the mechanism towards a
+ *     setpoint it is still far from. Holding position or resting against a hard stop leaves a small error, so a
+ *     stationary mechanism with a live sensor doesn't trip it</li>
+ *     <li>disconnected: the motor reports that its last reads failed, or that its sensors disagree</li>
+ *     <li>saturated: the output is pinned at the available voltage limit</li>
+ *     <li>tracking error: the error stays above a bound</li>
+ *     <li>overrun: the control callback or the motor update takes longer than its budget</li>
+ * </ul>
+ * Frozen and disconnected are faults, the rest are warnings. Each check is a counter that has to reach its tick
+ * count before it raises, so every tick costs the same and allocates nothing. With safe mode enabled a fault
+ * latches {@link #isSafeMode()} until {@link #reset()}. Overruns can also be reported to a {@link JvmEventMonitor}
+ * to find out whether a GC or JIT compilation caused them.
+ */
+public class HealthMonitor {
+
+    public static final int FROZEN_SENSOR = 1;
+    public static final int DISCONNECTED = 1 << 1;
+    public static final int SATURATED = 1 << 2;
+    public static final int TRACKING_ERROR = 1 << 3;
+    public static final int OVERRUN = 1 << 4;
+    private static final int FAULT_MASK = FROZEN_SENSOR | DISCONNECTED;
+
+    private final HealthMonitorConfigs healthMonitorConfigs;
+    private final long callbackBudgetNanos;
+    private long tickStartNanos = 0;
+    private boolean hasMeasurement = false;
+    private double lastMeasurement = 0.0;
+    private int frozenTicks = 0;
+    private int disconnectedTicks = 0;
+    private int saturatedTicks = 0;
+    private int trackingErrorTicks = 0;
+    private long overrunCount = 0;
+    private int faults = 0;
+    private boolean safeMode = false;
+    private JvmEventMonitor jvmEventMonitor = null;
+    private int controlSource = -1;
+    private int updateSource = -1;
+
+    public HealthMonitor(HealthMonitorConfigs healthMonitorConfigs) {
+        this.healthMonitorConfigs = healthMonitorConfigs;
+        this.callbackBudgetNanos = (long) (healthMonitorConfigs.callbackBudgetSeconds() * 1e9);
+    }
+
+    /**
+     * Reports every overrun to the monitor as two sources, "name control" and "name update". Call before the
+     * monitor is started.
+     */
+    public void setJvmEventMonitor(JvmEventMonitor jvmEventMonitor, String name) {
+        this.jvmEventMonitor = jvmEventMonitor;
+        this.controlSource = jvmEventMonitor.addSource(name + " control");
+        this.updateSource = jvmEventMonitor.addSource(name + " update");
+    }
+
+    /**
+     * Marks the start of the control callback. Call first thing in the callback.
+     */
+    public void startTick() {
+        tickStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs every check. Call last thing in the control callback.
+     *
+     * @param measurement the signal the loop controls, compared bit-for-bit with the last tick
+     * @param output      voltage applied this tick
+     * @param error       setpoint minus measurement
+     * @param connected   whether the motor's last reads succeeded
+     */
+    public void update(double measurement, double output, double error, boolean connected) {
+        // the model only predicts motion when the output pushes towards the setpoint and the error is large
+        boolean driving = Math.abs(output) >= healthMonitorConfigs.frozenSensorMinOutputVolts()
+                && Math.abs(error) >= healthMonitorConfigs.frozenSensorMinError()
+                && output * error > 0.0;
+        frozenTicks = hasMeasurement && driving && measurement == lastMeasurement ? frozenTicks + 1 : 0;
+        lastMeasurement = measurement;
+        hasMeasurement = true;
+
+        disconnectedTicks = connected ? 0 : disconnectedTicks + 1;
+
+        boolean saturated = Math.abs(output)
+                >= BusVoltage.getOutputLimitVolts() - healthMonitorConfigs.saturationMarginVolts();
+        saturatedTicks = saturated ? saturatedTicks + 1 : 0;
+
+        trackingErrorTicks = Math.abs(error) > healthMonitorConfigs.trackingErrorBound() ? trackingErrorTicks + 1 : 0;
+
+        long tickEndNanos = System.nanoTime();
+        boolean overrun = tickEndNanos - tickStartNanos > callbackBudgetNanos;
+        if (overrun) {
+            overrunCount++;
+            if (jvmEventMonitor != null) {
+                jvmEventMonitor.reportOverrun(controlSource, tickStartNanos, tickEndNanos);
+            }
+        }
+
+        int faults = 0;
+        if (frozenTicks >= healthMonitorConfigs.frozenSensorTicks()) {
+            faults |= FROZEN_SENSOR;
+        }
+        if (disconnectedTicks >= healthMonitorConfigs.disconnectedTicks()) {
+            faults |= DISCONNECTED;
+        }
+        if (saturatedTicks >= healthMonitorConfigs.saturationTicks()) {
+            faults |= SATURATED;
+        }
+        if (trackingErrorTicks >= healthMonitorConfigs.trackingErrorTicks()) {
+            faults |= TRACKING_ERROR;
+        }
+        if (overrun) {
+            faults |= OVERRUN;
+        }
+        this.faults = faults;
+        if (healthMonitorConfigs.safeModeOnFault() && (faults & FAULT_MASK) != 0) {
+            safeMode = true;
+        }
+    }
+
+    /**
+     * Checks a motor update against the callback budget, so a slow CAN read counts as an overrun too. Call right
+     * after the update.
+     *
+     * @param startNanos {@link System#nanoTime()} when the update started
+     */
+    public void recordMotorUpdate(long startNanos) {
+        long endNanos = System.nanoTime();
+        if (endNanos - startNanos > callbackBudgetNanos) {
+            overrunCount++;
+            if (jvmEventMonitor != null) {
+                jvmEventMonitor.reportOverrun(updateSource, startNanos, endNanos);
+            }
+        }
+    }
+
+    /**
+     * Clears every counter and leaves safe mode.
+     */
+    public void reset() {
+        hasMeasurement = false;
+        frozenTicks = 0;
+        disconnectedTicks = 0;
+        saturatedTicks = 0;
+        trackingErrorTicks = 0;
+        faults = 0;
+        safeMode = false;
+    }
+
+    public HealthState getState() {
+        if ((faults & FAULT_MASK) != 0) {
+            return HealthState.FAULTED;
+        }
+        return faults != 0 ? HealthState.WARNING : HealthState.OK;
+    }
+
+    /**
+     * @return bitwise OR of the active checks, e.g. {@link #FROZEN_SENSOR}
+     */
+    public int getFaults() {
+        return faults;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return whether the mechanism should hold a neutral output
+     */
+    public boolean isSafeMode() {
+        return safeMode;
+    }
+}
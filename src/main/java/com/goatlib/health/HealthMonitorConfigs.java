@@ -0,0 +1,19 @@
+package com.goatlib.health;
+
+/**
+ * @param frozenSensorMinOutputVolts voltage the output must reach before a frozen measurement counts, above kS
+ * @param frozenSensorMinError       error that must remain before a frozen measurement counts, in the measurement's
+ *                                   units; larger than the error left while holding or resting against a hard stop
+ */
+public record HealthMonitorConfigs(
+        int frozenSensorTicks,
+        double frozenSensorMinOutputVolts,
+        double frozenSensorMinError,
+        int disconnectedTicks,
+        int saturationTicks,
+        double saturationMarginVolts,
+        double trackingErrorBound,
+        int trackingErrorTicks,
+        double callbackBudgetSeconds,
+        boolean safeModeOnFault) {
+}
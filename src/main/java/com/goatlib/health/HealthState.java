@@ -0,0 +1,7 @@
+package com.goatlib.health;
+
+public enum HealthState {
+    OK,
+    WARNING,
+    FAULTED
+}
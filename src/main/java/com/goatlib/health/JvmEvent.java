@@ -0,0 +1,37 @@
+package com.goatlib.health;
+
+/**
+ * One garbage collection, burst of JIT compilation or control loop overrun seen by the {@link JvmEventMonitor}.
+ * Mutable so a single instance can be reused for every published event.
+ */
+public class JvmEvent {
+    public static final JvmEventStruct struct = new JvmEventStruct();
+
+    public static final int GC = 0;
+    public static final int JIT = 1;
+    public static final int OVERRUN = 2;
+
+    /**
+     * Set on an overrun that overlapped a garbage collection.
+     */
+    public static final int CAUSE_GC = 1;
+    /**
+     * Set on an overrun that overlapped a window with JIT compilation.
+     */
+    public static final int CAUSE_JIT = 1 << 1;
+
+    public double timestampSeconds;
+    public double durationSeconds;
+    /**
+     * {@link #GC}, {@link #JIT} or {@link #OVERRUN}.
+     */
+    public int type;
+    /**
+     * The collector index for a GC, the overrun source id for an overrun.
+     */
+    public int source;
+    /**
+     * Bitwise OR of {@link #CAUSE_GC} and {@link #CAUSE_JIT} for an overrun, 0 otherwise.
+     */
+    public int causes;
+}
@@ -0,0 +1,357 @@
+package com.goatlib.health;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Timer;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records garbage collections, JIT compilation and control loop overruns on one timeline, and marks each overrun
+ * with the JVM events it overlapped. An overrun with neither cause set spent its time in our own code or a blocking
+ * call, usually a slow CAN read.
+ * <p>
+ * Every event goes out as a packed {@link JvmEvent} struct on /goatlib/jvm with timestamps on the FPGA clock, the
+ * same clock the mechanism telemetry uses.
+ * <ul>
+ *     <li>GC: collector notifications from the JMX notification thread are copied into a ring, nothing runs on the
+ *     robot thread until a collection happens</li>
+ *     <li>JIT: HotSpot has no compilation notifications, so {@link #update()} reads the total compilation time
+ *     counter and raises an event covering the whole update period when it grew by more than the threshold</li>
+ *     <li>overruns: reported by {@link HealthMonitor}, held for the correlation delay because a GC notification only
+ *     arrives after the collection ends, then matched against the remembered GC and JIT windows</li>
+ * </ul>
+ * While nothing happens an update is one counter read and a few field reads, and nothing allocates on the robot
+ * thread.
+ */
+public class JvmEventMonitor implements Sendable {
+
+    private static final long MILLISECOND_NANOS = 1_000_000L;
+
+    private final JvmEventMonitorConfigs jvmEventMonitorConfigs;
+    private final int capacity;
+    private final long correlationDelayNanos;
+    private final long jvmStartNanos;
+    private final double fpgaOffsetSeconds;
+    private final StructPublisher<JvmEvent> publisher;
+    private final JvmEvent event = new JvmEvent();
+    private final List<String> sourceNames = new ArrayList<>();
+    private String sources = "";
+    private final CompilationMXBean compilationMXBean;
+    private long lastCompilationMillis = 0;
+    private long lastPollNanos = 0;
+    private boolean started = false;
+
+    // written by the JMX notification thread, read by update
+    private final long[] gcStartNanos;
+    private final long[] gcEndNanos;
+    private final int[] gcCollectors;
+    private final List<String> collectorNames = new ArrayList<>();
+    private String collectors = "";
+    private volatile long gcWriteSequence = 0;
+    private volatile long gcReadSequence = 0;
+    private volatile long droppedGcEvents = 0;
+
+    // GC and JIT windows that overruns are matched against
+    private final long[] windowStartNanos;
+    private final long[] windowEndNanos;
+    private final int[] windowTypes;
+    private long windowCount = 0;
+
+    // overruns waiting out the correlation delay
+    private final long[] overrunStartNanos;
+    private final long[] overrunEndNanos;
+    private final int[] overrunSources;
+    private long overrunWriteSequence = 0;
+    private long overrunReadSequence = 0;
+    private long droppedOverruns = 0;
+
+    private long gcCount = 0;
+    private long jitCount = 0;
+    private long overrunCount = 0;
+    private long overrunsDuringGc = 0;
+    private long overrunsDuringJit = 0;
+    private long unexplainedOverruns = 0;
+
+    public JvmEventMonitor(JvmEventMonitorConfigs jvmEventMonitorConfigs) {
+        this.jvmEventMonitorConfigs = jvmEventMonitorConfigs;
+        this.capacity = jvmEventMonitorConfigs.eventCapacity();
+        this.correlationDelayNanos = (long) (jvmEventMonitorConfigs.correlationDelaySeconds() * 1e9);
+        this.gcStartNanos = new long[capacity];
+        this.gcEndNanos = new long[capacity];
+        this.gcCollectors = new int[capacity];
+        this.windowStartNanos = new long[capacity];
+        this.windowEndNanos = new long[capacity];
+        this.windowTypes = new int[capacity];
+        this.overrunStartNanos = new long[capacity];
+        this.overrunEndNanos = new long[capacity];
+        this.overrunSources = new int[capacity];
+        long nowNanos = System.nanoTime();
+        // GC start and end times are milliseconds since the JVM started
+        this.jvmStartNanos = nowNanos - ManagementFactory.getRuntimeMXBean().getUptime() * MILLISECOND_NANOS;
+        this.fpgaOffsetSeconds = Timer.getFPGATimestamp() - nowNanos * 1e-9;
+        CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+        this.compilationMXBean = compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported()
+                ? compilationMXBean
+                : null;
+        this.publisher = NetworkTableInstance.getDefault()
+                .getStructTopic("/goatlib/jvm", JvmEvent.struct)
+                // several events can go out in one update, keep all of them
+                .publish(PubSubOption.sendAll(true));
+    }
+
+    /**
+     * Adds a named overrun source. Sources must be added before {@link #start()}.
+     *
+     * @return the source id to pass to {@link #reportOverrun}
+     */
+    public int addSource(String name) {
+        if (started) {
+            throw new IllegalStateException("sources must be added before the monitor is started");
+        }
+        sourceNames.add(name);
+        sources = String.join(",", sourceNames);
+        return sourceNames.size() - 1;
+    }
+
+    /**
+     * Subscribes to garbage collector notifications and starts the compilation time baseline.
+     */
+    public void start() {
+        if (started) {
+            throw new IllegalStateException("monitor already started");
+        }
+        started = true;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this::handleNotification, null, collectorNames.size());
+                collectorNames.add(collector.getName());
+            }
+        }
+        collectors = String.join(",", collectorNames);
+        lastPollNanos = System.nanoTime();
+        if (compilationMXBean != null) {
+            lastCompilationMillis = compilationMXBean.getTotalCompilationTime();
+        }
+    }
+
+    /**
+     * Queues an overrun for matching. Only call from the thread that calls {@link #update()}, normally the robot
+     * thread.
+     *
+     * @param source     id from {@link #addSource}
+     * @param startNanos {@link System#nanoTime()} when the callback started
+     * @param endNanos   {@link System#nanoTime()} when the callback ended
+     */
+    public void reportOverrun(int source, long startNanos, long endNanos) {
+        if (overrunWriteSequence - overrunReadSequence >= capacity) {
+            droppedOverruns++;
+            return;
+        }
+        int slot = (int) (overrunWriteSequence % capacity);
+        overrunStartNanos[slot] = startNanos;
+        overrunEndNanos[slot] = endNanos;
+        overrunSources[slot] = source;
+        overrunWriteSequence++;
+    }
+
+    /**
+     * Polls compilation time, publishes new GC events and matches overruns older than the correlation delay. Call
+     * periodically, at least as often as the correlation delay.
+     */
+    public void update() {
+        long nowNanos = System.nanoTime();
+        if (compilationMXBean != null) {
+            long compilationMillis = compilationMXBean.getTotalCompilationTime();
+            double compilationSeconds = (compilationMillis - lastCompilationMillis) * 1e-3;
+            if (compilationSeconds >= jvmEventMonitorConfigs.jitThresholdSeconds()) {
+                addWindow(JvmEvent.JIT, lastPollNanos, nowNanos);
+                publish(JvmEvent.JIT, lastPollNanos, compilationSeconds, 0, 0);
+                jitCount++;
+            }
+            lastCompilationMillis = compilationMillis;
+        }
+        lastPollNanos = nowNanos;
+
+        long gcWrite = gcWriteSequence;
+        for (long read = gcReadSequence; read < gcWrite; read++) {
+            int slot = (int) (read % capacity);
+            addWindow(JvmEvent.GC, gcStartNanos[slot], gcEndNanos[slot]);
+            publish(
+                    JvmEvent.GC,
+                    gcStartNanos[slot],
+                    (gcEndNanos[slot] - gcStartNanos[slot]) * 1e-9,
+                    gcCollectors[slot],
+                    0);
+            gcCount++;
+        }
+        gcReadSequence = gcWrite;
+
+        while (overrunReadSequence < overrunWriteSequence) {
+            int slot = (int) (overrunReadSequence % capacity);
+            if (nowNanos - overrunEndNanos[slot] < correlationDelayNanos) {
+                break;
+            }
+            int causes = findCauses(overrunStartNanos[slot], overrunEndNanos[slot]);
+            publish(
+                    JvmEvent.OVERRUN,
+                    overrunStartNanos[slot],
+                    (overrunEndNanos[slot] - overrunStartNanos[slot]) * 1e-9,
+                    overrunSources[slot],
+                    causes);
+            overrunCount++;
+            if ((causes & JvmEvent.CAUSE_GC) != 0) {
+                overrunsDuringGc++;
+            }
+            if ((causes & JvmEvent.CAUSE_JIT) != 0) {
+                overrunsDuringJit++;
+            }
+            if (causes == 0) {
+                unexplainedOverruns++;
+            }
+            overrunReadSequence++;
+        }
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GcInfo gcInfo = GarbageCollectionNotificationInfo
+                .from((CompositeData) notification.getUserData())
+                .getGcInfo();
+        long write = gcWriteSequence;
+        if (write - gcReadSequence >= capacity) {
+            droppedGcEvents++;
+            return;
+        }
+        int slot = (int) (write % capacity);
+        // the times only have millisecond resolution, widen the window so a pause can't slip between ticks
+        gcStartNanos[slot] = jvmStartNanos + (gcInfo.getStartTime() - 1) * MILLISECOND_NANOS;
+        gcEndNanos[slot] = jvmStartNanos + (gcInfo.getEndTime() + 1) * MILLISECOND_NANOS;
+        gcCollectors[slot] = (Integer) handback;
+        gcWriteSequence = write + 1;
+    }
+
+    private void addWindow(int type, long startNanos, long endNanos) {
+        int slot = (int) (windowCount % capacity);
+        windowStartNanos[slot] = startNanos;
+        windowEndNanos[slot] = endNanos;
+        windowTypes[slot] = type;
+        windowCount++;
+    }
+
+    private int findCauses(long startNanos, long endNanos) {
+        int causes = 0;
+        long remembered = Math.min(windowCount, capacity);
+        for (int i = 0; i < remembered; i++) {
+            if (windowStartNanos[i] < endNanos && windowEndNanos[i] > startNanos) {
+                causes |= windowTypes[i] == JvmEvent.GC ? JvmEvent.CAUSE_GC : JvmEvent.CAUSE_JIT;
+            }
+        }
+        return causes;
+    }
+
+    private void publish(int type, long startNanos, double durationSeconds, int source, int causes) {
+        event.timestampSeconds = startNanos * 1e-9 + fpgaOffsetSeconds;
+        event.durationSeconds = durationSeconds;
+        event.type = type;
+        event.source = source;
+        event.causes = causes;
+        publisher.set(event);
+    }
+
+    /**
+     * @return whether compilation time can be read, without it no JIT events are raised
+     */
+    public boolean isJitMonitoringSupported() {
+        return compilationMXBean != null;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public long getJitCount() {
+        return jitCount;
+    }
+
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    public long getOverrunsDuringGc() {
+        return overrunsDuringGc;
+    }
+
+    public long getOverrunsDuringJit() {
+        return overrunsDuringJit;
+    }
+
+    /**
+     * @return overruns that overlapped no GC or JIT event
+     */
+    public long getUnexplainedOverruns() {
+        return unexplainedOverruns;
+    }
+
+    public long getDroppedEvents() {
+        return droppedGcEvents + droppedOverruns;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.addStringProperty(
+                "Sources",
+                () -> sources,
+                null);
+        builder.addStringProperty(
+                "Collectors",
+                () -> collectors,
+                null);
+        builder.addBooleanProperty(
+                "JIT Monitoring",
+                this::isJitMonitoringSupported,
+                null);
+        builder.addIntegerProperty(
+                "GC Events",
+                this::getGcCount,
+                null);
+        builder.addIntegerProperty(
+                "JIT Events",
+                this::getJitCount,
+                null);
+        builder.addIntegerProperty(
+                "Overruns",
+                this::getOverrunCount,
+                null);
+        builder.addIntegerProperty(
+                "Overruns During GC",
+                this::getOverrunsDuringGc,
+                null);
+        builder.addIntegerProperty(
+                "Overruns During JIT",
+                this::getOverrunsDuringJit,
+                null);
+        builder.addIntegerProperty(
+                "Unexplained Overruns",
+                this::getUnexplainedOverruns,
+                null);
+        builder.addIntegerProperty(
+                "Dropped Events",
+                this::getDroppedEvents,
+                null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.goatlib.health;
+
+/**
+ * @param eventCapacity              GC events and overruns each buffered before they are dropped, and JVM event
+ *                                   windows remembered for matching overruns
+ * @param jitThresholdSeconds        compilation time within one update that counts as a JIT event
+ * @param correlationDelaySeconds    how long an overrun waits for GC notifications, which arrive after the
+ *                                   collection ends, before it is matched and published
+ */
+public record JvmEventMonitorConfigs(
+        int eventCapacity,
+        double jitThresholdSeconds,
+        double correlationDelaySeconds) {
+}
@@ -0,0 +1,53 @@
+package com.goatlib.health;
+
+import edu.wpi.first.util.struct.Struct;
+
+import java.nio.ByteBuffer;
+
+public class JvmEventStruct implements Struct<JvmEvent> {
+
+    @Override
+    public Class<JvmEvent> getTypeClass() {
+        return JvmEvent.class;
+    }
+
+    @Override
+    public String getTypeString() {
+        return "struct:JvmEvent";
+    }
+
+    @Override
+    public int getSize() {
+        return kSizeDouble * 2 + kSizeInt32 * 3;
+    }
+
+    @Override
+    public String getSchema() {
+        return "double timestamp;double duration;int32 type;int32 source;int32 causes";
+    }
+
+    @Override
+    public JvmEvent unpack(ByteBuffer bb) {
+        JvmEvent event = new JvmEvent();
+        unpackInto(event, bb);
+        return event;
+    }
+
+    @Override
+    public void unpackInto(JvmEvent out, ByteBuffer bb) {
+        out.timestampSeconds = bb.getDouble();
+        out.durationSeconds = bb.getDouble();
+        out.type = bb.getInt();
+        out.source = bb.getInt();
+        out.causes = bb.getInt();
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, JvmEvent value) {
+        bb.putDouble(value.timestampSeconds);
+        bb.putDouble(value.durationSeconds);
+        bb.putInt(value.type);
+        bb.putInt(value.source);
+        bb.putInt(value.causes);
+    }
+}
@@ -0,0 +1,151 @@
+package com.goatlib.interpolation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable lookup table over primitive arrays. Queries binary search the breakpoints and allocate nothing. Inputs
+ * outside the table are clamped to the first or last value.
+ * <p>
+ * Cubic interpolation uses monotone cubic Hermite tangents (Fritsch-Carlson), so the curve never overshoots between
+ * breakpoints, e.g. a flywheel speed map never asks for more speed than its neighbouring breakpoints.
+ */
+public class InterpolatingTable {
+
+    private final double[] inputs;
+    private final double[] outputs;
+    private final double[] tangents;
+    private final InterpolationType interpolationType;
+
+    /**
+     * @param inputs            breakpoints, strictly increasing
+     * @param outputs           value at each breakpoint
+     * @param interpolationType how to interpolate between breakpoints
+     */
+    public InterpolatingTable(double[] inputs, double[] outputs, InterpolationType interpolationType) {
+        if (inputs.length == 0 || inputs.length != outputs.length) {
+            throw new IllegalArgumentException("inputs and outputs must be non-empty and the same length");
+        }
+        for (int i = 1; i < inputs.length; i++) {
+            if (!(inputs[i] > inputs[i - 1])) {
+                throw new IllegalArgumentException("inputs must be strictly increasing");
+            }
+        }
+        this.inputs = inputs.clone();
+        this.outputs = outputs.clone();
+        this.interpolationType = interpolationType;
+        this.tangents = interpolationType == InterpolationType.CUBIC
+                ? monotoneTangents(this.inputs, this.outputs)
+                : null;
+    }
+
+    /**
+     * Parses a table from a CSV file with one "input,output" pair per line. Blank lines and lines starting with '#'
+     * are ignored.
+     *
+     * @param path              file to read
+     * @param interpolationType how to interpolate between breakpoints
+     * @return the parsed table
+     * @throws IOException              if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a valid table
+     */
+    public static InterpolatingTable fromCsv(Path path, InterpolationType interpolationType) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        double[] inputs = new double[lines.size()];
+        double[] outputs = new double[lines.size()];
+        int count = 0;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException(String.format("%s: expected 'input,output' but got '%s'", path, line));
+            }
+            inputs[count] = Double.parseDouble(fields[0].trim());
+            outputs[count] = Double.parseDouble(fields[1].trim());
+            count++;
+        }
+        return new InterpolatingTable(
+                Arrays.copyOf(inputs, count),
+                Arrays.copyOf(outputs, count),
+                interpolationType);
+    }
+
+    public double get(double input) {
+        int last = inputs.length - 1;
+        if (input <= inputs[0]) {
+            return outputs[0];
+        }
+        if (input >= inputs[last]) {
+            return outputs[last];
+        }
+        // find the segment with inputs[low] <= input < inputs[low + 1]
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (inputs[middle] <= input) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        double width = inputs[high] - inputs[low];
+        double t = (input - inputs[low]) / width;
+        if (interpolationType == InterpolationType.LINEAR) {
+            return outputs[low] + t * (outputs[high] - outputs[low]);
+        }
+        double t2 = t * t;
+        double t3 = t2 * t;
+        return (2 * t3 - 3 * t2 + 1) * outputs[low]
+                + (t3 - 2 * t2 + t) * width * tangents[low]
+                + (-2 * t3 + 3 * t2) * outputs[high]
+                + (t3 - t2) * width * tangents[high];
+    }
+
+    public double getMinInput() {
+        return inputs[0];
+    }
+
+    public double getMaxInput() {
+        return inputs[inputs.length - 1];
+    }
+
+    private static double[] monotoneTangents(double[] inputs, double[] outputs) {
+        int count = inputs.length;
+        double[] tangents = new double[count];
+        if (count < 2) {
+            return tangents;
+        }
+        double[] secants = new double[count - 1];
+        for (int i = 0; i < count - 1; i++) {
+            secants[i] = (outputs[i + 1] - outputs[i]) / (inputs[i + 1] - inputs[i]);
+        }
+        tangents[0] = secants[0];
+        tangents[count - 1] = secants[count - 2];
+        for (int i = 1; i < count - 1; i++) {
+            tangents[i] = secants[i - 1] * secants[i] <= 0.0 ? 0.0 : (secants[i - 1] + secants[i]) / 2.0;
+        }
+        for (int i = 0; i < count - 1; i++) {
+            if (secants[i] == 0.0) {
+                tangents[i] = 0.0;
+                tangents[i + 1] = 0.0;
+                continue;
+            }
+            double alpha = tangents[i] / secants[i];
+            double beta = tangents[i + 1] / secants[i];
+            double magnitude = alpha * alpha + beta * beta;
+            if (magnitude > 9.0) {
+                double scale = 3.0 / Math.sqrt(magnitude);
+                tangents[i] = scale * alpha * secants[i];
+                tangents[i + 1] = scale * beta * secants[i];
+            }
+        }
+        return tangents;
+    }
+}
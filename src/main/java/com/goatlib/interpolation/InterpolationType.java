@@ -0,0 +1,6 @@
+package com.goatlib.interpolation;
+
+public enum InterpolationType {
+    LINEAR,
+    CUBIC
+}
@@ -0,0 +1,67 @@
+package com.goatlib.interpolation;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * An {@link InterpolatingTable} loaded from a CSV file in the deploy directory that can be swapped while control
+ * loops keep querying it. A reload parses the whole file into a new table before publishing it with a single
+ * volatile write, so a query sees either the old table or the new one, never a mix. A file that fails to parse
+ * leaves the current table in place.
+ */
+public class ReloadableInterpolatingTable {
+
+    private final Path path;
+    private final InterpolationType interpolationType;
+    private volatile InterpolatingTable table;
+
+    /**
+     * @param deployFileName    CSV file relative to the deploy directory
+     * @param interpolationType how to interpolate between breakpoints
+     * @param fallback          table to use if the file can't be loaded at startup
+     */
+    public ReloadableInterpolatingTable(
+            String deployFileName,
+            InterpolationType interpolationType,
+            InterpolatingTable fallback) {
+        this.path = Filesystem.getDeployDirectory().toPath().resolve(deployFileName);
+        this.interpolationType = interpolationType;
+        this.table = fallback;
+        reload();
+    }
+
+    public double get(double input) {
+        return table.get(input);
+    }
+
+    public void swap(InterpolatingTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Reloads the table from its file on the calling thread.
+     *
+     * @return whether the new table was published
+     */
+    public boolean reload() {
+        try {
+            swap(InterpolatingTable.fromCsv(path, interpolationType));
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            DriverStation.reportWarning(String.format("Keeping previous table, failed to load %s: %s", path, e.getMessage()), false);
+            return false;
+        }
+    }
+
+    /**
+     * Reloads the table on a background thread so file I/O never runs on the robot thread.
+     */
+    public void reloadAsync() {
+        Thread thread = new Thread(this::reload, "table-reload-" + path.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
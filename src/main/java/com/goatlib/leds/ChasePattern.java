@@ -0,0 +1,24 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.util.Color8Bit;
+
+/**
+ * A block of lit pixels that moves one pixel along the segment per animation frame and wraps around the end.
+ */
+public class ChasePattern extends LEDPattern {
+
+    public ChasePattern(int length, Color8Bit color, int width) {
+        super(length, length);
+        for (int frame = 0; frame < length; frame++) {
+            for (int offset = 0; offset < width; offset++) {
+                setPixel(frame, (frame + offset) % length, color.red, color.green, color.blue);
+            }
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        return (int) (animationTick % frameCount);
+    }
+}
@@ -0,0 +1,158 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.AddressableLED;
+import edu.wpi.first.wpilibj.AddressableLEDBuffer;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives an addressable LED strip from {@link LEDSegment}s of precomputed {@link LEDPattern}s.
+ * <p>
+ * {@link #update()} is cheap to call every robot loop: between animation frames it returns after one timestamp read,
+ * and on an animation frame it only copies segments whose visible frame changed. The strip is only sent new data when
+ * at least one segment did.
+ * <p>
+ * After {@link #startRenderThread()} the segments are rendered on a low priority background thread instead. Finished
+ * frames are handed over through three buffers: the render thread owns one, the robot thread owns one, and the third
+ * holds the latest finished frame and is swapped with a single atomic exchange from either side. {@link #update()}
+ * then only sends the latest finished frame to the strip, and only when there is a new one.
+ */
+public class LEDEngine {
+
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+
+    private final AddressableLED led;
+    private final AddressableLEDBuffer buffer;
+    private final byte[] pixels;
+    private final byte[][] frameBuffers;
+    private final AtomicInteger readyFrame = new AtomicInteger(2);
+    private final double animationPeriodSeconds;
+    private LEDSegment[] segments = new LEDSegment[0];
+    private double nextFrameSeconds = Double.NEGATIVE_INFINITY;
+    private long animationTick = 0;
+    private long pushCount = 0;
+    private int backFrame = 0;
+    private int frontFrame = 1;
+    private Thread renderThread;
+
+    /**
+     * @param port                   PWM port of the strip
+     * @param length                 number of pixels on the strip
+     * @param animationPeriodSeconds time between animation frames
+     */
+    public LEDEngine(int port, int length, double animationPeriodSeconds) {
+        this.animationPeriodSeconds = animationPeriodSeconds;
+        this.pixels = new byte[length * 3];
+        this.frameBuffers = new byte[3][length * 3];
+        this.buffer = new AddressableLEDBuffer(length);
+        this.led = new AddressableLED(port);
+        led.setLength(length);
+        led.setData(buffer);
+        led.start();
+    }
+
+    /**
+     * Adds a segment. Call during construction only, before {@link #startRenderThread()}, this allocates.
+     *
+     * @param start      first pixel
+     * @param length     number of pixels
+     * @param layerCount number of layers that can hold a pattern
+     */
+    public LEDSegment createSegment(int start, int length, int layerCount) {
+        if (renderThread != null) {
+            throw new IllegalStateException("segments must be created before the render thread is started");
+        }
+        if (start < 0 || start + length > pixels.length / 3) {
+            throw new IllegalArgumentException(String.format(
+                    "segment [%d, %d) does not fit on a %d pixel strip", start, start + length, pixels.length / 3));
+        }
+        LEDSegment segment = new LEDSegment(start, length, layerCount);
+        LEDSegment[] grown = new LEDSegment[segments.length + 1];
+        System.arraycopy(segments, 0, grown, 0, segments.length);
+        grown[segments.length] = segment;
+        segments = grown;
+        return segment;
+    }
+
+    /**
+     * Moves rendering to a background thread. Patterns then run off the robot thread, so anything they read must be
+     * safe to read from another thread, e.g. a {@link com.goatlib.mechanisms.MechanismSnapshot}.
+     */
+    public void startRenderThread() {
+        if (renderThread != null) {
+            throw new IllegalStateException("render thread already started");
+        }
+        renderThread = new Thread(this::renderLoop, "goatlib-leds");
+        renderThread.setDaemon(true);
+        renderThread.setPriority(Thread.MIN_PRIORITY);
+        renderThread.start();
+    }
+
+    public void update() {
+        if (renderThread != null) {
+            if ((readyFrame.get() & FRESH) != 0) {
+                frontFrame = readyFrame.getAndSet(frontFrame) & INDEX_MASK;
+                push(frameBuffers[frontFrame]);
+            }
+            return;
+        }
+        double now = Timer.getFPGATimestamp();
+        if (now < nextFrameSeconds) {
+            return;
+        }
+        nextFrameSeconds = now + animationPeriodSeconds;
+        if (render()) {
+            push(pixels);
+        }
+    }
+
+    /**
+     * @return number of times data has been sent to the strip
+     */
+    public long getPushCount() {
+        return pushCount;
+    }
+
+    private boolean render() {
+        boolean dirty = false;
+        for (LEDSegment segment : segments) {
+            dirty |= segment.render(animationTick, pixels);
+        }
+        animationTick++;
+        return dirty;
+    }
+
+    private void push(byte[] rgb) {
+        for (int pixel = 0; pixel < rgb.length / 3; pixel++) {
+            buffer.setRGB(
+                    pixel,
+                    rgb[pixel * 3] & 0xFF,
+                    rgb[pixel * 3 + 1] & 0xFF,
+                    rgb[pixel * 3 + 2] & 0xFF);
+        }
+        led.setData(buffer);
+        pushCount++;
+    }
+
+    private void renderLoop() {
+        long periodNanos = (long) (animationPeriodSeconds * 1e9);
+        long nextFrameNanos = System.nanoTime();
+        while (true) {
+            if (render()) {
+                System.arraycopy(pixels, 0, frameBuffers[backFrame], 0, pixels.length);
+                backFrame = readyFrame.getAndSet(backFrame | FRESH) & INDEX_MASK;
+            }
+            nextFrameNanos += periodNanos;
+            long waitNanos = nextFrameNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                LockSupport.parkNanos(waitNanos);
+            } else {
+                // fell behind, drop the missed frames rather than rendering them back to back
+                nextFrameNanos = System.nanoTime();
+            }
+        }
+    }
+}
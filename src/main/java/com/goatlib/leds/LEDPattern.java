@@ -0,0 +1,89 @@
+package com.goatlib.leds;
+
+import java.util.Arrays;
+
+/**
+ * A pattern whose frames are all computed once at construction into one RGB table, so showing a frame is an array
+ * copy.
+ * <p>
+ * Subclasses fill every frame with {@link #setPixel} in their constructor and then call {@link #finishFrames()}.
+ */
+public abstract class LEDPattern {
+
+    protected final int length;
+    protected final int frameCount;
+    private final byte[] frames;
+    private final int[] frameIds;
+
+    protected LEDPattern(int length, int frameCount) {
+        if (length <= 0 || frameCount <= 0) {
+            throw new IllegalArgumentException("LED patterns need at least one pixel and one frame");
+        }
+        this.length = length;
+        this.frameCount = frameCount;
+        this.frames = new byte[frameCount * length * 3];
+        this.frameIds = new int[frameCount];
+    }
+
+    /**
+     * Picks the frame to show.
+     *
+     * @param animationTick number of animation frames since the engine started
+     * @return frame index in [0, frameCount)
+     */
+    public abstract int getFrame(long animationTick);
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Frames that look the same as the one before them share its id, so a segment can tell that moving to the next
+     * frame changes nothing on the strip.
+     *
+     * @param frame frame index
+     * @return id of the first of the run of identical frames this frame belongs to
+     */
+    public int getFrameId(int frame) {
+        return frameIds[frame];
+    }
+
+    /**
+     * Copies a frame into an RGB byte array.
+     *
+     * @param frame  frame index
+     * @param rgb    destination, three bytes per pixel
+     * @param offset index of the first destination byte
+     */
+    public void copyFrame(int frame, byte[] rgb, int offset) {
+        System.arraycopy(frames, frame * length * 3, rgb, offset, length * 3);
+    }
+
+    protected void setPixel(int frame, int pixel, int red, int green, int blue) {
+        int index = (frame * length + pixel) * 3;
+        frames[index] = (byte) red;
+        frames[index + 1] = (byte) green;
+        frames[index + 2] = (byte) blue;
+    }
+
+    /**
+     * Copies a frame of another pattern of the same length into one of this pattern's frames.
+     */
+    protected void setFrame(int frame, LEDPattern source, int sourceFrame) {
+        source.copyFrame(sourceFrame, frames, frame * length * 3);
+    }
+
+    protected final void finishFrames() {
+        int frameBytes = length * 3;
+        for (int frame = 1; frame < frameCount; frame++) {
+            boolean sameAsPrevious = Arrays.equals(
+                    frames, frame * frameBytes, (frame + 1) * frameBytes,
+                    frames, (frame - 1) * frameBytes, frame * frameBytes);
+            frameIds[frame] = sameAsPrevious ? frameIds[frame - 1] : frame;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.goatlib.leds;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A run of pixels on the strip with a stack of layers. The highest layer that has a pattern is the one shown, so an
+ * overlay can be set and cleared without touching the pattern underneath.
+ * <p>
+ * Layers can be changed from the robot thread while the engine renders on its own thread.
+ */
+public class LEDSegment {
+
+    private final int start;
+    private final int length;
+    private final AtomicReferenceArray<LEDPattern> layers;
+    private LEDPattern shownPattern = null;
+    private int shownFrameId = -1;
+    private boolean forceRender = true;
+
+    LEDSegment(int start, int length, int layerCount) {
+        this.start = start;
+        this.length = length;
+        this.layers = new AtomicReferenceArray<>(layerCount);
+    }
+
+    /**
+     * @param layer   layer index, higher layers cover lower ones
+     * @param pattern pattern to show, must be as long as the segment
+     */
+    public void setLayer(int layer, LEDPattern pattern) {
+        if (pattern != null && pattern.getLength() != length) {
+            throw new IllegalArgumentException(String.format(
+                    "pattern is %d pixels long but the segment is %d", pattern.getLength(), length));
+        }
+        layers.set(layer, pattern);
+    }
+
+    public void clearLayer(int layer) {
+        layers.set(layer, null);
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Copies the visible frame into the strip when it differs from what is already there.
+     *
+     * @param animationTick number of animation frames since the engine started
+     * @param rgb           the whole strip, three bytes per pixel
+     * @return whether anything was written
+     */
+    boolean render(long animationTick, byte[] rgb) {
+        LEDPattern pattern = null;
+        for (int layer = layers.length() - 1; layer >= 0 && pattern == null; layer--) {
+            pattern = layers.get(layer);
+        }
+        if (pattern == null) {
+            if (shownPattern == null && !forceRender) {
+                return false;
+            }
+            Arrays.fill(rgb, start * 3, (start + length) * 3, (byte) 0);
+            shownPattern = null;
+            forceRender = false;
+            return true;
+        }
+        int frame = pattern.getFrame(animationTick);
+        int frameId = pattern.getFrameId(frame);
+        if (pattern == shownPattern && frameId == shownFrameId && !forceRender) {
+            return false;
+        }
+        pattern.copyFrame(frame, rgb, start * 3);
+        shownPattern = pattern;
+        shownFrameId = frameId;
+        forceRender = false;
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.util.Color8Bit;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Fills the segment from its start in proportion to a progress value. There is one frame per fill level, so the
+ * frame only changes when the bar gains or loses a pixel.
+ */
+public class ProgressBarPattern extends LEDPattern {
+
+    private final DoubleSupplier progress;
+
+    /**
+     * @param length   number of pixels
+     * @param color    color of the filled part
+     * @param progress supplier of the fill fraction, clamped to [0, 1]
+     */
+    public ProgressBarPattern(int length, Color8Bit color, DoubleSupplier progress) {
+        super(length, length + 1);
+        this.progress = progress;
+        for (int frame = 0; frame <= length; frame++) {
+            for (int pixel = 0; pixel < frame; pixel++) {
+                setPixel(frame, pixel, color.red, color.green, color.blue);
+            }
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        double fraction = progress.getAsDouble();
+        if (!(fraction > 0.0)) {
+            return 0;
+        }
+        return (int) Math.round(Math.min(fraction, 1.0) * length);
+    }
+}
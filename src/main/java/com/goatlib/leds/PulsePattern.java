@@ -0,0 +1,31 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.util.Color8Bit;
+
+/**
+ * The whole segment in one color, ramping from off to full brightness over frameCount animation frames and then
+ * starting again.
+ */
+public class PulsePattern extends LEDPattern {
+
+    public PulsePattern(int length, Color8Bit color, int frameCount) {
+        super(length, frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            double brightness = (double) frame / frameCount;
+            for (int pixel = 0; pixel < length; pixel++) {
+                setPixel(
+                        frame,
+                        pixel,
+                        (int) (color.red * brightness),
+                        (int) (color.green * brightness),
+                        (int) (color.blue * brightness));
+            }
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        return (int) (animationTick % frameCount);
+    }
+}
@@ -0,0 +1,31 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.util.Color;
+
+/**
+ * A rainbow spread over the whole segment that scrolls one full hue circle every frameCount animation frames.
+ */
+public class RainbowPattern extends LEDPattern {
+
+    public RainbowPattern(int length, int frameCount, int saturation, int value) {
+        super(length, frameCount);
+        for (int frame = 0; frame < frameCount; frame++) {
+            int firstPixelHue = frame * 180 / frameCount;
+            for (int pixel = 0; pixel < length; pixel++) {
+                // hue is 0-180 in WPILib's HSV
+                Color color = Color.fromHSV((firstPixelHue + pixel * 180 / length) % 180, saturation, value);
+                setPixel(frame, pixel, toByte(color.red), toByte(color.green), toByte(color.blue));
+            }
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        return (int) (animationTick % frameCount);
+    }
+
+    private static int toByte(double channel) {
+        return (int) Math.round(channel * 255.0);
+    }
+}
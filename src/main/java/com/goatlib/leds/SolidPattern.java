@@ -0,0 +1,19 @@
+package com.goatlib.leds;
+
+import edu.wpi.first.wpilibj.util.Color8Bit;
+
+public class SolidPattern extends LEDPattern {
+
+    public SolidPattern(int length, Color8Bit color) {
+        super(length, 1);
+        for (int pixel = 0; pixel < length; pixel++) {
+            setPixel(0, pixel, color.red, color.green, color.blue);
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        return 0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.goatlib.leds;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Shows one of two patterns depending on a condition that is checked every animation frame. Both patterns' frames
+ * are copied into this pattern's table, so switching costs the same as any other frame change.
+ */
+public class SwitchPattern extends LEDPattern {
+
+    private final BooleanSupplier condition;
+    private final LEDPattern whenTrue;
+    private final LEDPattern whenFalse;
+
+    public SwitchPattern(BooleanSupplier condition, LEDPattern whenTrue, LEDPattern whenFalse) {
+        super(whenTrue.getLength(), whenTrue.getFrameCount() + whenFalse.getFrameCount());
+        if (whenFalse.getLength() != whenTrue.getLength()) {
+            throw new IllegalArgumentException("both patterns must be the same length");
+        }
+        this.condition = condition;
+        this.whenTrue = whenTrue;
+        this.whenFalse = whenFalse;
+        for (int frame = 0; frame < whenTrue.getFrameCount(); frame++) {
+            setFrame(frame, whenTrue, frame);
+        }
+        for (int frame = 0; frame < whenFalse.getFrameCount(); frame++) {
+            setFrame(whenTrue.getFrameCount() + frame, whenFalse, frame);
+        }
+        finishFrames();
+    }
+
+    @Override
+    public int getFrame(long animationTick) {
+        return condition.getAsBoolean()
+                ? whenTrue.getFrame(animationTick)
+                : whenTrue.getFrameCount() + whenFalse.getFrame(animationTick);
+    }
+}
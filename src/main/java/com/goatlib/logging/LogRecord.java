@@ -0,0 +1,44 @@
+package com.goatlib.logging;
+
+import com.goatlib.motors.MotorInputs;
+
+/**
+ * One record read back from a {@link SignalRecorder} file.
+ */
+public class LogRecord {
+    public int channel;
+    public RecordType type;
+    public double timestampSeconds;
+    public double position;
+    public double velocity;
+    public double current;
+    public double voltage;
+    public double setpoint;
+    public double setpointVelocity;
+    public double output;
+    public double busVoltage;
+    public int status;
+    public double kS;
+    public double kV;
+    public double kA;
+    public double kP;
+    public double kI;
+    public double kD;
+
+    public void copyInputsTo(MotorInputs inputs) {
+        inputs.timestampSeconds = timestampSeconds;
+        inputs.position = position;
+        inputs.velocity = velocity;
+        inputs.current = current;
+        inputs.voltage = voltage;
+        inputs.positionKnown = isPositionKnown();
+    }
+
+    public boolean isSafeMode() {
+        return (status & SignalRecorder.STATUS_SAFE_MODE) != 0;
+    }
+
+    public boolean isPositionKnown() {
+        return (status & SignalRecorder.STATUS_POSITION_KNOWN) != 0;
+    }
+}
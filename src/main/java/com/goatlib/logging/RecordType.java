@@ -0,0 +1,15 @@
+package com.goatlib.logging;
+
+/**
+ * What the records on a {@link SignalRecorder} channel hold.
+ */
+public enum RecordType {
+    /**
+     * A mechanism's signals every control tick.
+     */
+    SAMPLE,
+    /**
+     * A mechanism's gains, written whenever they change.
+     */
+    CONFIGS
+}
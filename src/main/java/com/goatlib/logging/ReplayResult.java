@@ -0,0 +1,66 @@
+package com.goatlib.logging;
+
+/**
+ * Comparison of recomputed control loop outputs against the outputs recorded on the robot.
+ */
+public class ReplayResult {
+    private final String channelName;
+    private final double toleranceVolts;
+    private long records = 0;
+    private long mismatches = 0;
+    private double maxAbsoluteErrorVolts = 0.0;
+    private double sumSquaredErrorVolts = 0.0;
+    private double firstMismatchTimestampSeconds = Double.NaN;
+
+    public ReplayResult(String channelName, double toleranceVolts) {
+        this.channelName = channelName;
+        this.toleranceVolts = toleranceVolts;
+    }
+
+    public void add(double timestampSeconds, double recordedOutput, double replayedOutput) {
+        double error = Math.abs(replayedOutput - recordedOutput);
+        records++;
+        sumSquaredErrorVolts += error * error;
+        maxAbsoluteErrorVolts = Math.max(maxAbsoluteErrorVolts, error);
+        if (error > toleranceVolts) {
+            if (mismatches == 0) {
+                firstMismatchTimestampSeconds = timestampSeconds;
+            }
+            mismatches++;
+        }
+    }
+
+    public boolean passed() {
+        return mismatches == 0;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getMismatches() {
+        return mismatches;
+    }
+
+    public double getMaxAbsoluteErrorVolts() {
+        return maxAbsoluteErrorVolts;
+    }
+
+    public double getRmsErrorVolts() {
+        return records == 0 ? 0.0 : Math.sqrt(sumSquaredErrorVolts / records);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: %s, %d records, %d over %.3f V, max error %.4f V, rms error %.4f V%s",
+                channelName,
+                passed() ? "PASS" : "FAIL",
+                records,
+                mismatches,
+                toleranceVolts,
+                maxAbsoluteErrorVolts,
+                getRmsErrorVolts(),
+                passed() ? "" : String.format(", first mismatch at %.3f s", firstMismatchTimestampSeconds));
+    }
+}
@@ -0,0 +1,99 @@
+package com.goatlib.logging;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads a file written by {@link SignalRecorder}, one record at a time.
+ */
+public class SignalLogReader implements AutoCloseable {
+
+    private final DataInputStream input;
+    private final List<String> channelNames = new ArrayList<>();
+    private final List<RecordType> channelTypes = new ArrayList<>();
+
+    public SignalLogReader(Path file) throws IOException {
+        input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        byte[] magic = new byte[SignalRecorder.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, SignalRecorder.MAGIC)) {
+            input.close();
+            throw new IOException(String.format("%s is not a goatlib signal log", file));
+        }
+        int channelCount = input.readInt();
+        RecordType[] recordTypes = RecordType.values();
+        for (int i = 0; i < channelCount; i++) {
+            int type = input.readUnsignedByte();
+            if (type >= recordTypes.length) {
+                input.close();
+                throw new IOException(String.format("%s has a channel of unknown record type %d", file, type));
+            }
+            channelTypes.add(recordTypes[type]);
+            byte[] name = new byte[input.readUnsignedShort()];
+            input.readFully(name);
+            channelNames.add(new String(name, StandardCharsets.UTF_8));
+        }
+    }
+
+    public List<String> getChannelNames() {
+        return channelNames;
+    }
+
+    public List<RecordType> getChannelTypes() {
+        return channelTypes;
+    }
+
+    /**
+     * Reads the next record. A record cut short at the end of the file, e.g. by a power loss, counts as the end.
+     * Configs records fill the gains and sample records fill the signals, the other fields keep their old values. A
+     * record on a channel the header doesn't list has no type and fills nothing but the channel and timestamp.
+     *
+     * @param record record to fill
+     * @return false once there are no more records
+     */
+    public boolean next(LogRecord record) throws IOException {
+        try {
+            int channel = input.readInt();
+            record.channel = channel;
+            record.type = channel >= 0 && channel < channelTypes.size() ? channelTypes.get(channel) : null;
+            record.timestampSeconds = input.readDouble();
+            if (record.type == RecordType.CONFIGS) {
+                record.kS = input.readDouble();
+                record.kV = input.readDouble();
+                record.kA = input.readDouble();
+                record.kP = input.readDouble();
+                record.kI = input.readDouble();
+                record.kD = input.readDouble();
+                input.skipNBytes((SignalRecorder.VALUES_PER_RECORD - 7) * Double.BYTES);
+            } else if (record.type == RecordType.SAMPLE) {
+                record.position = input.readDouble();
+                record.velocity = input.readDouble();
+                record.current = input.readDouble();
+                record.voltage = input.readDouble();
+                record.setpoint = input.readDouble();
+                record.setpointVelocity = input.readDouble();
+                record.output = input.readDouble();
+                record.busVoltage = input.readDouble();
+                record.status = (int) input.readDouble();
+            } else {
+                input.skipNBytes((SignalRecorder.VALUES_PER_RECORD - 1) * Double.BYTES);
+            }
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+}
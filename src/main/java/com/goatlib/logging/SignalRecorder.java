@@ -0,0 +1,377 @@
+package com.goatlib.logging;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every mechanism's signals at full control rate into a preallocated ring that a low priority background
+ * thread drains to a binary file.
+ * <p>
+ * {@link #record} only copies primitives into the ring and publishes them with one volatile write, it never blocks
+ * on disk I/O and never allocates. If the writer falls behind and the ring is full, the sample is dropped and counted.
+ * Samples are only kept while recording is switched on with {@link #setRecording}, normally while the robot is
+ * enabled, so a long wait in the queue doesn't fill the disk.
+ * <p>
+ * Once a file reaches the size limit the writer moves on to a new file with a numbered suffix, each with its own
+ * header, and deletes the oldest so at most the file limit are kept.
+ * <p>
+ * Each channel carries one {@link RecordType}. A sample channel is written with {@link #record} every tick, a configs
+ * channel with {@link #recordConfigs} whenever a mechanism's gains change.
+ * <p>
+ * File layout, big-endian: the magic bytes "GOATLOG2", an int channel count, then for each channel its record type
+ * as a byte ordinal and its name as an unsigned short length followed by UTF-8 bytes. The rest of the file is
+ * fixed-size records of an int channel followed by {@value #VALUES_PER_RECORD} doubles. A sample record holds the
+ * timestamp, position, velocity, current, voltage, setpoint, setpoint velocity, output, bus voltage and status bits.
+ * A configs record holds the timestamp, kS, kV, kA, kP, kI and kD, then unused zeros.
+ */
+public class SignalRecorder implements AutoCloseable {
+
+    public static final byte[] MAGIC = "GOATLOG2".getBytes(StandardCharsets.US_ASCII);
+    public static final int VALUES_PER_RECORD = 10;
+    /**
+     * Status bit set while the mechanism's health monitor holds it in safe mode.
+     */
+    public static final int STATUS_SAFE_MODE = 1;
+    /**
+     * Status bit set once the mechanism's motor knows its absolute position.
+     */
+    public static final int STATUS_POSITION_KNOWN = 2;
+    public static final int RECORD_BYTES = Integer.BYTES + VALUES_PER_RECORD * Double.BYTES;
+
+    private static final int WRITE_BUFFER_RECORDS = 1024;
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+
+    private final int capacity;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final int[] channels;
+    private final double[] values;
+    private final List<String> channelNames = new ArrayList<>();
+    private final List<RecordType> channelTypes = new ArrayList<>();
+    private volatile long writeSequence = 0;
+    private volatile long readSequence = 0;
+    private volatile boolean running = false;
+    private volatile int fileCount = 0;
+    private boolean recording = false;
+    private long droppedRecords = 0;
+    private Thread writerThread;
+
+    /**
+     * @param capacity     number of records the ring holds before samples are dropped
+     * @param maxFileBytes size at which the writer moves on to a new file
+     * @param maxFiles     files kept before the oldest is deleted
+     */
+    public SignalRecorder(int capacity, long maxFileBytes, int maxFiles) {
+        this.capacity = capacity;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.channels = new int[capacity];
+        this.values = new double[capacity * VALUES_PER_RECORD];
+    }
+
+    /**
+     * Adds a sample channel. Channels must be added before {@link #start(Path)}.
+     *
+     * @param name channel name written to the file header
+     * @return the channel id to pass to {@link #record}
+     */
+    public int addChannel(String name) {
+        return addChannel(name, RecordType.SAMPLE);
+    }
+
+    /**
+     * Adds a configs channel. Channels must be added before {@link #start(Path)}.
+     *
+     * @param name channel name written to the file header, normally the name of the mechanism the gains belong to
+     * @return the channel id to pass to {@link #recordConfigs}
+     */
+    public int addConfigsChannel(String name) {
+        return addChannel(name, RecordType.CONFIGS);
+    }
+
+    private int addChannel(String name, RecordType type) {
+        if (writerThread != null) {
+            throw new IllegalStateException("channels must be added before the recorder is started");
+        }
+        channelNames.add(name);
+        channelTypes.add(type);
+        return channelNames.size() - 1;
+    }
+
+    /**
+     * Starts the background writer.
+     *
+     * @param file first file to write, replaced if it exists; later files are numbered after it
+     */
+    public void start(Path file) {
+        if (writerThread != null) {
+            throw new IllegalStateException("recorder already started");
+        }
+        running = true;
+        writerThread = new Thread(() -> writeLoop(file), "goatlib-signal-recorder");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * Switches recording on or off, samples recorded while it is off are ignored. Call from the thread that calls
+     * {@link #record}.
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Copies one sample into the ring. Only call from a single thread, normally the robot thread.
+     *
+     * @param setpointVelocity velocity of the setpoint, e.g. a tracked target's, zero when it isn't moving
+     * @param status           {@link #STATUS_SAFE_MODE} and {@link #STATUS_POSITION_KNOWN} bits
+     * @return whether the sample was kept, false while recording is off or when the ring is full
+     */
+    public boolean record(
+            int channel,
+            double timestampSeconds,
+            double position,
+            double velocity,
+            double current,
+            double voltage,
+            double setpoint,
+            double setpointVelocity,
+            double output,
+            double busVoltage,
+            int status) {
+        return write(
+                channel,
+                timestampSeconds,
+                position,
+                velocity,
+                current,
+                voltage,
+                setpoint,
+                setpointVelocity,
+                output,
+                busVoltage,
+                status);
+    }
+
+    /**
+     * Copies a mechanism's gains into the ring. Only call from the thread that calls {@link #record}.
+     *
+     * @param channel a channel added with {@link #addConfigsChannel}
+     * @return whether the record was kept, false while recording is off or when the ring is full
+     */
+    public boolean recordConfigs(
+            int channel,
+            double timestampSeconds,
+            double kS,
+            double kV,
+            double kA,
+            double kP,
+            double kI,
+            double kD) {
+        return write(channel, timestampSeconds, kS, kV, kA, kP, kI, kD, 0.0, 0.0, 0.0);
+    }
+
+    private boolean write(
+            int channel,
+            double timestampSeconds,
+            double value1,
+            double value2,
+            double value3,
+            double value4,
+            double value5,
+            double value6,
+            double value7,
+            double value8,
+            double value9) {
+        if (!recording) {
+            return false;
+        }
+        long write = writeSequence;
+        if (!running || write - readSequence >= capacity) {
+            droppedRecords++;
+            return false;
+        }
+        int slot = (int) (write % capacity);
+        int base = slot * VALUES_PER_RECORD;
+        channels[slot] = channel;
+        values[base] = timestampSeconds;
+        values[base + 1] = value1;
+        values[base + 2] = value2;
+        values[base + 3] = value3;
+        values[base + 4] = value4;
+        values[base + 5] = value5;
+        values[base + 6] = value6;
+        values[base + 7] = value7;
+        values[base + 8] = value8;
+        values[base + 9] = value9;
+        writeSequence = write + 1;
+        return true;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    public long getRecordedRecords() {
+        return writeSequence;
+    }
+
+    /**
+     * @return number of files started so far, changes when the writer moves on to a new file
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Stops the writer after it has drained the ring.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join();
+        }
+    }
+
+    private void writeLoop(Path file) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_RECORDS * RECORD_BYTES);
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+        } catch (IOException e) {
+            running = false;
+            DriverStation.reportError(String.format("Signal recorder stopped, failed to create %s: %s", file, e.getMessage()), false);
+            return;
+        }
+        Deque<Path> writtenFiles = new ArrayDeque<>();
+        Path currentFile = file;
+        int fileIndex = 0;
+        FileChannel fileChannel = null;
+        try {
+            fileChannel = openFile(currentFile, writtenFiles);
+            while (running || readSequence < writeSequence) {
+                long read = readSequence;
+                long available = writeSequence;
+                if (read == available) {
+                    drain(fileChannel, buffer);
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    continue;
+                }
+                while (read < available) {
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        readSequence = read;
+                        drain(fileChannel, buffer);
+                        if (fileChannel.size() >= maxFileBytes) {
+                            fileChannel.close();
+                            fileIndex++;
+                            currentFile = rotatedFile(file, fileIndex);
+                            fileChannel = openFile(currentFile, writtenFiles);
+                        }
+                    }
+                    int slot = (int) (read % capacity);
+                    int base = slot * VALUES_PER_RECORD;
+                    buffer.putInt(channels[slot]);
+                    for (int i = 0; i < VALUES_PER_RECORD; i++) {
+                        buffer.putDouble(values[base + i]);
+                    }
+                    read++;
+                }
+                readSequence = read;
+            }
+            drain(fileChannel, buffer);
+        } catch (IOException e) {
+            running = false;
+            DriverStation.reportError(String.format("Signal recorder stopped, failed to write %s: %s", currentFile, e.getMessage()), false);
+        } finally {
+            if (fileChannel != null) {
+                try {
+                    fileChannel.close();
+                } catch (IOException e) {
+                    DriverStation.reportError(String.format("Signal recorder failed to close %s: %s", currentFile, e.getMessage()), false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens a new file with its header, deleting the oldest file if that takes the count past the limit.
+     */
+    private FileChannel openFile(Path file, Deque<Path> writtenFiles) throws IOException {
+        FileChannel fileChannel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        writeHeader(fileChannel);
+        writtenFiles.addLast(file);
+        fileCount++;
+        while (writtenFiles.size() > maxFiles) {
+            Files.deleteIfExists(writtenFiles.removeFirst());
+        }
+        return fileChannel;
+    }
+
+    /**
+     * @return the file with the index before its extension, e.g. goatlib_1234.3.bin
+     */
+    static Path rotatedFile(Path file, int index) {
+        String name = file.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        String rotatedName = extension < 0
+                ? name + "." + index
+                : name.substring(0, extension) + "." + index + name.substring(extension);
+        return file.resolveSibling(rotatedName);
+    }
+
+    private void writeHeader(FileChannel fileChannel) throws IOException {
+        int headerBytes = MAGIC.length + Integer.BYTES;
+        List<byte[]> names = new ArrayList<>();
+        for (String name : channelNames) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.add(bytes);
+            headerBytes += Byte.BYTES + Short.BYTES + bytes.length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerBytes);
+        header.put(MAGIC);
+        header.putInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            header.put((byte) channelTypes.get(i).ordinal());
+            header.putShort((short) names.get(i).length);
+            header.put(names.get(i));
+        }
+        header.flip();
+        while (header.hasRemaining()) {
+            fileChannel.write(header);
+        }
+    }
+
+    private static void drain(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
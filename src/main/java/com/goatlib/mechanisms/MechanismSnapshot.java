@@ -0,0 +1,108 @@
+package com.goatlib.mechanisms;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * The latest control-tick state of a mechanism, written by the robot thread and safe to read from any other thread.
+ * <p>
+ * This is a sequence lock: the writer makes the version odd while it copies the values and even again when done, and
+ * a reader retries until it sees the same even version before and after its reads. Neither side blocks or allocates,
+ * and a reader never sees values from two different ticks.
+ */
+public class MechanismSnapshot {
+
+    private volatile long version = 0;
+    private double position = 0.0;
+    private double velocity = 0.0;
+    private double setpoint = 0.0;
+    private double output = 0.0;
+    private boolean atSetpoint = false;
+
+    /**
+     * Publishes one tick. Only call from a single thread.
+     */
+    public void write(double position, double velocity, double setpoint, double output, boolean atSetpoint) {
+        long start = version;
+        version = start + 1;
+        VarHandle.storeStoreFence();
+        this.position = position;
+        this.velocity = velocity;
+        this.setpoint = setpoint;
+        this.output = output;
+        this.atSetpoint = atSetpoint;
+        version = start + 2;
+    }
+
+    public double getPosition() {
+        while (true) {
+            long start = version;
+            double value = position;
+            if (isConsistent(start)) {
+                return value;
+            }
+        }
+    }
+
+    public double getVelocity() {
+        while (true) {
+            long start = version;
+            double value = velocity;
+            if (isConsistent(start)) {
+                return value;
+            }
+        }
+    }
+
+    public double getSetpoint() {
+        while (true) {
+            long start = version;
+            double value = setpoint;
+            if (isConsistent(start)) {
+                return value;
+            }
+        }
+    }
+
+    public double getOutput() {
+        while (true) {
+            long start = version;
+            double value = output;
+            if (isConsistent(start)) {
+                return value;
+            }
+        }
+    }
+
+    public boolean isAtSetpoint() {
+        while (true) {
+            long start = version;
+            boolean value = atSetpoint;
+            if (isConsistent(start)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @return how far the mechanism is from zero toward its setpoint, in [0, 1], 0 when the setpoint is 0. Velocity
+     * and setpoint are read from the same tick.
+     */
+    public double getVelocityFraction() {
+        while (true) {
+            long start = version;
+            double velocity = this.velocity;
+            double setpoint = this.setpoint;
+            if (isConsistent(start)) {
+                if (setpoint == 0.0) {
+                    return 0.0;
+                }
+                return Math.max(0.0, Math.min(1.0, velocity / setpoint));
+            }
+        }
+    }
+
+    private boolean isConsistent(long start) {
+        VarHandle.loadLoadFence();
+        return (start & 1) == 0 && version == start;
+    }
+}
@@ -0,0 +1,52 @@
+package com.goatlib.mechanisms;
+
+/**
+ * Works out whether a mechanism is at its setpoint once per control tick, so anything that checks readiness only
+ * reads a boolean.
+ * <p>
+ * The error and its rate must both be inside their enter tolerances to become at-setpoint, and stay inside the wider
+ * exit tolerances to remain there. Becoming at-setpoint is debounced: the mechanism has to be inside the enter band
+ * for the debounce time before the flag goes true. Leaving the exit band clears the flag on the same tick.
+ */
+public class SetpointEvaluator {
+
+    private final SetpointEvaluatorConfigs setpointEvaluatorConfigs;
+    private final int debounceTicks;
+    private int ticksInsideBand = 0;
+    private boolean atSetpoint = false;
+
+    /**
+     * @param setpointEvaluatorConfigs tolerance bands and debounce time
+     * @param updatePeriodSeconds      time between calls to {@link #update}, usually the control loop period
+     */
+    public SetpointEvaluator(SetpointEvaluatorConfigs setpointEvaluatorConfigs, double updatePeriodSeconds) {
+        this.setpointEvaluatorConfigs = setpointEvaluatorConfigs;
+        this.debounceTicks = Math.max(1, (int) Math.ceil(setpointEvaluatorConfigs.debounceSeconds() / updatePeriodSeconds));
+    }
+
+    /**
+     * @param error     setpoint minus measurement
+     * @param rateError target rate minus measured rate, 0.0 if the mechanism has no rate to check
+     */
+    public void update(double error, double rateError) {
+        if (atSetpoint) {
+            atSetpoint = Math.abs(error) <= setpointEvaluatorConfigs.exitTolerance()
+                    && Math.abs(rateError) <= setpointEvaluatorConfigs.rateExitTolerance();
+            ticksInsideBand = atSetpoint ? ticksInsideBand : 0;
+            return;
+        }
+        boolean insideEnterBand = Math.abs(error) <= setpointEvaluatorConfigs.enterTolerance()
+                && Math.abs(rateError) <= setpointEvaluatorConfigs.rateEnterTolerance();
+        ticksInsideBand = insideEnterBand ? ticksInsideBand + 1 : 0;
+        atSetpoint = ticksInsideBand >= debounceTicks;
+    }
+
+    public void reset() {
+        ticksInsideBand = 0;
+        atSetpoint = false;
+    }
+
+    public boolean isAtSetpoint() {
+        return atSetpoint;
+    }
+}
@@ -0,0 +1,9 @@
+package com.goatlib.mechanisms;
+
+public record SetpointEvaluatorConfigs(
+        double enterTolerance,
+        double exitTolerance,
+        double rateEnterTolerance,
+        double rateExitTolerance,
+        double debounceSeconds) {
+}
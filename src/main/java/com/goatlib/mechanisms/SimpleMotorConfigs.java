@@ -15,5 +15,6 @@ public record SimpleMotorConfigs(
         double kA,
         double kP,
         double kI,
-        double kD) {
+        double kD,
+        int historyLength) {
 }
@@ -1,16 +1,24 @@
 package com.goatlib.mechanisms.flywheels;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.units.*;
 import com.goatlib.controlLoops.velocity.VelocityControlLoop;
 import com.goatlib.motors.Motor;
+import com.goatlib.motors.MotorHistory;
+import com.goatlib.power.BusVoltage;
 
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
 import static edu.wpi.first.units.Units.Volts;
 
 public class Flywheel {
     public final VelocityControlLoop velocityControlLoop;
+    public final ShotDetector shotDetector;
+    public final Measure<Angle> position;
     public final Measure<Velocity<Angle>> velocity;
     public final Measure<Current> current;
     public final Measure<Voltage> voltage;
+    public final MotorHistory history;
     private final MutableMeasure<Voltage> voltageSetpoint = MutableMeasure.zero(Volts);
     private final Motor motor;
 
@@ -18,18 +26,71 @@ public class Flywheel {
     public Flywheel(
             Motor motor,
             VelocityControlLoop velocityControlLoop) {
+        this(motor, velocityControlLoop, null);
+    }
+
+    public Flywheel(
+            Motor motor,
+            VelocityControlLoop velocityControlLoop,
+            ShotDetector shotDetector) {
         this.current = motor.getCurrent();
         this.voltage = motor.getVoltage();
+        this.history = motor.getHistory();
+        this.position = motor.getPosition();
         this.velocity = motor.getVelocity();
         this.velocityControlLoop = velocityControlLoop;
+        this.shotDetector = shotDetector;
         this.motor = motor;
     }
 
+    /**
+     * Adds the shot recovery boost to a control loop output. Returns the output unchanged when this flywheel has no
+     * shot detector.
+     *
+     * @param velocitySetpoint  velocity setpoint in radians per second
+     * @param controlLoopOutput voltage requested by the velocity control loop
+     * @return the voltage to apply with {@link #setInput(double)}
+     */
+    public double applyShotBoost(double velocitySetpoint, double controlLoopOutput) {
+        if (shotDetector == null) {
+            return controlLoopOutput;
+        }
+        double boost = shotDetector.calculate(
+                velocity.in(RadiansPerSecond),
+                current.in(Amps),
+                velocitySetpoint,
+                controlLoopOutput);
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        return MathUtil.clamp(controlLoopOutput + boost, -outputLimitVolts, outputLimitVolts);
+    }
+
+    /**
+     * Runs one control tick: the velocity control loop's output plus the shot recovery boost, or zero in safe mode,
+     * applied to the motor. The robot and replay both drive the flywheel through this.
+     *
+     * @param velocitySetpoint velocity setpoint in radians per second
+     * @param safeMode         whether the health monitor holds the flywheel in safe mode
+     * @return the voltage applied
+     */
+    public double runControlTick(double velocitySetpoint, boolean safeMode) {
+        double input = velocityControlLoop.getOutput(velocity.in(RadiansPerSecond), velocitySetpoint);
+        input = applyShotBoost(velocitySetpoint, input);
+        if (safeMode) {
+            input = 0.0;
+        }
+        setInput(input);
+        return input;
+    }
+
     public void setInput(double input) {
         voltageSetpoint.mut_setMagnitude(input);
         motor.setVoltage(voltageSetpoint);
     }
 
+    public boolean isConnected() {
+        return motor.isConnected();
+    }
+
     public void update() {
         motor.update();
     }
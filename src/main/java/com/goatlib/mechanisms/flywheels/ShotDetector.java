@@ -0,0 +1,164 @@
+package com.goatlib.mechanisms.flywheels;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.DiscreteMotorFeedforward;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Detects a game piece being fed through a flywheel from a current spike together with a velocity drop the
+ * flywheel's kS/kV/kA model can't explain, then returns a feedforward boost that cancels the load for a bounded
+ * window.
+ * <p>
+ * Every tick the detector works out the voltage the model needed for the velocity change it just measured, and takes
+ * the gap to the voltage that was actually applied as the voltage the load is taking. A requested voltage is applied
+ * on the next tick and its effect measured the tick after that, so the gap is taken against the voltage applied two
+ * ticks ago. The flywheel's own control loop swinging the velocity around leaves no gap, so it isn't mistaken for a
+ * shot. While boosting, the boost follows the latest load estimate and stops once the load has gone, or when the
+ * boost window ends.
+ * <p>
+ * Recovery time is measured from detection until the velocity is back within tolerance of the setpoint. The velocity
+ * is usually still within tolerance on the tick the shot is detected, so recovery only counts once the velocity has
+ * left the tolerance band, or once the boost is over if it never does.
+ * <p>
+ * kS, kV and kA are read from the config handle every tick, the model is rebuilt when a new record is published.
+ */
+public class ShotDetector {
+
+    private final ShotDetectorConfigs shotDetectorConfigs;
+    private final ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle;
+    private final double controlLoopPeriodSeconds;
+    private final double currentFilterGain;
+    private final int boostDurationTicks;
+    private DiscreteMotorFeedforward discreteMotorFeedforward;
+    private SimpleMotorConfigs appliedConfigs;
+
+    private boolean initialized = false;
+    private double lastVelocity = 0.0;
+    // the voltages applied on the last two ticks, the older one drove the velocity change measured this tick
+    private double lastAppliedVoltage = 0.0;
+    private double previousAppliedVoltage = 0.0;
+    private double currentBaseline = 0.0;
+    private int spikeTicksRemaining = 0;
+    private int boostTicksRemaining = 0;
+    private boolean armed = true;
+    private boolean recovering = false;
+    private boolean leftTolerance = false;
+    private int recoveryTicks = 0;
+    private int shotCount = 0;
+    private double lastRecoveryTimeSeconds = 0.0;
+
+    public ShotDetector(
+            ConfigHandle<SimpleMotorConfigs> simpleMotorConfigsHandle,
+            ShotDetectorConfigs shotDetectorConfigs) {
+        this.shotDetectorConfigs = shotDetectorConfigs;
+        this.simpleMotorConfigsHandle = simpleMotorConfigsHandle;
+        this.controlLoopPeriodSeconds = simpleMotorConfigsHandle.get().controlLoopPeriodSeconds();
+        this.currentFilterGain = controlLoopPeriodSeconds
+                / (shotDetectorConfigs.currentFilterTimeConstantSeconds() + controlLoopPeriodSeconds);
+        this.boostDurationTicks = (int) Math.ceil(shotDetectorConfigs.boostDurationSeconds() / controlLoopPeriodSeconds);
+        applyGains(simpleMotorConfigsHandle.get());
+    }
+
+    /**
+     * Runs once per control loop tick.
+     *
+     * @param velocity          measured flywheel velocity in radians per second
+     * @param current           measured motor current in amps
+     * @param velocitySetpoint  velocity setpoint in radians per second
+     * @param controlLoopOutput voltage requested by the velocity control loop this tick
+     * @return the boost voltage to add to the control loop output
+     */
+    public double calculate(double velocity, double current, double velocitySetpoint, double controlLoopOutput) {
+        SimpleMotorConfigs simpleMotorConfigs = simpleMotorConfigsHandle.get();
+        if (simpleMotorConfigs != appliedConfigs) {
+            applyGains(simpleMotorConfigs);
+        }
+        if (!initialized) {
+            lastVelocity = velocity;
+            currentBaseline = current;
+            initialized = true;
+        }
+        // positive when something is slowing the wheel down more than the applied voltage explains
+        double loadVolts = (previousAppliedVoltage - discreteMotorFeedforward.calculate(lastVelocity, velocity))
+                * Math.signum(velocitySetpoint);
+        boolean loaded = loadVolts > shotDetectorConfigs.loadThresholdVolts();
+
+        boolean currentSpike = current - currentBaseline > shotDetectorConfigs.currentSpikeThresholdAmps();
+        if (currentSpike) {
+            spikeTicksRemaining = shotDetectorConfigs.detectionWindowTicks();
+        } else {
+            currentBaseline += currentFilterGain * (current - currentBaseline);
+        }
+
+        // a shot only counts once the load from the last one has gone, so a long contact is one shot
+        if (!loaded && boostTicksRemaining == 0) {
+            armed = true;
+        }
+        if (armed && loaded && spikeTicksRemaining > 0 && velocitySetpoint != 0.0) {
+            boostTicksRemaining = boostDurationTicks;
+            spikeTicksRemaining = 0;
+            armed = false;
+            recovering = true;
+            leftTolerance = false;
+            recoveryTicks = 0;
+            shotCount++;
+        } else if (!loaded) {
+            // the game piece has left the wheel
+            boostTicksRemaining = 0;
+        }
+        if (spikeTicksRemaining > 0) {
+            spikeTicksRemaining--;
+        }
+
+        if (recovering) {
+            recoveryTicks++;
+            boolean withinTolerance = Math.abs(velocitySetpoint - velocity)
+                    <= shotDetectorConfigs.recoveryToleranceRadiansPerSecond();
+            if (!withinTolerance) {
+                leftTolerance = true;
+            } else if (leftTolerance || boostTicksRemaining == 0) {
+                lastRecoveryTimeSeconds = recoveryTicks * controlLoopPeriodSeconds;
+                recovering = false;
+            }
+        }
+        double boost = 0.0;
+        if (boostTicksRemaining > 0) {
+            boostTicksRemaining--;
+            boost = Math.min(loadVolts, shotDetectorConfigs.maxBoostVolts()) * Math.signum(velocitySetpoint);
+        }
+
+        lastVelocity = velocity;
+        // the model needs the voltage that was actually applied, after the output limit
+        double outputLimitVolts = BusVoltage.getOutputLimitVolts();
+        previousAppliedVoltage = lastAppliedVoltage;
+        lastAppliedVoltage = MathUtil.clamp(controlLoopOutput + boost, -outputLimitVolts, outputLimitVolts);
+        return boost;
+    }
+
+    private void applyGains(SimpleMotorConfigs simpleMotorConfigs) {
+        discreteMotorFeedforward = new DiscreteMotorFeedforward(
+                simpleMotorConfigs.kS(),
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA(),
+                controlLoopPeriodSeconds);
+        appliedConfigs = simpleMotorConfigs;
+    }
+
+    public boolean isBoosting() {
+        return boostTicksRemaining > 0;
+    }
+
+    public boolean isRecovering() {
+        return recovering;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    public double getLastRecoveryTimeSeconds() {
+        return lastRecoveryTimeSeconds;
+    }
+}
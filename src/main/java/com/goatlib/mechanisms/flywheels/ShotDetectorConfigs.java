@@ -0,0 +1,11 @@
+package com.goatlib.mechanisms.flywheels;
+
+public record ShotDetectorConfigs(
+        double currentSpikeThresholdAmps,
+        double loadThresholdVolts,
+        int detectionWindowTicks,
+        double currentFilterTimeConstantSeconds,
+        double maxBoostVolts,
+        double boostDurationSeconds,
+        double recoveryToleranceRadiansPerSecond) {
+}
@@ -1,8 +1,10 @@
 package com.goatlib.mechanisms.turrets;
 
 import com.goatlib.controlLoops.position.PositionControlLoop;
+import com.goatlib.motorprofiles.PositionState;
 import edu.wpi.first.units.*;
 import com.goatlib.motors.Motor;
+import com.goatlib.motors.MotorHistory;
 
 import static edu.wpi.first.units.Units.Volts;
 
@@ -12,8 +14,10 @@ public class Turret {
     public final Measure<Velocity<Angle>> velocity;
     public final Measure<Current> current;
     public final Measure<Voltage> voltage;
+    public final MotorHistory history;
     private final MutableMeasure<Voltage> voltageSetpoint = MutableMeasure.zero(Volts);
     private final Motor motor;
+    private boolean wasPositionKnown = false;
 
 
     public Turret(
@@ -23,15 +27,63 @@ public class Turret {
         this.velocity = motor.getVelocity();
         this.current = motor.getCurrent();
         this.voltage = motor.getVoltage();
+        this.history = motor.getHistory();
         this.positionControlLoop = positionControlLoop;
         this.motor = motor;
     }
 
+    /**
+     * Runs one control tick: the position control loop's output, or zero in safe mode, applied to the motor. The robot
+     * and replay both drive the turret through this.
+     * <p>
+     * Until the motor knows its absolute position the turret doesn't move and the loop is reset, so it doesn't build
+     * up state. A fixed setpoint taken before the position was known points nowhere, so on the tick the position
+     * becomes known it is replaced with the current position and the turret holds where it is.
+     *
+     * @param currentPositionState measured position and velocity
+     * @param nextPositionState    setpoint, replaced with the current position when a fixed setpoint is dropped
+     * @param tracking             whether the setpoint is a tracked target, which is kept when the position becomes
+     *                             known
+     * @param safeMode             whether the health monitor holds the turret in safe mode
+     * @return the voltage applied
+     */
+    public double runControlTick(
+            PositionState currentPositionState,
+            PositionState nextPositionState,
+            boolean tracking,
+            boolean safeMode) {
+        boolean positionKnown = motor.isPositionKnown();
+        if (positionKnown && !wasPositionKnown && !tracking) {
+            nextPositionState.position = currentPositionState.position;
+        }
+        wasPositionKnown = positionKnown;
+        double input;
+        if (positionKnown) {
+            input = positionControlLoop.getOutput(currentPositionState, nextPositionState);
+        } else {
+            positionControlLoop.reset();
+            input = 0.0;
+        }
+        if (safeMode) {
+            input = 0.0;
+        }
+        setInput(input);
+        return input;
+    }
+
     public void setInput(double input) {
         voltageSetpoint.mut_setMagnitude(input);
         motor.setVoltage(voltageSetpoint);
     }
 
+    public boolean isConnected() {
+        return motor.isConnected();
+    }
+
+    public boolean isPositionKnown() {
+        return motor.isPositionKnown();
+    }
+
     public void update() {
         motor.update();
     }
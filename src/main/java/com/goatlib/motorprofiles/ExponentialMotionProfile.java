@@ -1,28 +1,176 @@
 package com.goatlib.motorprofiles;
 
-import edu.wpi.first.math.trajectory.ExponentialProfile;
+import com.goatlib.power.BusVoltage;
 
+/**
+ * An exponential profile with the same math as WPILib's {@code ExponentialProfile.calculate}, done in fields instead
+ * of the new State objects WPILib creates on every call, so a control tick allocates nothing.
+ * <p>
+ * The profile drives the kV/kA model at full input towards the goal, then at full reverse input onto it, so it is
+ * the fastest move the available voltage allows. The model is x' = v, v' = A v + B u with
+ * A = -kV/kA and B = 1/kA, held in modelA and modelB.
+ */
 public class ExponentialMotionProfile implements MotionProfile {
 
-    private final ExponentialProfile exponentialProfile;
-    private final ExponentialProfile.State currentState = new ExponentialProfile.State();
-    private final ExponentialProfile.State nextStateSetpoint = new ExponentialProfile.State();
+    private static final double EPSILON = 1e-9;
+
+    private final double modelA;
+    private final double modelB;
+    private double maxInput;
+    private double maxVelocity;
+    private double profileVolts;
     private final PositionState actualNextState = new PositionState();
 
+    /**
+     * Creates a profile whose constraints follow the available bus voltage. The constraints are rebuilt only when
+     * {@link BusVoltage#getProfileVolts()} moves by a whole step.
+     */
     public ExponentialMotionProfile(double kV, double kA) {
-        this.exponentialProfile = new ExponentialProfile(ExponentialProfile.Constraints.fromCharacteristics(12.0, kV, kA));
+        this.modelA = -kV / kA;
+        this.modelB = 1.0 / kA;
+        resize(BusVoltage.getProfileVolts());
+    }
+
+    private void resize(double volts) {
+        profileVolts = volts;
+        maxInput = volts;
+        maxVelocity = -maxInput * modelB / modelA;
     }
 
     @Override
     public PositionState calculate(PositionState currentState, PositionState nextStateSetpoint, double dtSeconds) {
-        this.currentState.position = currentState.position;
-        this.currentState.velocity = currentState.velocity;
-        this.nextStateSetpoint.position = nextStateSetpoint.position;
-        this.nextStateSetpoint.velocity = nextStateSetpoint.velocity;
-        ExponentialProfile.State actualNextState = exponentialProfile.calculate(dtSeconds, this.currentState, this.nextStateSetpoint);
-        this.actualNextState.position = actualNextState.position;
-        this.actualNextState.velocity = actualNextState.velocity;
-        return this.actualNextState;
+        if (BusVoltage.getProfileVolts() != profileVolts) {
+            resize(BusVoltage.getProfileVolts());
+        }
+        double currentPosition = currentState.position;
+        double currentVelocity = currentState.velocity;
+        double goalPosition = nextStateSetpoint.position;
+        double goalVelocity = nextStateSetpoint.velocity;
+        double u = shouldFlipInput(currentPosition, currentVelocity, goalPosition, goalVelocity) ? -maxInput : maxInput;
+
+        double inflectionPosition;
+        double inflectionVelocity;
+        if (currentPosition == goalPosition && currentVelocity == goalVelocity) {
+            inflectionPosition = currentPosition;
+            inflectionVelocity = currentVelocity;
+        } else {
+            inflectionVelocity = solveForInflectionVelocity(
+                    u,
+                    currentPosition,
+                    currentVelocity,
+                    goalPosition,
+                    goalVelocity);
+            inflectionPosition = computeDistanceFromVelocity(inflectionVelocity, -u, goalPosition, goalVelocity);
+        }
+
+        double inflectionTime;
+        if (Math.abs(Math.signum(u) * maxVelocity - inflectionVelocity) < EPSILON) {
+            // the move reaches max velocity, which the model only approaches, so cruise from just short of it
+            double solvableVelocity = inflectionVelocity;
+            double timeToSolvableVelocity;
+            double positionAtSolvableVelocity;
+            if (Math.abs(currentVelocity - inflectionVelocity) < EPSILON) {
+                timeToSolvableVelocity = 0.0;
+                positionAtSolvableVelocity = currentPosition;
+            } else {
+                if (Math.abs(currentVelocity) > maxVelocity) {
+                    solvableVelocity += Math.signum(u) * EPSILON;
+                } else {
+                    solvableVelocity -= Math.signum(u) * EPSILON;
+                }
+                timeToSolvableVelocity = computeTimeFromVelocity(solvableVelocity, u, currentVelocity);
+                positionAtSolvableVelocity = computeDistanceFromVelocity(
+                        solvableVelocity,
+                        u,
+                        currentPosition,
+                        currentVelocity);
+            }
+            inflectionTime = timeToSolvableVelocity
+                    + Math.signum(u) * (inflectionPosition - positionAtSolvableVelocity) / maxVelocity;
+        } else {
+            inflectionTime = computeTimeFromVelocity(inflectionVelocity, u, currentVelocity);
+        }
+        double totalTime = inflectionTime - computeTimeFromVelocity(inflectionVelocity, -u, goalVelocity);
+
+        if (dtSeconds < 0) {
+            actualNextState.position = currentPosition;
+            actualNextState.velocity = currentVelocity;
+        } else if (dtSeconds < inflectionTime) {
+            actualNextState.position = computeDistanceFromTime(dtSeconds, u, currentPosition, currentVelocity);
+            actualNextState.velocity = computeVelocityFromTime(dtSeconds, u, currentVelocity);
+        } else if (dtSeconds < totalTime) {
+            actualNextState.position = computeDistanceFromTime(dtSeconds - totalTime, -u, goalPosition, goalVelocity);
+            actualNextState.velocity = computeVelocityFromTime(dtSeconds - totalTime, -u, goalVelocity);
+        } else {
+            actualNextState.position = goalPosition;
+            actualNextState.velocity = goalVelocity;
+        }
+        return actualNextState;
+    }
+
+    private double computeDistanceFromTime(double t, double u, double initialPosition, double initialVelocity) {
+        return initialPosition
+                + (-modelB * u * t + (initialVelocity + modelB * u / modelA) * (Math.exp(modelA * t) - 1)) / modelA;
+    }
+
+    private double computeVelocityFromTime(double t, double u, double initialVelocity) {
+        return (initialVelocity + modelB * u / modelA) * Math.exp(modelA * t) - modelB * u / modelA;
+    }
+
+    private double computeTimeFromVelocity(double velocity, double u, double initialVelocity) {
+        return Math.log((modelA * velocity + modelB * u) / (modelA * initialVelocity + modelB * u)) / modelA;
+    }
+
+    private double computeDistanceFromVelocity(
+            double velocity,
+            double u,
+            double initialPosition,
+            double initialVelocity) {
+        return initialPosition
+                + (velocity - initialVelocity) / modelA
+                - modelB * u / (modelA * modelA)
+                * Math.log((modelA * velocity + modelB * u) / (modelA * initialVelocity + modelB * u));
+    }
+
+    private double solveForInflectionVelocity(
+            double u,
+            double currentPosition,
+            double currentVelocity,
+            double goalPosition,
+            double goalVelocity) {
+        double positionDelta = goalPosition - currentPosition;
+        double velocityDelta = goalVelocity - currentVelocity;
+        double scalar = (modelA * currentVelocity + modelB * u) * (modelA * goalVelocity - modelB * u);
+        double power = -modelA / modelB / u * (modelA * positionDelta - velocityDelta);
+        double a = -modelA * modelA;
+        double c = modelB * modelB * u * u + scalar * Math.exp(power);
+        if (-1e-9 < c && c < 0) {
+            // c comes out around -1e-13 when the answer is 0
+            return 0.0;
+        }
+        return Math.signum(u) * Math.sqrt(-c / a);
+    }
 
+    /**
+     * @return whether the profile starts with reverse input
+     */
+    private boolean shouldFlipInput(
+            double currentPosition,
+            double currentVelocity,
+            double goalPosition,
+            double goalVelocity) {
+        double forwardPosition = computeDistanceFromVelocity(goalVelocity, maxInput, currentPosition, currentVelocity);
+        double reversePosition = computeDistanceFromVelocity(goalVelocity, -maxInput, currentPosition, currentVelocity);
+        if (currentVelocity >= maxVelocity) {
+            return goalPosition < reversePosition;
+        }
+        if (currentVelocity <= -maxVelocity) {
+            return goalPosition < forwardPosition;
+        }
+        boolean a = currentVelocity >= 0;
+        boolean b = goalVelocity >= 0;
+        boolean c = goalPosition >= forwardPosition;
+        boolean d = goalPosition >= reversePosition;
+        return (a && !d) || (b && !c) || (!c && !d);
     }
 }
@@ -1,28 +1,90 @@
 package com.goatlib.motorprofiles;
 
-import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 
+/**
+ * A trapezoid profile with the same math as WPILib's {@code TrapezoidProfile.calculate}, done in fields instead of
+ * the new State objects WPILib creates on every call, so a control tick allocates nothing.
+ */
 public class TrapezoidMotionProfile implements MotionProfile {
 
-    private final TrapezoidProfile trapezoidProfile;
-    private final TrapezoidProfile.State currentState = new TrapezoidProfile.State();
-    private final TrapezoidProfile.State nextStateSetpoint = new TrapezoidProfile.State();
+    private final SimpleMotorFeedforward simpleMotorFeedforward;
+    private double maxVelocity;
+    private double maxAcceleration;
+    private double profileVolts;
     private final PositionState actualNextState = new PositionState();
 
     public TrapezoidMotionProfile(double maxVelocity, double maxAcceleration) {
-        this.trapezoidProfile = new TrapezoidProfile(new TrapezoidProfile.Constraints(maxVelocity, maxAcceleration));
+        this.simpleMotorFeedforward = null;
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+    }
+
+    /**
+     * Creates a profile whose constraints follow the available bus voltage. The constraints are rebuilt only when
+     * {@link BusVoltage#getProfileVolts()} moves by a whole step.
+     *
+     * @param simpleMotorFeedforward feedforward model the constraints are derived from
+     */
+    public TrapezoidMotionProfile(SimpleMotorFeedforward simpleMotorFeedforward) {
+        this.simpleMotorFeedforward = simpleMotorFeedforward;
+        resize(BusVoltage.getProfileVolts());
+    }
+
+    private void resize(double volts) {
+        profileVolts = volts;
+        maxVelocity = simpleMotorFeedforward.maxAchievableVelocity(volts, 0.0);
+        maxAcceleration = simpleMotorFeedforward.maxAchievableAcceleration(volts, 0.0);
     }
 
     @Override
     public PositionState calculate(PositionState currentState, PositionState nextStateSetpoint, double dtSeconds) {
-        this.currentState.position = currentState.position;
-        this.currentState.velocity = currentState.velocity;
-        this.nextStateSetpoint.position = nextStateSetpoint.position;
-        this.nextStateSetpoint.velocity = nextStateSetpoint.velocity;
-        TrapezoidProfile.State actualNextState = trapezoidProfile.calculate(dtSeconds, this.currentState, this.nextStateSetpoint);
-        this.actualNextState.position = actualNextState.position;
-        this.actualNextState.velocity = actualNextState.velocity;
-        return this.actualNextState;
+        if (simpleMotorFeedforward != null && BusVoltage.getProfileVolts() != profileVolts) {
+            resize(BusVoltage.getProfileVolts());
+        }
+        // solve the profile as if moving forward, then flip the result back
+        double direction = currentState.position > nextStateSetpoint.position ? -1.0 : 1.0;
+        double currentPosition = currentState.position * direction;
+        double currentVelocity = Math.min(currentState.velocity * direction, maxVelocity);
+        double goalPosition = nextStateSetpoint.position * direction;
+        double goalVelocity = nextStateSetpoint.velocity * direction;
+
+        double cutoffBegin = currentVelocity / maxAcceleration;
+        double cutoffDistBegin = cutoffBegin * cutoffBegin * maxAcceleration / 2.0;
+        double cutoffEnd = goalVelocity / maxAcceleration;
+        double cutoffDistEnd = cutoffEnd * cutoffEnd * maxAcceleration / 2.0;
+        double fullTrapezoidDist = cutoffDistBegin + (goalPosition - currentPosition) + cutoffDistEnd;
+        double accelerationTime = maxVelocity / maxAcceleration;
+        double fullSpeedDist = fullTrapezoidDist - accelerationTime * accelerationTime * maxAcceleration;
+        if (fullSpeedDist < 0) {
+            accelerationTime = Math.sqrt(fullTrapezoidDist / maxAcceleration);
+            fullSpeedDist = 0;
+        }
+        double endAccel = accelerationTime - cutoffBegin;
+        double endFullSpeed = endAccel + fullSpeedDist / maxVelocity;
+        double endDecel = endFullSpeed + accelerationTime - cutoffEnd;
 
+        double position;
+        double velocity;
+        if (dtSeconds < endAccel) {
+            velocity = currentVelocity + dtSeconds * maxAcceleration;
+            position = currentPosition + (currentVelocity + dtSeconds * maxAcceleration / 2.0) * dtSeconds;
+        } else if (dtSeconds < endFullSpeed) {
+            velocity = maxVelocity;
+            position = currentPosition
+                    + (currentVelocity + endAccel * maxAcceleration / 2.0) * endAccel
+                    + maxVelocity * (dtSeconds - endAccel);
+        } else if (dtSeconds <= endDecel) {
+            double timeLeft = endDecel - dtSeconds;
+            velocity = goalVelocity + timeLeft * maxAcceleration;
+            position = goalPosition - (goalVelocity + timeLeft * maxAcceleration / 2.0) * timeLeft;
+        } else {
+            velocity = goalVelocity;
+            position = goalPosition;
+        }
+        actualNextState.position = position * direction;
+        actualNextState.velocity = velocity * direction;
+        return actualNextState;
     }
 }
@@ -16,6 +16,24 @@ public interface Motor {
 
     void setCurrent(Measure<Current> current);
 
+    void setCurrentLimit(int amps);
+
+    MotorHistory getHistory();
+
+    /**
+     * @return whether the reads in the last update reached the device
+     */
+    default boolean isConnected() {
+        return true;
+    }
+
+    /**
+     * @return whether the position can be trusted yet, false while a motor that finds its position at startup hasn't
+     */
+    default boolean isPositionKnown() {
+        return true;
+    }
+
     void update();
 
 }
@@ -0,0 +1,25 @@
+package com.goatlib.motors;
+
+/**
+ * Time-indexed history of every signal a {@link Motor} reports, in the same units as the motor's measures.
+ */
+public class MotorHistory {
+    public final SignalHistory position;
+    public final SignalHistory velocity;
+    public final SignalHistory current;
+    public final SignalHistory voltage;
+
+    public MotorHistory(int capacity) {
+        position = new SignalHistory(capacity);
+        velocity = new SignalHistory(capacity);
+        current = new SignalHistory(capacity);
+        voltage = new SignalHistory(capacity);
+    }
+
+    public void record(double timestampSeconds, double position, double velocity, double current, double voltage) {
+        this.position.add(timestampSeconds, position);
+        this.velocity.add(timestampSeconds, velocity);
+        this.current.add(timestampSeconds, current);
+        this.voltage.add(timestampSeconds, voltage);
+    }
+}
@@ -0,0 +1,15 @@
+package com.goatlib.motors;
+
+/**
+ * Everything a {@link Motor} reads in one tick, in radians, radians per second, amps and volts. Mutable so one
+ * instance can be reused every tick.
+ */
+public class MotorInputs {
+    public double timestampSeconds;
+    public double position;
+    public double velocity;
+    public double current;
+    public double voltage;
+    // motors without an absolute position reference always know their position
+    public boolean positionKnown = true;
+}
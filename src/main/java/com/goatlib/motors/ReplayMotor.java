@@ -0,0 +1,103 @@
+package com.goatlib.motors;
+
+import edu.wpi.first.units.*;
+
+import static edu.wpi.first.units.Units.*;
+
+/**
+ * A {@link Motor} that reports recorded {@link MotorInputs} instead of reading hardware, so a mechanism and its
+ * control loop can be driven from a log. Inputs staged with {@link #setInputs(MotorInputs)} become visible on the
+ * next {@link #update()}, the same way hardware readings do. Commanded voltages are kept so they can be compared
+ * with the recorded outputs.
+ */
+public class ReplayMotor implements Motor {
+    private final MutableMeasure<Current> current = MutableMeasure.zero(Amps);
+    private final MutableMeasure<Voltage> voltage = MutableMeasure.zero(Volts);
+    private final MutableMeasure<Angle> position = MutableMeasure.zero(Radians);
+    private final MutableMeasure<Velocity<Angle>> velocity = MutableMeasure.zero(RadiansPerSecond);
+    private final MotorInputs stagedInputs = new MotorInputs();
+    private final MotorHistory history;
+    private double commandedVoltage = 0.0;
+    private int currentLimitAmps = Integer.MAX_VALUE;
+    private boolean positionKnown = true;
+
+    public ReplayMotor(int historyLength) {
+        history = new MotorHistory(historyLength);
+    }
+
+    public void setInputs(MotorInputs inputs) {
+        stagedInputs.timestampSeconds = inputs.timestampSeconds;
+        stagedInputs.position = inputs.position;
+        stagedInputs.velocity = inputs.velocity;
+        stagedInputs.current = inputs.current;
+        stagedInputs.voltage = inputs.voltage;
+        stagedInputs.positionKnown = inputs.positionKnown;
+    }
+
+    public double getCommandedVoltage() {
+        return commandedVoltage;
+    }
+
+    public int getCurrentLimit() {
+        return currentLimitAmps;
+    }
+
+    @Override
+    public Measure<Current> getCurrent() {
+        return current;
+    }
+
+    @Override
+    public Measure<Voltage> getVoltage() {
+        return voltage;
+    }
+
+    @Override
+    public Measure<Angle> getPosition() {
+        return position;
+    }
+
+    @Override
+    public Measure<Velocity<Angle>> getVelocity() {
+        return velocity;
+    }
+
+    @Override
+    public void setVoltage(Measure<Voltage> voltage) {
+        commandedVoltage = voltage.in(Volts);
+    }
+
+    @Override
+    public void setCurrent(Measure<Current> current) {
+    }
+
+    @Override
+    public void setCurrentLimit(int amps) {
+        currentLimitAmps = amps;
+    }
+
+    @Override
+    public MotorHistory getHistory() {
+        return history;
+    }
+
+    @Override
+    public boolean isPositionKnown() {
+        return positionKnown;
+    }
+
+    @Override
+    public void update() {
+        position.mut_setMagnitude(stagedInputs.position);
+        velocity.mut_setMagnitude(stagedInputs.velocity);
+        current.mut_setMagnitude(stagedInputs.current);
+        voltage.mut_setMagnitude(stagedInputs.voltage);
+        positionKnown = stagedInputs.positionKnown;
+        history.record(
+                stagedInputs.timestampSeconds,
+                stagedInputs.position,
+                stagedInputs.velocity,
+                stagedInputs.current,
+                stagedInputs.voltage);
+    }
+}
@@ -0,0 +1,100 @@
+package com.goatlib.motors;
+
+/**
+ * Fixed-capacity ring buffer of (timestamp, value) samples with interpolated lookup by time. All storage is
+ * allocated up front, adding and looking up samples allocate nothing.
+ */
+public class SignalHistory {
+
+    private final double[] timestamps;
+    private final double[] values;
+    private int head = 0;
+    private int size = 0;
+
+    public SignalHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        timestamps = new double[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Adds a sample, overwriting the oldest one when full. A sample that isn't newer than the latest one replaces
+     * the latest value so timestamps stay strictly increasing.
+     *
+     * @param timestampSeconds time the value was sampled
+     * @param value            sampled value
+     */
+    public void add(double timestampSeconds, double value) {
+        if (size > 0 && timestampSeconds <= timestamps[physicalIndex(size - 1)]) {
+            values[physicalIndex(size - 1)] = value;
+            return;
+        }
+        timestamps[head] = timestampSeconds;
+        values[head] = value;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Looks up the value at a past time in O(log n), interpolating linearly between the samples around it. Times
+     * outside the history are clamped to the oldest or latest sample.
+     *
+     * @param timestampSeconds time to look up
+     * @return the interpolated value, or NaN if the history is empty
+     */
+    public double get(double timestampSeconds) {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        if (timestampSeconds <= timestamps[physicalIndex(0)]) {
+            return values[physicalIndex(0)];
+        }
+        if (timestampSeconds >= timestamps[physicalIndex(size - 1)]) {
+            return values[physicalIndex(size - 1)];
+        }
+        int low = 0;
+        int high = size - 1;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[physicalIndex(middle)] <= timestampSeconds) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        int lowIndex = physicalIndex(low);
+        int highIndex = physicalIndex(high);
+        double t = (timestampSeconds - timestamps[lowIndex]) / (timestamps[highIndex] - timestamps[lowIndex]);
+        return values[lowIndex] + t * (values[highIndex] - values[lowIndex]);
+    }
+
+    public double getLatestTimestamp() {
+        return size == 0 ? Double.NaN : timestamps[physicalIndex(size - 1)];
+    }
+
+    public double getOldestTimestamp() {
+        return size == 0 ? Double.NaN : timestamps[physicalIndex(0)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private int physicalIndex(int logicalIndex) {
+        int index = head - size + logicalIndex;
+        return index < 0 ? index + timestamps.length : index;
+    }
+}
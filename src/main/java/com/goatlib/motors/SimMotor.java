@@ -1,7 +1,13 @@
 package com.goatlib.motors;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N2;
+import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.math.system.plant.LinearSystemId;
 import edu.wpi.first.units.*;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
 
@@ -13,7 +19,14 @@ public class SimMotor extends DCMotorSim implements Motor {
     private final MutableMeasure<Voltage> voltage;
     private final MutableMeasure<Angle> position;
     private final MutableMeasure<Velocity<Angle>> velocity;
+    private final MotorHistory history;
     private final double updatePeriodSeconds;
+    private final double momentOfInertiaKgMetersSquared;
+    private final DCMotor gearbox;
+    private final double gearing;
+    private int currentLimitAmps = Integer.MAX_VALUE;
+    private double loadTorqueNewtonMeters = 0.0;
+    private double loadTorqueRemainingSeconds = 0.0;
 
     public SimMotor(SimpleMotorConfigs flywheelConfigs) {
         super(
@@ -27,7 +40,37 @@ public class SimMotor extends DCMotorSim implements Motor {
         voltage = MutableMeasure.zero(Volts);
         position = MutableMeasure.zero(Radians);
         velocity = MutableMeasure.zero(RadiansPerSecond);
+        history = new MotorHistory(flywheelConfigs.historyLength());
         this.updatePeriodSeconds = flywheelConfigs.updatePeriodSeconds();
+        this.gearbox = flywheelConfigs.gearbox();
+        this.gearing = flywheelConfigs.gearing();
+        // kA = J * R / (G * Kt), so the characterized kA gives back the mechanism's moment of inertia
+        this.momentOfInertiaKgMetersSquared = flywheelConfigs.kA()
+                * flywheelConfigs.gearing()
+                * flywheelConfigs.gearbox().KtNMPerAmp
+                / flywheelConfigs.gearbox().rOhms;
+    }
+
+    /**
+     * Applies a load torque that opposes the mechanism's motion until it is changed.
+     *
+     * @param torqueNewtonMeters load torque at the mechanism
+     */
+    public void setLoadTorque(double torqueNewtonMeters) {
+        loadTorqueNewtonMeters = torqueNewtonMeters;
+        loadTorqueRemainingSeconds = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Applies a load torque that opposes the mechanism's motion for a limited time, e.g. a game piece passing
+     * through a flywheel.
+     *
+     * @param torqueNewtonMeters load torque at the mechanism
+     * @param durationSeconds    how long the load is applied for
+     */
+    public void applyLoadTorque(double torqueNewtonMeters, double durationSeconds) {
+        loadTorqueNewtonMeters = torqueNewtonMeters;
+        loadTorqueRemainingSeconds = durationSeconds;
     }
 
 
@@ -51,21 +94,53 @@ public class SimMotor extends DCMotorSim implements Motor {
         return velocity;
     }
 
+    @Override
+    public MotorHistory getHistory() {
+        return history;
+    }
+
     @Override
     public void setVoltage(Measure<Voltage> voltage) {
-        setInputVoltage(voltage.in(Volts));
+        // mimic a smart current limit by keeping the voltage within limit * R of the back EMF
+        double backEmfVolts = getAngularVelocityRadPerSec() * gearing / gearbox.KvRadPerSecPerVolt;
+        double headroomVolts = currentLimitAmps * gearbox.rOhms;
+        setInputVoltage(MathUtil.clamp(voltage.in(Volts), backEmfVolts - headroomVolts, backEmfVolts + headroomVolts));
     }
 
     @Override
     public void setCurrent(Measure<Current> current) {
     }
 
+    @Override
+    public void setCurrentLimit(int amps) {
+        currentLimitAmps = amps;
+    }
+
     @Override
     public void update() {
         current.mut_setMagnitude(getCurrentDrawAmps());
         voltage.mut_setMagnitude(m_u.get(0, 0));
         velocity.mut_setMagnitude(getAngularVelocityRadPerSec());
         position.mut_setMagnitude(getAngularPositionRad());
+        history.record(
+                Timer.getFPGATimestamp(),
+                position.magnitude(),
+                velocity.magnitude(),
+                current.magnitude(),
+                voltage.magnitude());
         update(updatePeriodSeconds);
     }
+
+    @Override
+    protected Matrix<N2, N1> updateX(Matrix<N2, N1> currentXhat, Matrix<N1, N1> u, double dtSeconds) {
+        Matrix<N2, N1> nextXhat = super.updateX(currentXhat, u, dtSeconds);
+        if (loadTorqueRemainingSeconds > 0.0) {
+            double velocity = nextXhat.get(1, 0);
+            double deltaVelocity = loadTorqueNewtonMeters / momentOfInertiaKgMetersSquared * dtSeconds;
+            // the load only resists motion, it never drives the mechanism backwards
+            nextXhat.set(1, 0, Math.signum(velocity) * Math.max(Math.abs(velocity) - deltaVelocity, 0.0));
+            loadTorqueRemainingSeconds -= dtSeconds;
+        }
+        return nextXhat;
+    }
 }
@@ -0,0 +1,52 @@
+package com.goatlib.motors;
+
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import edu.wpi.first.math.system.plant.DCMotor;
+
+/**
+ * The simulated counterpart of {@link com.goatlib.motors.rev.REVMotorGroup}: a {@link SimMotor} driven by several
+ * identical motors, modelled as one gearbox with their combined torque and current. As with the REV group, current
+ * and current limits are for the whole group.
+ */
+public class SimMotorGroup extends SimMotor {
+
+    private final int motorCount;
+
+    /**
+     * @param simpleMotorConfigs configs whose gearbox is a single motor and whose kV and kA are for the whole group
+     * @param motorCount         number of motors driving the mechanism
+     */
+    public SimMotorGroup(SimpleMotorConfigs simpleMotorConfigs, int motorCount) {
+        super(withCombinedGearbox(simpleMotorConfigs, motorCount));
+        this.motorCount = motorCount;
+    }
+
+    public int getMotorCount() {
+        return motorCount;
+    }
+
+    private static SimpleMotorConfigs withCombinedGearbox(SimpleMotorConfigs simpleMotorConfigs, int motorCount) {
+        DCMotor motor = simpleMotorConfigs.gearbox();
+        return new SimpleMotorConfigs(
+                simpleMotorConfigs.name(),
+                new DCMotor(
+                        motor.nominalVoltageVolts,
+                        motor.stallTorqueNewtonMeters,
+                        motor.stallCurrentAmps,
+                        motor.freeCurrentAmps,
+                        motor.freeSpeedRadPerSec,
+                        motorCount),
+                simpleMotorConfigs.gearing(),
+                simpleMotorConfigs.controlLoopPeriodSeconds(),
+                simpleMotorConfigs.controlLoopPeriodOffsetSeconds(),
+                simpleMotorConfigs.updatePeriodSeconds(),
+                simpleMotorConfigs.updatePeriodOffsetSeconds(),
+                simpleMotorConfigs.kS(),
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA(),
+                simpleMotorConfigs.kP(),
+                simpleMotorConfigs.kI(),
+                simpleMotorConfigs.kD(),
+                simpleMotorConfigs.historyLength());
+    }
+}
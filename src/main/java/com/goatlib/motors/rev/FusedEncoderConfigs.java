@@ -0,0 +1,25 @@
+package com.goatlib.motors.rev;
+
+/**
+ * @param absoluteRotationsPerMechanismRotation how many times the absolute encoder turns per mechanism turn; above 1
+ *                                              its reading repeats within the mechanism's travel
+ * @param absoluteOffsetRadians                 mechanism position when the absolute encoder reads zero
+ * @param minBootPositionRadians                lowest position the mechanism can be in at boot; the boot reading is
+ *                                              placed within one absolute encoder turn above it
+ * @param correctionTimeConstantSeconds         how quickly drift between the encoders is corrected
+ * @param maxLagErrorRadians                    largest distance the mechanism may move in one absolute encoder status
+ *                                              frame period while still correcting from it
+ * @param maxCorrectionRadians                  absolute readings this far or further from the fused position are
+ *                                              rejected instead of corrected towards
+ * @param maxRejectionSeconds                   how long readings may keep being rejected before the motor reports
+ *                                              itself disconnected
+ */
+public record FusedEncoderConfigs(
+        double absoluteRotationsPerMechanismRotation,
+        double absoluteOffsetRadians,
+        double minBootPositionRadians,
+        double correctionTimeConstantSeconds,
+        double maxLagErrorRadians,
+        double maxCorrectionRadians,
+        double maxRejectionSeconds) {
+}
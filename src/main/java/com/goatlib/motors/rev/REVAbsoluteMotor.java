@@ -20,5 +20,6 @@ public class REVAbsoluteMotor extends REVMotor {
         super.update();
         position.mut_setMagnitude(absoluteEncoder.getPosition());
         velocity.mut_setMagnitude(absoluteEncoder.getVelocity());
+        recordHistory();
     }
 }
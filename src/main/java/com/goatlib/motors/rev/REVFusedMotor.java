@@ -0,0 +1,146 @@
+package com.goatlib.motors.rev;
+
+import com.goatlib.configurator.rev.REVConfigs;
+import com.revrobotics.AbsoluteEncoder;
+import com.revrobotics.RelativeEncoder;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * A motor whose position comes from the high-rate relative encoder, offset so it agrees with an absolute encoder on
+ * the mechanism. The offset is seeded from the first fresh absolute encoder reading once the motor is connected, so
+ * the mechanism never needs homing, and until then {@link #isPositionKnown()} is false. After that the offset is
+ * pulled slowly towards the absolute encoder to correct slip and drift, but only while the mechanism is slow enough
+ * that the absolute reading, up to one status frame old, is still accurate, and never from a reading that jumps away
+ * from the fused position, which is a loose or unplugged encoder or a slipped belt rather than drift. Neither encoder
+ * can be trusted over the other then, so once slow-moving readings have kept jumping away for the configured time
+ * {@link #isConnected()} turns false, which a health monitor raises as a disconnected fault. It turns true again as
+ * soon as a slow-moving reading agrees.
+ * <p>
+ * An absolute encoder geared to turn several times per mechanism turn repeats its reading within the travel. At boot
+ * that is resolved by the mechanism's known starting range; after that each reading is taken as the repeat closest
+ * to the fused position, so the mechanism can travel any number of absolute encoder turns.
+ */
+public class REVFusedMotor extends REVMotor {
+
+    // absolute encoder frame periods to wait for a fresh reading before seeding
+    private static final double SEED_WAIT_FRAMES = 2.0;
+
+    private final RelativeEncoder relativeEncoder;
+    private final AbsoluteEncoder absoluteEncoder;
+    private final FusedEncoderConfigs fusedEncoderConfigs;
+    // mechanism travel per absolute encoder turn
+    private final double absoluteSpanRadians;
+    private final double absoluteFramePeriodSeconds;
+    private boolean seeded = false;
+    private double seedWaitStartSeconds = Double.NaN;
+    private double seedWaitReading = 0.0;
+    private double rejectingSinceSeconds = Double.NaN;
+    private boolean absoluteEncoderAgrees = true;
+    private double offsetRadians = 0.0;
+    private double absolutePositionRadians = 0.0;
+    private double lastTimestampSeconds = 0.0;
+
+    public REVFusedMotor(REVConfigs revConfigs, FusedEncoderConfigs fusedEncoderConfigs) {
+        super(revConfigs);
+        this.fusedEncoderConfigs = fusedEncoderConfigs;
+        absoluteSpanRadians = 2 * Math.PI / fusedEncoderConfigs.absoluteRotationsPerMechanismRotation();
+        absoluteFramePeriodSeconds = revConfigs.periodicStatusFrame5PeriodMs() / 1000.0;
+        relativeEncoder = canSparkBase.getEncoder();
+        absoluteEncoder = canSparkBase.getAbsoluteEncoder();
+        configurator
+                .withMeasurementPeriod(relativeEncoder, revConfigs.measurementPeriodMs())
+                .withConversionFactor(relativeEncoder, revConfigs.motorToMechanismConversionFactor())
+                .withAverageDepth(absoluteEncoder, revConfigs.averageDepth())
+                .withConversionFactor(absoluteEncoder, 1.0 / fusedEncoderConfigs.absoluteRotationsPerMechanismRotation());
+    }
+
+    @Override
+    public void update() {
+        super.update();
+        double relativePosition = relativeEncoder.getPosition();
+        double velocity = relativeEncoder.getVelocity();
+        double timestampSeconds = Timer.getFPGATimestamp();
+        double absoluteReading = absoluteEncoder.getPosition() + fusedEncoderConfigs.absoluteOffsetRadians();
+        if (super.isConnected()) {
+            if (!seeded) {
+                // the first reading may be REVLib's default or a frame from before the motor was seen, so wait for
+                // the reading to change or for long enough that a fresh frame must have arrived
+                if (Double.isNaN(seedWaitStartSeconds)) {
+                    seedWaitStartSeconds = timestampSeconds;
+                    seedWaitReading = absoluteReading;
+                } else if (absoluteReading != seedWaitReading
+                        || timestampSeconds - seedWaitStartSeconds >= SEED_WAIT_FRAMES * absoluteFramePeriodSeconds) {
+                    absolutePositionRadians = MathUtil.inputModulus(
+                            absoluteReading,
+                            fusedEncoderConfigs.minBootPositionRadians(),
+                            fusedEncoderConfigs.minBootPositionRadians() + absoluteSpanRadians);
+                    offsetRadians = absolutePositionRadians - relativePosition;
+                    seeded = true;
+                }
+            } else {
+                double fusedPosition = relativePosition + offsetRadians;
+                absolutePositionRadians = fusedPosition + MathUtil.inputModulus(
+                        absoluteReading - fusedPosition,
+                        -absoluteSpanRadians / 2,
+                        absoluteSpanRadians / 2);
+                double correctionRadians = absolutePositionRadians - fusedPosition;
+                // how far the mechanism can have moved since the absolute reading was taken
+                double lagErrorRadians = Math.abs(velocity) * absoluteFramePeriodSeconds;
+                // a reading taken while moving fast can't confirm or refute the fused position
+                if (lagErrorRadians < fusedEncoderConfigs.maxLagErrorRadians()) {
+                    if (Math.abs(correctionRadians) < fusedEncoderConfigs.maxCorrectionRadians()) {
+                        double gain = Math.min(
+                                (timestampSeconds - lastTimestampSeconds)
+                                        / fusedEncoderConfigs.correctionTimeConstantSeconds(),
+                                1.0);
+                        offsetRadians += gain * correctionRadians;
+                        rejectingSinceSeconds = Double.NaN;
+                    } else if (Double.isNaN(rejectingSinceSeconds)) {
+                        rejectingSinceSeconds = timestampSeconds;
+                    }
+                }
+                absoluteEncoderAgrees = Double.isNaN(rejectingSinceSeconds)
+                        || timestampSeconds - rejectingSinceSeconds < fusedEncoderConfigs.maxRejectionSeconds();
+            }
+        } else if (!seeded) {
+            seedWaitStartSeconds = Double.NaN;
+        }
+        lastTimestampSeconds = timestampSeconds;
+        position.mut_setMagnitude(relativePosition + offsetRadians);
+        this.velocity.mut_setMagnitude(velocity);
+        recordHistory();
+    }
+
+    /**
+     * @return false until the position has been seeded from a fresh absolute encoder reading
+     */
+    @Override
+    public boolean isPositionKnown() {
+        return seeded;
+    }
+
+    /**
+     * @return whether the motor is connected and free of brownout and motor faults, and the absolute encoder hasn't
+     * disagreed with the fused position for longer than the configured time
+     */
+    @Override
+    public boolean isConnected() {
+        return super.isConnected() && absoluteEncoderAgrees;
+    }
+
+    /**
+     * @return the absolute encoder's latest reading as a mechanism position, resolved to the turn nearest the fused
+     * position
+     */
+    public double getAbsolutePositionRadians() {
+        return absolutePositionRadians;
+    }
+
+    /**
+     * @return how far the fused position currently is from the bare relative encoder
+     */
+    public double getOffsetRadians() {
+        return offsetRadians;
+    }
+}
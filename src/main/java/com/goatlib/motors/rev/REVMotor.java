@@ -2,8 +2,10 @@ package com.goatlib.motors.rev;
 
 import com.goatlib.configurator.rev.REVMotorType;
 import com.goatlib.motors.Motor;
+import com.goatlib.motors.MotorHistory;
 import com.revrobotics.*;
 import edu.wpi.first.units.*;
+import edu.wpi.first.wpilibj.Timer;
 import com.goatlib.configurator.rev.REVConfigs;
 import com.goatlib.configurator.rev.REVConfigurator;
 import static edu.wpi.first.units.Units.*;
@@ -16,24 +18,27 @@ public abstract class REVMotor implements Motor {
     protected final MutableMeasure<Velocity<Angle>> velocity;
     protected final CANSparkBase canSparkBase;
     protected final REVConfigurator configurator;
+    protected final MotorHistory history;
+    private int currentLimitAmps;
+    private boolean connected = true;
 
 
     public REVMotor(REVConfigs revConfigs) {
+        currentLimitAmps = revConfigs.smartCurrentLimit();
         current = MutableMeasure.zero(Amps);
         voltage = MutableMeasure.zero(Volts);
         position = MutableMeasure.zero(Radians);
         velocity = MutableMeasure.zero(RadiansPerSecond);
+        history = new MotorHistory(revConfigs.historyLength());
 
-        canSparkBase = revConfigs.revMotorType() == REVMotorType.NEOVortexSparkFlex
-                ? new CANSparkFlex(revConfigs.deviceId(), CANSparkLowLevel.MotorType.kBrushless)
-                : new CANSparkMax(revConfigs.deviceId(), CANSparkLowLevel.MotorType.kBrushless);
+        canSparkBase = createCanSparkBase(revConfigs);
 
         configurator = REVConfigurator.configure(canSparkBase)
                 .withIdleMode(revConfigs.mode())
                 .withInverted(revConfigs.isInverted())
                 .withSmartCurrentLimit(revConfigs.smartCurrentLimit())
-                .withPeriodicStatusFrame0Period(revConfigs.periodicStatusFrame1PeriodMs())
-                .withPeriodicStatusFrame1Period(revConfigs.periodicStatusFrame2PeriodMs())
+                .withPeriodicStatusFrame0Period(revConfigs.periodicStatusFrame0PeriodMs())
+                .withPeriodicStatusFrame1Period(revConfigs.periodicStatusFrame1PeriodMs())
                 .withPeriodicStatusFrame2Period(revConfigs.periodicStatusFrame2PeriodMs())
                 .withPeriodicStatusFrame3Period(revConfigs.periodicStatusFrame3PeriodMs())
                 .withPeriodicStatusFrame4Period(revConfigs.periodicStatusFrame4PeriodMs())
@@ -41,6 +46,14 @@ public abstract class REVMotor implements Motor {
                 .withPeriodicStatusFrame6Period(revConfigs.periodicStatusFrame6PeriodMs());
     }
 
+    /**
+     * Creates the motor controller for the configs' device id and motor type.
+     */
+    protected static CANSparkBase createCanSparkBase(REVConfigs revConfigs) {
+        return revConfigs.revMotorType() == REVMotorType.NEOVortexSparkFlex
+                ? new CANSparkFlex(revConfigs.deviceId(), CANSparkLowLevel.MotorType.kBrushless)
+                : new CANSparkMax(revConfigs.deviceId(), CANSparkLowLevel.MotorType.kBrushless);
+    }
 
     @Override
     public Measure<Current> getCurrent() {
@@ -62,6 +75,16 @@ public abstract class REVMotor implements Motor {
         return velocity;
     }
 
+    @Override
+    public MotorHistory getHistory() {
+        return history;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
     @Override
     public void setVoltage(Measure<Voltage> voltage) {
         canSparkBase.setVoltage(voltage.in(Volts));
@@ -72,9 +95,39 @@ public abstract class REVMotor implements Motor {
         canSparkBase.getPIDController().setReference(current.in(Amps), CANSparkBase.ControlType.kCurrent);
     }
 
+    @Override
+    public void setCurrentLimit(int amps) {
+        // setting the limit is a blocking parameter write on the CAN bus, so skip it when nothing changed
+        if (amps != currentLimitAmps) {
+            currentLimitAmps = amps;
+            configurator.withSmartCurrentLimit(amps);
+        }
+    }
+
     public void update() {
-        current.mut_setMagnitude(canSparkBase.getOutputCurrent());
+        current.mut_setMagnitude(readCurrentAmps());
         voltage.mut_setMagnitude(canSparkBase.getAppliedOutput() * canSparkBase.getBusVoltage());
+        connected = canSparkBase.getLastError() == REVLibError.kOk;
+    }
+
+    /**
+     * @return current drawn by everything this motor drives, read once per update
+     */
+    protected double readCurrentAmps() {
+        return canSparkBase.getOutputCurrent();
+    }
+
+    /**
+     * Records the latest readings into the history. Subclasses call this at the end of update() once position and
+     * velocity have been read.
+     */
+    protected void recordHistory() {
+        history.record(
+                Timer.getFPGATimestamp(),
+                position.magnitude(),
+                velocity.magnitude(),
+                current.magnitude(),
+                voltage.magnitude());
     }
 
 
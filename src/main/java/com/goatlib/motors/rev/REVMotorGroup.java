@@ -0,0 +1,100 @@
+package com.goatlib.motors.rev;
+
+import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.configurator.rev.REVConfigurator;
+import com.revrobotics.CANSparkBase;
+import com.revrobotics.REVLibError;
+
+import java.util.List;
+
+/**
+ * Several motors driving one mechanism, seen as a single {@link com.goatlib.motors.Motor}. The followers mirror the
+ * leader in hardware and have every status frame but the fault frame slowed to the longest period, so each tick only
+ * the leader is commanded and read and CAN traffic barely grows with the number of motors. The group only counts as
+ * connected while every follower's fault frame is arriving and shows no brownout or motor fault.
+ * <p>
+ * Current and current limits are for the whole group: the reported current is the leader's times the motor count,
+ * which assumes the motors share the load evenly, and a limit is split evenly between the motors.
+ */
+public class REVMotorGroup extends REVRelativeMotor {
+
+    // faults that mean a follower is no longer sharing the load
+    private static final int FOLLOWER_FAULT_MASK = (1 << CANSparkBase.FaultID.kBrownout.value)
+            | (1 << CANSparkBase.FaultID.kMotorFault.value)
+            | (1 << CANSparkBase.FaultID.kDRVFault.value);
+
+    private final CANSparkBase[] followers;
+    private final REVConfigurator[] followerConfigurators;
+    private final int motorCount;
+    private int followerCurrentLimitAmps;
+    private boolean followersConnected = true;
+
+    /**
+     * @param leaderConfigs   configs of the motor that is commanded and read, its smart current limit is per motor
+     * @param followerConfigs configs of the followers, isInverted meaning opposite to the leader; only the device
+     *                        id, motor type, idle mode and inversion are used, the rest come from the leader
+     */
+    public REVMotorGroup(REVConfigs leaderConfigs, List<REVConfigs> followerConfigs) {
+        super(leaderConfigs);
+        motorCount = followerConfigs.size() + 1;
+        followers = new CANSparkBase[followerConfigs.size()];
+        followerConfigurators = new REVConfigurator[followerConfigs.size()];
+        followerCurrentLimitAmps = leaderConfigs.smartCurrentLimit();
+        for (int i = 0; i < followers.length; i++) {
+            REVConfigs configs = followerConfigs.get(i);
+            followers[i] = createCanSparkBase(configs);
+            followerConfigurators[i] = REVConfigurator.configure(followers[i])
+                    .withIdleMode(configs.mode())
+                    .withSmartCurrentLimit(leaderConfigs.smartCurrentLimit())
+                    .withFollow(canSparkBase, configs.isInverted())
+                    .withFollowerStatusFrames();
+        }
+    }
+
+    /**
+     * @param amps limit for the whole group, split evenly between the motors
+     */
+    @Override
+    public void setCurrentLimit(int amps) {
+        int perMotorAmps = Math.max(amps / motorCount, 1);
+        super.setCurrentLimit(perMotorAmps);
+        // each follower's limit is a blocking parameter write, so skip them when nothing changed
+        if (perMotorAmps != followerCurrentLimitAmps) {
+            followerCurrentLimitAmps = perMotorAmps;
+            for (REVConfigurator followerConfigurator : followerConfigurators) {
+                followerConfigurator.withSmartCurrentLimit(perMotorAmps);
+            }
+        }
+    }
+
+    @Override
+    public void update() {
+        super.update();
+        // faults are a cached read of frame 0, which times out if the follower stops sending it
+        boolean connected = true;
+        for (CANSparkBase follower : followers) {
+            int faults = follower.getFaults();
+            if (follower.getLastError() != REVLibError.kOk || (faults & FOLLOWER_FAULT_MASK) != 0) {
+                connected = false;
+            }
+        }
+        followersConnected = connected;
+    }
+
+    /**
+     * @return whether the leader and every follower are connected and free of brownout and motor faults
+     */
+    @Override
+    public boolean isConnected() {
+        return super.isConnected() && followersConnected;
+    }
+
+    public int getMotorCount() {
+        return motorCount;
+    }
+
+    @Override
+    protected double readCurrentAmps() {
+        return super.readCurrentAmps() * motorCount;
+    }
+}
@@ -34,6 +34,7 @@ public class REVRelativeMotor extends REVMotor {
         super.update();
         position.mut_setMagnitude(relativeEncoder.getPosition());
         velocity.mut_setMagnitude(relativeEncoder.getVelocity());
+        recordHistory();
     }
 
 }
@@ -0,0 +1,69 @@
+package com.goatlib.mpc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A constrained MPC problem for a kV/kA motor's position and velocity, tracking a position reference.
+ * <p>
+ * The cost weights follow Bryson's rule: each state is weighted by one over its tolerance squared and the voltage by
+ * one over the max voltage squared. The predicted positions must stay within the soft limits and the voltage within
+ * the max voltage at every step of the horizon.
+ *
+ * @param dtSeconds         model step, normally the control loop period
+ * @param horizon           number of model steps predicted
+ * @param maxVolts          voltage limit the plan must respect, below the brownout output limit
+ * @param minPosition       lower soft limit
+ * @param maxPosition       upper soft limit
+ */
+public record ExplicitMPCProblem(
+        double kV,
+        double kA,
+        double dtSeconds,
+        int horizon,
+        double positionTolerance,
+        double velocityTolerance,
+        double maxVolts,
+        double minPosition,
+        double maxPosition) {
+
+    /**
+     * Parses the {@link #toString()} form, which the generator writes into a table's header so the table can be
+     * checked against the model it is used with.
+     *
+     * @throws IllegalArgumentException if the text isn't a problem
+     */
+    public static ExplicitMPCProblem parse(String text) {
+        String prefix = ExplicitMPCProblem.class.getSimpleName() + "[";
+        String trimmed = text.trim();
+        if (!trimmed.startsWith(prefix) || !trimmed.endsWith("]")) {
+            throw new IllegalArgumentException(String.format("not an explicit MPC problem: '%s'", text));
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (String field : trimmed.substring(prefix.length(), trimmed.length() - 1).split(",")) {
+            String[] keyValue = field.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException(String.format("not an explicit MPC problem: '%s'", text));
+            }
+            fields.put(keyValue[0].trim(), keyValue[1].trim());
+        }
+        return new ExplicitMPCProblem(
+                Double.parseDouble(getField(fields, "kV")),
+                Double.parseDouble(getField(fields, "kA")),
+                Double.parseDouble(getField(fields, "dtSeconds")),
+                Integer.parseInt(getField(fields, "horizon")),
+                Double.parseDouble(getField(fields, "positionTolerance")),
+                Double.parseDouble(getField(fields, "velocityTolerance")),
+                Double.parseDouble(getField(fields, "maxVolts")),
+                Double.parseDouble(getField(fields, "minPosition")),
+                Double.parseDouble(getField(fields, "maxPosition")));
+    }
+
+    private static String getField(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("explicit MPC problem is missing %s", name));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,228 @@
+package com.goatlib.mpc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An explicit MPC law: polyhedral regions of (position, velocity, last voltage, reference) space, each with an affine
+ * voltage law that is the constrained optimum everywhere inside it. The last voltage is the one computed on the
+ * previous tick, which is still being applied when the state is measured.
+ * <p>
+ * {@link #findRegion} checks the region found last time first, since the state rarely leaves a region between
+ * ticks, then scans the rest. Both it and {@link #evaluate} are a few multiplies per halfspace and allocate nothing.
+ * <p>
+ * CSV layout, with # comments: a {@code law,region,kPosition,kVelocity,kLastVoltage,kReference,offset} row per region
+ * in region order, each followed by that region's
+ * {@code halfspace,region,aPosition,aVelocity,aLastVoltage,aReference,bound} rows. A state is inside a region when every halfspace's a.x is at most its bound. The generator writes the
+ * {@link ExplicitMPCProblem} the table solves as a comment, see {@link #getProblem()}.
+ */
+public class ExplicitMPCTable {
+
+    public static final ExplicitMPCTable EMPTY = new ExplicitMPCTable(
+            new double[0],
+            new double[0],
+            new int[]{0},
+            new double[0]);
+
+    // position, velocity, last voltage and reference
+    private static final int PARAMETERS = 4;
+    private static final int CSV_FIELDS = PARAMETERS + 3;
+    // slack on each halfspace, so a state on a shared boundary is inside one of the two regions
+    private static final double BOUNDARY_TOLERANCE = 1e-9;
+
+    private final double[] gains;
+    private final double[] offsets;
+    private final int[] halfspaceStarts;
+    private final double[] halfspaces;
+    private final ExplicitMPCProblem problem;
+
+    /**
+     * @param gains           kPosition, kVelocity, kLastVoltage and kReference for each region
+     * @param offsets         voltage offset for each region
+     * @param halfspaceStarts index of each region's first halfspace, plus the total halfspace count at the end
+     * @param halfspaces      aPosition, aVelocity, aLastVoltage, aReference and bound for each halfspace
+     */
+    public ExplicitMPCTable(double[] gains, double[] offsets, int[] halfspaceStarts, double[] halfspaces) {
+        this(gains, offsets, halfspaceStarts, halfspaces, null);
+    }
+
+    /**
+     * @param problem problem the table solves, or null if unknown
+     */
+    public ExplicitMPCTable(
+            double[] gains,
+            double[] offsets,
+            int[] halfspaceStarts,
+            double[] halfspaces,
+            ExplicitMPCProblem problem) {
+        if (gains.length != offsets.length * PARAMETERS
+                || halfspaceStarts.length != offsets.length + 1
+                || halfspaces.length != halfspaceStarts[offsets.length] * (PARAMETERS + 1)) {
+            throw new IllegalArgumentException("explicit MPC table arrays don't match their region count");
+        }
+        this.gains = gains;
+        this.offsets = offsets;
+        this.halfspaceStarts = halfspaceStarts;
+        this.halfspaces = halfspaces;
+        this.problem = problem;
+    }
+
+    public static ExplicitMPCTable fromCsv(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path);
+        List<double[]> laws = new ArrayList<>();
+        List<double[]> rows = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        ExplicitMPCProblem problem = null;
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#")) {
+                String comment = trimmed.substring(1).trim();
+                if (comment.startsWith(ExplicitMPCProblem.class.getSimpleName() + "[")) {
+                    problem = ExplicitMPCProblem.parse(comment);
+                }
+                continue;
+            }
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length != CSV_FIELDS) {
+                throw new IllegalArgumentException(String.format(
+                        "%s: expected %d fields but got '%s'",
+                        path,
+                        CSV_FIELDS,
+                        line));
+            }
+            int region = Integer.parseInt(fields[1].trim());
+            double[] values = new double[PARAMETERS + 1];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.parseDouble(fields[i + 2].trim());
+            }
+            switch (fields[0].trim()) {
+                case "law" -> {
+                    if (region != laws.size()) {
+                        throw new IllegalArgumentException(String.format("%s: region %d out of order", path, region));
+                    }
+                    laws.add(values);
+                    starts.add(rows.size());
+                }
+                case "halfspace" -> {
+                    if (region != laws.size() - 1) {
+                        throw new IllegalArgumentException(String.format("%s: halfspace of region %d is not after its law", path, region));
+                    }
+                    rows.add(values);
+                }
+                default -> throw new IllegalArgumentException(String.format("%s: unknown row '%s'", path, line));
+            }
+        }
+        double[] gains = new double[laws.size() * PARAMETERS];
+        double[] offsets = new double[laws.size()];
+        int[] halfspaceStarts = new int[laws.size() + 1];
+        for (int region = 0; region < laws.size(); region++) {
+            System.arraycopy(laws.get(region), 0, gains, region * PARAMETERS, PARAMETERS);
+            offsets[region] = laws.get(region)[PARAMETERS];
+            halfspaceStarts[region] = starts.get(region);
+        }
+        halfspaceStarts[laws.size()] = rows.size();
+        double[] halfspaces = new double[rows.size() * (PARAMETERS + 1)];
+        for (int i = 0; i < rows.size(); i++) {
+            System.arraycopy(rows.get(i), 0, halfspaces, i * (PARAMETERS + 1), PARAMETERS + 1);
+        }
+        return new ExplicitMPCTable(gains, offsets, halfspaceStarts, halfspaces, problem);
+    }
+
+    public void writeCsv(Path path, List<String> comments) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String comment : comments) {
+            lines.add("# " + comment);
+        }
+        if (problem != null) {
+            lines.add("# " + problem);
+        }
+        lines.add("# law,region,kPosition,kVelocity,kLastVoltage,kReference,offset");
+        lines.add("# halfspace,region,aPosition,aVelocity,aLastVoltage,aReference,bound");
+        for (int region = 0; region < offsets.length; region++) {
+            int base = region * PARAMETERS;
+            lines.add(String.format(
+                    "law,%d,%s,%s,%s,%s,%s",
+                    region,
+                    gains[base],
+                    gains[base + 1],
+                    gains[base + 2],
+                    gains[base + 3],
+                    offsets[region]));
+            for (int i = halfspaceStarts[region]; i < halfspaceStarts[region + 1]; i++) {
+                int row = i * (PARAMETERS + 1);
+                lines.add(String.format(
+                        "halfspace,%d,%s,%s,%s,%s,%s",
+                        region,
+                        halfspaces[row],
+                        halfspaces[row + 1],
+                        halfspaces[row + 2],
+                        halfspaces[row + 3],
+                        halfspaces[row + 4]));
+            }
+        }
+        Files.write(path, lines);
+    }
+
+    /**
+     * @param hint region to check first, usually the one found last tick, or -1
+     * @return the region containing the state, or -1 if the state is outside the table
+     */
+    public int findRegion(double position, double velocity, double lastVolts, double reference, int hint) {
+        if (hint >= 0 && hint < offsets.length && contains(hint, position, velocity, lastVolts, reference)) {
+            return hint;
+        }
+        for (int region = 0; region < offsets.length; region++) {
+            if (region != hint && contains(region, position, velocity, lastVolts, reference)) {
+                return region;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int region, double position, double velocity, double lastVolts, double reference) {
+        for (int i = halfspaceStarts[region]; i < halfspaceStarts[region + 1]; i++) {
+            int base = i * (PARAMETERS + 1);
+            double value = halfspaces[base] * position
+                    + halfspaces[base + 1] * velocity
+                    + halfspaces[base + 2] * lastVolts
+                    + halfspaces[base + 3] * reference;
+            if (value > halfspaces[base + 4] + BOUNDARY_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the region's optimal voltage at the state
+     */
+    public double evaluate(int region, double position, double velocity, double lastVolts, double reference) {
+        int base = region * PARAMETERS;
+        return gains[base] * position
+                + gains[base + 1] * velocity
+                + gains[base + 2] * lastVolts
+                + gains[base + 3] * reference
+                + offsets[region];
+    }
+
+    /**
+     * @return the problem the table solves, read from its header, or null if the file didn't say
+     */
+    public ExplicitMPCProblem getProblem() {
+        return problem;
+    }
+
+    public int getRegionCount() {
+        return offsets.length;
+    }
+
+    public int getHalfspaceCount() {
+        return halfspaceStarts[offsets.length];
+    }
+}
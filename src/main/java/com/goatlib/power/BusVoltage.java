@@ -0,0 +1,94 @@
+package com.goatlib.power;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * Shared bus voltage sample taken once per control tick so that every control loop saturates against, and every
+ * motion profile is sized from, the same available voltage.
+ * <p>
+ * Register {@link #update()} with a {@link com.goatlib.periodic.PeriodicTask} at the fastest control loop rate.
+ * Reads are a single volatile load and never touch the HAL.
+ */
+public final class BusVoltage {
+
+    public static final double NOMINAL_VOLTS = 12.0;
+
+    private static volatile double volts = NOMINAL_VOLTS;
+    private static volatile double outputLimitVolts = NOMINAL_VOLTS;
+    private static volatile BusVoltageConfigs busVoltageConfigs = new BusVoltageConfigs(6.75, 8.0, 0.25, 0.5, 0.1);
+    private static volatile double profileVolts = NOMINAL_VOLTS;
+
+    /**
+     * Configures how output is limited as the bus voltage approaches brownout. Call once at startup, before any
+     * motion profile is built.
+     */
+    public static void configure(BusVoltageConfigs busVoltageConfigs) {
+        BusVoltage.busVoltageConfigs = busVoltageConfigs;
+        set(volts);
+        profileVolts = Math.max(
+                busVoltageConfigs.profileVoltageStepVolts(),
+                Math.floor(outputLimitVolts / busVoltageConfigs.profileVoltageStepVolts())
+                        * busVoltageConfigs.profileVoltageStepVolts());
+    }
+
+    /**
+     * Samples the battery voltage. Call once per tick.
+     */
+    public static void update() {
+        set(RobotController.getBatteryVoltage());
+    }
+
+    /**
+     * Sets the bus voltage sample directly, e.g. from a replayed log.
+     *
+     * @param busVolts bus voltage
+     */
+    public static void set(double busVolts) {
+        BusVoltageConfigs busVoltageConfigs = BusVoltage.busVoltageConfigs;
+        double foldbackScale = MathUtil.clamp(
+                (busVolts - busVoltageConfigs.brownoutVolts())
+                        / (busVoltageConfigs.foldbackStartVolts() - busVoltageConfigs.brownoutVolts()),
+                busVoltageConfigs.minimumFoldbackScale(),
+                1.0);
+        double limit = Math.max(0.0, Math.min(NOMINAL_VOLTS, busVolts) * foldbackScale);
+        volts = busVolts;
+        outputLimitVolts = limit;
+
+        // step down as soon as the limit drops below the profile voltage, but only step back up once the limit is
+        // clear of the next step by the hysteresis band, or at the nominal voltage it is capped at
+        double step = busVoltageConfigs.profileVoltageStepVolts();
+        double currentProfileVolts = profileVolts;
+        double stepUpVolts = Math.min(
+                currentProfileVolts + step + busVoltageConfigs.profileHysteresisVolts(),
+                NOMINAL_VOLTS);
+        if (limit < currentProfileVolts || (limit >= stepUpVolts && limit > currentProfileVolts)) {
+            profileVolts = Math.max(step, Math.floor(limit / step) * step);
+        }
+    }
+
+    /**
+     * @return the last bus voltage sample
+     */
+    public static double getVolts() {
+        return volts;
+    }
+
+    /**
+     * @return the largest voltage magnitude a control loop should request this tick
+     */
+    public static double getOutputLimitVolts() {
+        return outputLimitVolts;
+    }
+
+    /**
+     * @return the output limit rounded down to the profile voltage step, so profiles are only resized when the
+     * available voltage moves by a whole step, and only sized back up once it is past the hysteresis band
+     */
+    public static double getProfileVolts() {
+        return profileVolts;
+    }
+
+    private BusVoltage() {
+    }
+}
@@ -0,0 +1,17 @@
+package com.goatlib.power;
+
+/**
+ * @param brownoutVolts           voltage at which the roboRIO browns out
+ * @param foldbackStartVolts      voltage below which the output limit starts folding back
+ * @param minimumFoldbackScale    fraction of the bus voltage still allowed at the brownout voltage
+ * @param profileVoltageStepVolts quantization of the voltage motion profiles are sized from
+ * @param profileHysteresisVolts  how far above the next step the output limit has to rise before profiles are sized
+ *                                up again, so a battery sitting on a boundary doesn't resize them every tick
+ */
+public record BusVoltageConfigs(
+        double brownoutVolts,
+        double foldbackStartVolts,
+        double minimumFoldbackScale,
+        double profileVoltageStepVolts,
+        double profileHysteresisVolts) {
+}
@@ -0,0 +1,142 @@
+package com.goatlib.power;
+
+import com.goatlib.motors.Motor;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Volts;
+
+/**
+ * Shares a robot-wide current budget between registered motors every tick.
+ * <p>
+ * The budget is the current the battery can supply before the bus voltage falls to the target minimum, estimated
+ * from the total supply current, the measured bus voltage and the battery's internal resistance. Motor controllers
+ * report stator current, so each motor's supply current is estimated as its stator current times its duty cycle,
+ * which ignores the controller's own losses. Every motor is guaranteed its minimum limit, and what is left is handed
+ * out in priority order up to each motor's maximum. The limits are stator current limits taken from a supply current
+ * budget, which errs on the safe side since a motor's supply current never exceeds its stator current.
+ * <p>
+ * Limits are rounded down to a step and only written to a motor when they change, since each write is a blocking CAN
+ * parameter write. A limit drops as soon as the budget does, but only rises once the budget clears the next step by
+ * the hysteresis, so a budget hovering at a step boundary doesn't flip the limit every tick.
+ */
+public class PowerArbiter implements Sendable {
+
+    // floor for the duty cycle estimate, so a bus voltage sample of zero doesn't divide by zero
+    private static final double MIN_BUS_VOLTS = 1.0;
+
+    private record Registration(Motor motor, int priority, int minCurrentLimitAmps, int maxCurrentLimitAmps) {
+    }
+
+    private final PowerArbiterConfigs powerArbiterConfigs;
+    private final List<Registration> registrations = new ArrayList<>();
+    private Motor[] motors = new Motor[0];
+    private int[] minCurrentLimits = new int[0];
+    private int[] maxCurrentLimits = new int[0];
+    private int[] currentLimits = new int[0];
+    private double totalCurrentAmps = 0.0;
+    private double budgetAmps = 0.0;
+
+    public PowerArbiter(PowerArbiterConfigs powerArbiterConfigs) {
+        this.powerArbiterConfigs = powerArbiterConfigs;
+    }
+
+    /**
+     * Registers a motor with the arbiter. Call during construction only, registration allocates.
+     *
+     * @param motor               motor to limit
+     * @param priority            higher priorities are served first
+     * @param minCurrentLimitAmps limit the motor never drops below
+     * @param maxCurrentLimitAmps limit the motor never exceeds
+     */
+    public void register(Motor motor, int priority, int minCurrentLimitAmps, int maxCurrentLimitAmps) {
+        registrations.add(new Registration(motor, priority, minCurrentLimitAmps, maxCurrentLimitAmps));
+        // the sort is stable, so motors of equal priority are served in registration order
+        registrations.sort(Comparator.comparingInt(Registration::priority).reversed());
+        Motor[] previousMotors = motors;
+        int[] previousCurrentLimits = currentLimits;
+        int count = registrations.size();
+        motors = new Motor[count];
+        minCurrentLimits = new int[count];
+        maxCurrentLimits = new int[count];
+        currentLimits = new int[count];
+        for (int i = 0; i < count; i++) {
+            Registration registration = registrations.get(i);
+            motors[i] = registration.motor();
+            minCurrentLimits[i] = registration.minCurrentLimitAmps();
+            maxCurrentLimits[i] = registration.maxCurrentLimitAmps();
+            currentLimits[i] = registration.maxCurrentLimitAmps();
+            for (int j = 0; j < previousMotors.length; j++) {
+                if (previousMotors[j] == registration.motor()) {
+                    currentLimits[i] = previousCurrentLimits[j];
+                }
+            }
+        }
+        motor.setCurrentLimit(maxCurrentLimitAmps);
+    }
+
+    public void update() {
+        totalCurrentAmps = 0.0;
+        double busVolts = Math.max(BusVoltage.getVolts(), MIN_BUS_VOLTS);
+        for (Motor motor : motors) {
+            double dutyCycle = Math.min(Math.abs(motor.getVoltage().in(Volts)) / busVolts, 1.0);
+            totalCurrentAmps += Math.abs(motor.getCurrent().in(Amps)) * dutyCycle;
+        }
+        double headroomAmps = (BusVoltage.getVolts() - powerArbiterConfigs.targetMinimumBusVolts())
+                / powerArbiterConfigs.batteryResistanceOhms();
+        budgetAmps = MathUtil.clamp(
+                totalCurrentAmps + headroomAmps,
+                powerArbiterConfigs.minTotalCurrentAmps(),
+                powerArbiterConfigs.maxTotalCurrentAmps());
+
+        double remainingAmps = budgetAmps;
+        for (int i = 0; i < motors.length; i++) {
+            remainingAmps -= minCurrentLimits[i];
+        }
+        int step = powerArbiterConfigs.currentLimitStepAmps();
+        for (int i = 0; i < motors.length; i++) {
+            double availableAmps = remainingAmps;
+            double extraAmps = MathUtil.clamp(remainingAmps, 0.0, maxCurrentLimits[i] - minCurrentLimits[i]);
+            remainingAmps -= extraAmps;
+            int limit = minCurrentLimits[i] + (int) (extraAmps / step) * step;
+            if (limit > currentLimits[i]
+                    && minCurrentLimits[i] + availableAmps < limit + powerArbiterConfigs.currentLimitHysteresisAmps()) {
+                limit = currentLimits[i];
+            }
+            if (limit != currentLimits[i]) {
+                currentLimits[i] = limit;
+                motors[i].setCurrentLimit(limit);
+            }
+        }
+    }
+
+    public double getTotalCurrentAmps() {
+        return totalCurrentAmps;
+    }
+
+    public double getBudgetAmps() {
+        return budgetAmps;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.addDoubleProperty(
+                "Total Supply Current (Amps)",
+                this::getTotalCurrentAmps,
+                null);
+        builder.addDoubleProperty(
+                "Current Budget (Amps)",
+                this::getBudgetAmps,
+                null);
+        builder.addDoubleProperty(
+                "Bus Voltage (Volts)",
+                BusVoltage::getVolts,
+                null);
+    }
+}
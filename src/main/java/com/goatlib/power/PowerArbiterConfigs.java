@@ -0,0 +1,10 @@
+package com.goatlib.power;
+
+public record PowerArbiterConfigs(
+        double batteryResistanceOhms,
+        double targetMinimumBusVolts,
+        double minTotalCurrentAmps,
+        double maxTotalCurrentAmps,
+        int currentLimitStepAmps,
+        double currentLimitHysteresisAmps) {
+}
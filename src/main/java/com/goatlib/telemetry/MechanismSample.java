@@ -0,0 +1,39 @@
+package com.goatlib.telemetry;
+
+/**
+ * One tick of a mechanism's signals, setpoint and control loop output. Mutable so a single instance can be reused
+ * every tick.
+ */
+public class MechanismSample {
+    public static final MechanismSampleStruct struct = new MechanismSampleStruct();
+
+    public double timestampSeconds;
+    public double position;
+    public double velocity;
+    public double current;
+    public double voltage;
+    public double setpoint;
+    public double output;
+
+    public void set(MechanismSample other) {
+        timestampSeconds = other.timestampSeconds;
+        position = other.position;
+        velocity = other.velocity;
+        current = other.current;
+        voltage = other.voltage;
+        setpoint = other.setpoint;
+        output = other.output;
+    }
+
+    /**
+     * @return whether every signal except the timestamp is identical to the other sample
+     */
+    public boolean signalsEqual(MechanismSample other) {
+        return position == other.position
+                && velocity == other.velocity
+                && current == other.current
+                && voltage == other.voltage
+                && setpoint == other.setpoint
+                && output == other.output;
+    }
+}
@@ -0,0 +1,57 @@
+package com.goatlib.telemetry;
+
+import edu.wpi.first.util.struct.Struct;
+
+import java.nio.ByteBuffer;
+
+public class MechanismSampleStruct implements Struct<MechanismSample> {
+
+    @Override
+    public Class<MechanismSample> getTypeClass() {
+        return MechanismSample.class;
+    }
+
+    @Override
+    public String getTypeString() {
+        return "struct:MechanismSample";
+    }
+
+    @Override
+    public int getSize() {
+        return kSizeDouble * 7;
+    }
+
+    @Override
+    public String getSchema() {
+        return "double timestamp;double position;double velocity;double current;double voltage;double setpoint;double output";
+    }
+
+    @Override
+    public MechanismSample unpack(ByteBuffer bb) {
+        MechanismSample sample = new MechanismSample();
+        unpackInto(sample, bb);
+        return sample;
+    }
+
+    @Override
+    public void unpackInto(MechanismSample out, ByteBuffer bb) {
+        out.timestampSeconds = bb.getDouble();
+        out.position = bb.getDouble();
+        out.velocity = bb.getDouble();
+        out.current = bb.getDouble();
+        out.voltage = bb.getDouble();
+        out.setpoint = bb.getDouble();
+        out.output = bb.getDouble();
+    }
+
+    @Override
+    public void pack(ByteBuffer bb, MechanismSample value) {
+        bb.putDouble(value.timestampSeconds);
+        bb.putDouble(value.position);
+        bb.putDouble(value.velocity);
+        bb.putDouble(value.current);
+        bb.putDouble(value.voltage);
+        bb.putDouble(value.setpoint);
+        bb.putDouble(value.output);
+    }
+}
@@ -0,0 +1,192 @@
+package com.goatlib.telemetry;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.logging.SignalRecorder;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructPublisher;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Publishes a mechanism's signals as a single packed {@link MechanismSample} struct instead of one NetworkTables
+ * entry per signal.
+ * <p>
+ * {@link #record} is called every control tick. A sample goes out at most once per publish period, and a sample whose
+ * signals are identical to the last published one is skipped until something changes.
+ * <p>
+ * When recording to a {@link SignalRecorder}, the gains in use are written to a configs channel of the same name
+ * whenever a new config is published and at the start of every file, so replay runs against the gains the robot
+ * actually had.
+ */
+public class MechanismTelemetry {
+
+    private final String name;
+    private final StructPublisher<MechanismSample> publisher;
+    private final MechanismSample sample = new MechanismSample();
+    private final MechanismSample lastPublished = new MechanismSample();
+    private final double recordPeriodSeconds;
+    private int publishEveryTicks;
+    private int ticksSincePublish = 0;
+    private boolean hasPublished = false;
+    private long publishCount = 0;
+    private SignalRecorder recorder = null;
+    private int recorderChannel = -1;
+    private ConfigHandle<SimpleMotorConfigs> configsHandle = null;
+    private int configsChannel = -1;
+    private SimpleMotorConfigs recordedConfigs = null;
+    private int recordedConfigsFileCount = -1;
+
+    /**
+     * @param name                 mechanism name, the sample is published to /goatlib/name
+     * @param publishPeriodSeconds minimum time between published samples
+     * @param recordPeriodSeconds  time between calls to {@link #record}, usually the control loop period
+     */
+    public MechanismTelemetry(String name, double publishPeriodSeconds, double recordPeriodSeconds) {
+        this(
+                name,
+                NetworkTableInstance.getDefault()
+                        .getStructTopic("/goatlib/" + name, MechanismSample.struct)
+                        .publish(),
+                publishPeriodSeconds,
+                recordPeriodSeconds);
+    }
+
+    private MechanismTelemetry(
+            String name,
+            StructPublisher<MechanismSample> publisher,
+            double publishPeriodSeconds,
+            double recordPeriodSeconds) {
+        this.name = name;
+        this.publisher = publisher;
+        this.recordPeriodSeconds = recordPeriodSeconds;
+        setPublishPeriodSeconds(publishPeriodSeconds);
+    }
+
+    /**
+     * Returns a telemetry that keeps the latest sample but never announces a topic or publishes, e.g. for mechanisms
+     * that only exist to warm up the JIT.
+     *
+     * @param name                mechanism name, only used for a recorder channel
+     * @param recordPeriodSeconds time between calls to {@link #record}, usually the control loop period
+     */
+    public static MechanismTelemetry unpublished(String name, double recordPeriodSeconds) {
+        return new MechanismTelemetry(name, null, recordPeriodSeconds, recordPeriodSeconds);
+    }
+
+    /**
+     * Records every sample, and the gains whenever they change, to the recorder. Call before the recorder is started.
+     *
+     * @param recorder      recorder to write samples to
+     * @param configsHandle handle the mechanism's control loops read their gains from
+     */
+    public void setRecorder(SignalRecorder recorder, ConfigHandle<SimpleMotorConfigs> configsHandle) {
+        this.recorder = recorder;
+        this.recorderChannel = recorder.addChannel(name);
+        this.configsHandle = configsHandle;
+        this.configsChannel = recorder.addConfigsChannel(name);
+    }
+
+    public void setPublishPeriodSeconds(double publishPeriodSeconds) {
+        publishEveryTicks = Math.max(1, (int) Math.round(publishPeriodSeconds / recordPeriodSeconds));
+    }
+
+    public double getPublishPeriodSeconds() {
+        return publishEveryTicks * recordPeriodSeconds;
+    }
+
+    /**
+     * @param setpointVelocity velocity of the setpoint, e.g. a tracked target's, only written to the recorder
+     * @param safeMode         whether the health monitor holds the mechanism in safe mode, only written to the recorder
+     * @param positionKnown    whether the motor knows its absolute position, only written to the recorder
+     */
+    public void record(
+            double position,
+            double velocity,
+            double current,
+            double voltage,
+            double setpoint,
+            double setpointVelocity,
+            double output,
+            boolean safeMode,
+            boolean positionKnown) {
+        sample.position = position;
+        sample.velocity = velocity;
+        sample.current = current;
+        sample.voltage = voltage;
+        sample.setpoint = setpoint;
+        sample.output = output;
+        if (recorder != null) {
+            double timestampSeconds = Timer.getFPGATimestamp();
+            recordConfigs(timestampSeconds);
+            recorder.record(
+                    recorderChannel,
+                    timestampSeconds,
+                    position,
+                    velocity,
+                    current,
+                    voltage,
+                    setpoint,
+                    setpointVelocity,
+                    output,
+                    BusVoltage.getVolts(),
+                    (safeMode ? SignalRecorder.STATUS_SAFE_MODE : 0)
+                            | (positionKnown ? SignalRecorder.STATUS_POSITION_KNOWN : 0));
+        }
+        ticksSincePublish++;
+        if (publisher == null || ticksSincePublish < publishEveryTicks) {
+            return;
+        }
+        if (hasPublished && sample.signalsEqual(lastPublished)) {
+            return;
+        }
+        sample.timestampSeconds = Timer.getFPGATimestamp();
+        publisher.set(sample);
+        lastPublished.set(sample);
+        hasPublished = true;
+        ticksSincePublish = 0;
+        publishCount++;
+    }
+
+    /**
+     * Writes the gains when they were swapped or a new file was started since they were last written. A record the
+     * recorder didn't keep, e.g. while disabled, is retried next tick.
+     */
+    private void recordConfigs(double timestampSeconds) {
+        SimpleMotorConfigs configs = configsHandle.get();
+        int fileCount = recorder.getFileCount();
+        if (configs == recordedConfigs && fileCount == recordedConfigsFileCount) {
+            return;
+        }
+        if (recorder.recordConfigs(
+                configsChannel,
+                timestampSeconds,
+                configs.kS(),
+                configs.kV(),
+                configs.kA(),
+                configs.kP(),
+                configs.kI(),
+                configs.kD())) {
+            recordedConfigs = configs;
+            recordedConfigsFileCount = fileCount;
+        }
+    }
+
+    /**
+     * @return the latest recorded sample, whether or not it was published
+     */
+    public MechanismSample getSample() {
+        return sample;
+    }
+
+    public long getPublishCount() {
+        return publishCount;
+    }
+
+    /**
+     * @return size of one published sample in bytes
+     */
+    public int getSampleSizeBytes() {
+        return MechanismSample.struct.getSize();
+    }
+}
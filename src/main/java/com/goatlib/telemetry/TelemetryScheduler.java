@@ -0,0 +1,161 @@
+package com.goatlib.telemetry;
+
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shares a bytes-per-second budget between registered {@link MechanismTelemetry} topics.
+ * <p>
+ * Every topic is first given its idle (trickle) rate. What is left of the budget is handed out in priority order to
+ * topics whose mechanism is moving, up to their full rate. A topic counts as moving when the magnitude of its
+ * velocity or control loop output is above its thresholds. The bandwidth actually used is measured from the number
+ * of samples each topic published since the last update.
+ */
+public class TelemetryScheduler implements Sendable {
+
+    // NetworkTables adds a topic id, timestamp and type header to every value
+    private static final int MESSAGE_OVERHEAD_BYTES = 16;
+
+    private record Registration(
+            MechanismTelemetry telemetry,
+            int priority,
+            double fullRatePeriodSeconds,
+            double idlePeriodSeconds,
+            double velocityThreshold,
+            double outputThresholdVolts) {
+    }
+
+    private final double budgetBytesPerSecond;
+    private final List<Registration> registrations = new ArrayList<>();
+    private MechanismTelemetry[] telemetries = new MechanismTelemetry[0];
+    private double[] fullRatePeriods = new double[0];
+    private double[] idlePeriods = new double[0];
+    private double[] velocityThresholds = new double[0];
+    private double[] outputThresholds = new double[0];
+    private long[] lastPublishCounts = new long[0];
+    private double lastUpdateSeconds = Double.NaN;
+    private double usedBytesPerSecond = 0.0;
+    private double allocatedBytesPerSecond = 0.0;
+
+    public TelemetryScheduler(double budgetBytesPerSecond) {
+        this.budgetBytesPerSecond = budgetBytesPerSecond;
+    }
+
+    /**
+     * Registers a telemetry topic. Call during construction only, registration allocates.
+     *
+     * @param telemetry             topic to schedule
+     * @param priority              higher priorities get their full rate first
+     * @param fullRatePeriodSeconds publish period while the mechanism is moving
+     * @param idlePeriodSeconds     publish period while the mechanism is idle
+     * @param velocityThreshold     velocity magnitude above which the mechanism is moving
+     * @param outputThresholdVolts  control loop output magnitude above which the mechanism is moving
+     */
+    public void register(
+            MechanismTelemetry telemetry,
+            int priority,
+            double fullRatePeriodSeconds,
+            double idlePeriodSeconds,
+            double velocityThreshold,
+            double outputThresholdVolts) {
+        registrations.add(new Registration(
+                telemetry,
+                priority,
+                fullRatePeriodSeconds,
+                idlePeriodSeconds,
+                velocityThreshold,
+                outputThresholdVolts));
+        // the sort is stable, so topics of equal priority are served in registration order
+        registrations.sort(Comparator.comparingInt(Registration::priority).reversed());
+        int count = registrations.size();
+        telemetries = new MechanismTelemetry[count];
+        fullRatePeriods = new double[count];
+        idlePeriods = new double[count];
+        velocityThresholds = new double[count];
+        outputThresholds = new double[count];
+        lastPublishCounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            Registration registration = registrations.get(i);
+            telemetries[i] = registration.telemetry();
+            fullRatePeriods[i] = registration.fullRatePeriodSeconds();
+            idlePeriods[i] = registration.idlePeriodSeconds();
+            velocityThresholds[i] = registration.velocityThreshold();
+            outputThresholds[i] = registration.outputThresholdVolts();
+            lastPublishCounts[i] = registration.telemetry().getPublishCount();
+        }
+        telemetry.setPublishPeriodSeconds(idlePeriodSeconds);
+    }
+
+    public void update() {
+        double now = Timer.getFPGATimestamp();
+        long publishedBytes = 0;
+        for (int i = 0; i < telemetries.length; i++) {
+            long publishCount = telemetries[i].getPublishCount();
+            publishedBytes += (publishCount - lastPublishCounts[i]) * messageBytes(telemetries[i]);
+            lastPublishCounts[i] = publishCount;
+        }
+        if (!Double.isNaN(lastUpdateSeconds) && now > lastUpdateSeconds) {
+            usedBytesPerSecond = publishedBytes / (now - lastUpdateSeconds);
+        }
+        lastUpdateSeconds = now;
+
+        double remainingBytesPerSecond = budgetBytesPerSecond;
+        for (int i = 0; i < telemetries.length; i++) {
+            remainingBytesPerSecond -= messageBytes(telemetries[i]) / idlePeriods[i];
+        }
+        for (int i = 0; i < telemetries.length; i++) {
+            MechanismTelemetry telemetry = telemetries[i];
+            MechanismSample sample = telemetry.getSample();
+            boolean moving = Math.abs(sample.velocity) > velocityThresholds[i]
+                    || Math.abs(sample.output) > outputThresholds[i];
+            double period = idlePeriods[i];
+            if (moving && remainingBytesPerSecond > 0.0) {
+                int bytes = messageBytes(telemetry);
+                double idleBytesPerSecond = bytes / idlePeriods[i];
+                double wantedBytesPerSecond = bytes / fullRatePeriods[i] - idleBytesPerSecond;
+                double grantedBytesPerSecond = Math.min(wantedBytesPerSecond, remainingBytesPerSecond);
+                remainingBytesPerSecond -= grantedBytesPerSecond;
+                period = bytes / (idleBytesPerSecond + grantedBytesPerSecond);
+            }
+            telemetry.setPublishPeriodSeconds(period);
+        }
+        allocatedBytesPerSecond = budgetBytesPerSecond - remainingBytesPerSecond;
+    }
+
+    public double getBudgetBytesPerSecond() {
+        return budgetBytesPerSecond;
+    }
+
+    public double getAllocatedBytesPerSecond() {
+        return allocatedBytesPerSecond;
+    }
+
+    public double getUsedBytesPerSecond() {
+        return usedBytesPerSecond;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.addDoubleProperty(
+                "Budget (bytes per second)",
+                this::getBudgetBytesPerSecond,
+                null);
+        builder.addDoubleProperty(
+                "Allocated (bytes per second)",
+                this::getAllocatedBytesPerSecond,
+                null);
+        builder.addDoubleProperty(
+                "Used (bytes per second)",
+                this::getUsedBytesPerSecond,
+                null);
+    }
+
+    private static int messageBytes(MechanismTelemetry telemetry) {
+        return telemetry.getSampleSizeBytes() + MESSAGE_OVERHEAD_BYTES;
+    }
+}
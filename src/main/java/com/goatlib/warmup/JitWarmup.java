@@ -0,0 +1,119 @@
+package com.goatlib.warmup;
+
+import edu.wpi.first.util.sendable.Sendable;
+import edu.wpi.first.util.sendable.SendableBuilder;
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs control code on synthetic inputs while the robot is disabled, so the JIT has compiled it before the first
+ * enable instead of interpreting it for the first seconds of auto.
+ * <p>
+ * Tasks must run on their own instances, never on the loops, profiles or motors the robot is using, because warm-up
+ * leaves them in whatever state the synthetic inputs drove them to. Each {@link #update()} runs the tasks round-robin
+ * for the update budget. Warm-up is done once every task has run at least the minimum ticks and the JVM's total
+ * compilation time has stopped growing for a few updates, after which updates do nothing. HotSpot doesn't report
+ * which methods are compiled, so a quiet compiler is the signal that the hot paths have settled.
+ */
+public class JitWarmup implements Sendable {
+
+    private final JitWarmupConfigs jitWarmupConfigs;
+    private final long updateBudgetNanos;
+    private final CompilationMXBean compilationMXBean;
+    private final List<String> names = new ArrayList<>();
+    private final List<Runnable> taskList = new ArrayList<>();
+    private final SyntheticWave wave = new SyntheticWave(1.0);
+    private Runnable[] tasks = new Runnable[0];
+    private long ticks = 0;
+    private long lastCompilationMillis = -1;
+    private int quietUpdates = 0;
+    private double elapsedSeconds = 0.0;
+    private boolean done = false;
+
+    public JitWarmup(JitWarmupConfigs jitWarmupConfigs) {
+        this.jitWarmupConfigs = jitWarmupConfigs;
+        this.updateBudgetNanos = (long) (jitWarmupConfigs.updateBudgetSeconds() * 1e9);
+        CompilationMXBean compilationMXBean = ManagementFactory.getCompilationMXBean();
+        this.compilationMXBean = compilationMXBean != null && compilationMXBean.isCompilationTimeMonitoringSupported()
+                ? compilationMXBean
+                : null;
+    }
+
+    /**
+     * Adds a task that runs one synthetic tick.
+     *
+     * @param name shown on the dashboard
+     * @param tick must not touch real motors or any state the robot uses
+     */
+    public void add(String name, Runnable tick) {
+        names.add(name);
+        taskList.add(tick);
+        tasks = taskList.toArray(new Runnable[0]);
+    }
+
+    /**
+     * Runs the tasks for the update budget. Call from disabledPeriodic.
+     */
+    public void update() {
+        if (done || tasks.length == 0) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        do {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            ticks++;
+        } while (System.nanoTime() - startNanos < updateBudgetNanos);
+        elapsedSeconds += (System.nanoTime() - startNanos) * 1e-9;
+
+        if (compilationMXBean != null) {
+            long compilationMillis = compilationMXBean.getTotalCompilationTime();
+            quietUpdates = compilationMillis == lastCompilationMillis ? quietUpdates + 1 : 0;
+            lastCompilationMillis = compilationMillis;
+        } else {
+            quietUpdates++;
+        }
+        if (ticks >= jitWarmupConfigs.minTicks() && quietUpdates >= jitWarmupConfigs.quietUpdates()) {
+            done = true;
+            DriverStation.reportWarning(
+                    String.format("JIT warm-up done: %d ticks of %s in %.1f s", ticks, names, elapsedSeconds),
+                    false);
+        }
+    }
+
+    /**
+     * Returns a value between -1 and 1 that changes every call, for tasks to build synthetic inputs from.
+     */
+    public double nextWave() {
+        return wave.next();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public void initSendable(SendableBuilder builder) {
+        builder.addBooleanProperty(
+                "Done",
+                this::isDone,
+                null);
+        builder.addIntegerProperty(
+                "Ticks",
+                this::getTicks,
+                null);
+        builder.addDoubleProperty(
+                "Time Spent (s)",
+                () -> elapsedSeconds,
+                null);
+    }
+}
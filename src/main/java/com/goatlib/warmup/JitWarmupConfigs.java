@@ -0,0 +1,13 @@
+package com.goatlib.warmup;
+
+/**
+ * @param minTicks            ticks every registered task runs before warm-up can finish, well past the JIT's
+ *                            compile thresholds
+ * @param updateBudgetSeconds time each {@link JitWarmup#update()} spends running tasks
+ * @param quietUpdates        updates in a row without new compilation before warm-up counts as done
+ */
+public record JitWarmupConfigs(
+        int minTicks,
+        double updateBudgetSeconds,
+        int quietUpdates) {
+}
@@ -0,0 +1,32 @@
+package com.goatlib.warmup;
+
+/**
+ * A sine wave sampled at a fixed number of points, stepped one point per call. Warm-up tasks, benchmarks and
+ * allocation checks build their synthetic inputs from it, so the JIT can't fold the code under test down to one
+ * constant and nothing is allocated per call.
+ */
+public final class SyntheticWave {
+
+    private static final int LENGTH = 64;
+    private static final int MASK = LENGTH - 1;
+
+    private final double[] values = new double[LENGTH];
+    private int index = 0;
+
+    /**
+     * @param amplitude values range over [-amplitude, amplitude]
+     */
+    public SyntheticWave(double amplitude) {
+        for (int i = 0; i < LENGTH; i++) {
+            values[i] = amplitude * Math.sin(2.0 * Math.PI * i / LENGTH);
+        }
+    }
+
+    /**
+     * Returns the next point of the wave.
+     */
+    public double next() {
+        index = (index + 1) & MASK;
+        return values[index];
+    }
+}
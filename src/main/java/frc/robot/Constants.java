@@ -1,15 +1,34 @@
 package frc.robot;
 
 import com.goatlib.configurator.rev.REVEncoderType;
+import com.goatlib.health.HealthMonitorConfigs;
+import com.goatlib.health.JvmEventMonitorConfigs;
+import com.goatlib.interpolation.InterpolatingTable;
+import com.goatlib.interpolation.InterpolationType;
 import com.goatlib.configurator.rev.REVMotorType;
 import com.revrobotics.CANSparkBase;
 import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.util.Units;
 import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.controlLoops.GainScheduleConfigs;
+import com.goatlib.mechanisms.SetpointEvaluatorConfigs;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.mechanisms.flywheels.ShotDetectorConfigs;
+import com.goatlib.motors.rev.FusedEncoderConfigs;
+import com.goatlib.mpc.ExplicitMPCProblem;
+import com.goatlib.power.BusVoltageConfigs;
+import com.goatlib.power.PowerArbiterConfigs;
+import com.goatlib.warmup.JitWarmupConfigs;
+
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 
 public class Constants {
 
     public static class ExampleFlywheel {
+        // loaded at startup, the records below are used if the file is missing or invalid
+        public static String configFile = "mechanisms/example_flywheel.json";
+
         public static SimpleMotorConfigs flywheelConfigs = new SimpleMotorConfigs(
                 "Example-Flywheel",
                 DCMotor.getNeoVortex(1),
@@ -23,7 +42,8 @@ public class Constants {
                 0.001,
                 1.0e-19,
                 0.0,
-                0.0);
+                0.0,
+                100);
 
         public static REVConfigs revConfigs = new REVConfigs(
                 16,
@@ -41,11 +61,65 @@ public class Constants {
                 20,
                 200,
                 200,
-                ExampleFlywheel.flywheelConfigs.gearing()
+                ExampleFlywheel.flywheelConfigs.gearing(),
+                ExampleFlywheel.flywheelConfigs.historyLength()
         );
+        // the example flywheel has a single motor, list followers' configs here to drive it with a motor group
+        public static List<REVConfigs> followerRevConfigs = List.of();
+
+        // gains every 100 rad/s up to free speed and every 2 V of bus voltage
+        public static GainScheduleConfigs gainScheduleConfigs = new GainScheduleConfigs(
+                0.0,
+                700.0,
+                8,
+                7.0,
+                13.0,
+                4);
+        public static double scheduledVelocityToleranceFraction = 0.02;
+        public static double scheduledMinVelocityToleranceRadiansPerSecond = 8.0;
+
+        // a load of 0.5 V is about 500 rad/s^2 of deceleration on the example flywheel
+        public static ShotDetectorConfigs shotDetectorConfigs = new ShotDetectorConfigs(
+                15.0,
+                0.5,
+                2,
+                0.1,
+                6.0,
+                0.1,
+                10.0);
+
+        public static double telemetryPeriodSeconds = 0.02;
+        public static double telemetryIdlePeriodSeconds = 1.0;
+        public static int telemetryPriority = 1;
+
+        // rad/s, about 50 rpm in and 100 rpm out
+        public static SetpointEvaluatorConfigs setpointEvaluatorConfigs = new SetpointEvaluatorConfigs(
+                5.0,
+                10.0,
+                Double.POSITIVE_INFINITY,
+                Double.POSITIVE_INFINITY,
+                0.06);
+
+        // rad/s for the errors, ticks of the 10 ms control loop
+        public static HealthMonitorConfigs healthMonitorConfigs = new HealthMonitorConfigs(
+                10,
+                1.0,
+                20.0,
+                5,
+                100,
+                0.1,
+                50.0,
+                100,
+                0.002,
+                true);
+
+        public static double simulatedShotTorqueNewtonMeters = 0.5;
+        public static double simulatedShotDurationSeconds = 0.04;
     }
 
     public static class ExampleTurret {
+        public static String configFile = "mechanisms/example_turret.json";
+
         public static SimpleMotorConfigs simpleMotorConfigs = new SimpleMotorConfigs(
                 "Example-Turret",
                 DCMotor.getNeoVortex(1),
@@ -59,7 +133,8 @@ public class Constants {
                 0.0001,
                 1.0,
                 0.0,
-                0.0);
+                0.0,
+                100);
 
         public static REVConfigs revConfigs = new REVConfigs(
                 10,
@@ -77,9 +152,179 @@ public class Constants {
                 20,
                 200,
                 200,
-                ExampleTurret.simpleMotorConfigs.gearing()
+                ExampleTurret.simpleMotorConfigs.gearing(),
+                ExampleTurret.simpleMotorConfigs.historyLength()
         );
+
+        // the absolute encoder turns twice per turret turn, so its reading only places the turret if the turret boots
+        // within its +/-90 degree travel; drift is corrected over about 2 s while the turret moves less than 0.005 rad
+        // per 200 ms absolute encoder frame, and readings more than 0.1 rad from the fused position are rejected; five
+        // frames of rejected readings in a row fault the turret
+        public static FusedEncoderConfigs fusedEncoderConfigs = new FusedEncoderConfigs(
+                2.0,
+                0.0,
+                -Math.PI / 2,
+                2.0,
+                0.005,
+                0.1,
+                1.0);
+
+        // gains every 30 degrees across the travel and every 2 V of bus voltage
+        public static GainScheduleConfigs gainScheduleConfigs = new GainScheduleConfigs(
+                -Math.PI / 2,
+                Math.PI / 2,
+                7,
+                7.0,
+                13.0,
+                4);
+        public static double scheduledPositionToleranceRadians = 0.02;
+        public static double scheduledVelocityToleranceRadiansPerSecond = 1.0;
+        // the example turret's load doesn't change across its travel
+        public static DoubleUnaryOperator loadScale = position -> 1.0;
+
+        // regenerate the table with ./gradlew generateTurretMPC after changing the problem or the turret's kV and kA;
+        // off until the MPC has been checked on the real turret
+        public static boolean useExplicitMPC = false;
+        public static String explicitMPCTableFile = "mpc/example_turret_mpc.csv";
+        // 10 ticks of 10 ms ahead, within 10 V and the turret's travel
+        public static ExplicitMPCProblem explicitMPCProblem = new ExplicitMPCProblem(
+                simpleMotorConfigs.kV(),
+                simpleMotorConfigs.kA(),
+                simpleMotorConfigs.controlLoopPeriodSeconds(),
+                10,
+                0.02,
+                10.0,
+                10.0,
+                -Math.PI / 2,
+                Math.PI / 2);
+        public static int explicitMPCPositionSamples = 25;
+        public static int explicitMPCVelocitySamples = 25;
+        public static double explicitMPCMaxSampleVelocityRadiansPerSecond = 600.0;
+        public static int explicitMPCVoltageSamples = 9;
+
+        public static double telemetryPeriodSeconds = 0.02;
+        public static double telemetryIdlePeriodSeconds = 1.0;
+        public static int telemetryPriority = 0;
+
+        // radians and rad/s, about 1 degree in and 2 degrees out
+        public static SetpointEvaluatorConfigs setpointEvaluatorConfigs = new SetpointEvaluatorConfigs(
+                0.0175,
+                0.035,
+                0.2,
+                0.5,
+                0.04);
+
+        // radians for the errors, ticks of the 10 ms control loop
+        public static HealthMonitorConfigs healthMonitorConfigs = new HealthMonitorConfigs(
+                10,
+                1.0,
+                0.1,
+                5,
+                100,
+                0.1,
+                0.2,
+                100,
+                0.002,
+                true);
+    }
+
+    public static class Aiming {
+        public static String flywheelVelocityTableFile = "aiming/flywheel_velocity_rpm.csv";
+        public static InterpolationType flywheelVelocityInterpolation = InterpolationType.CUBIC;
+        public static InterpolatingTable flywheelVelocityFallbackTable = new InterpolatingTable(
+                new double[]{1.0, 6.0},
+                new double[]{3000.0, 3000.0},
+                InterpolationType.LINEAR);
+
+        public static String turretOffsetTableFile = "aiming/turret_offset_degrees.csv";
+        public static InterpolationType turretOffsetInterpolation = InterpolationType.LINEAR;
+        public static InterpolatingTable turretOffsetFallbackTable = new InterpolatingTable(
+                new double[]{1.0, 6.0},
+                new double[]{0.0, 0.0},
+                InterpolationType.LINEAR);
+
+        public static String targetDistanceTopic = "/Aiming/Target Distance (m)";
+        public static String targetBearingTopic = "/Aiming/Target Bearing (degrees)";
+        public static double defaultTargetDistanceMeters = 3.0;
+    }
+
+    public static class Telemetry {
+        public static double budgetBytesPerSecond = 8000.0;
+        public static double schedulerPeriodSeconds = 0.1;
+        public static double schedulerOffsetSeconds = 0.0;
+        public static double movingVelocityThresholdRadiansPerSecond = 0.1;
+        public static double movingOutputThresholdVolts = 0.25;
+    }
+
+    public static class Logging {
+        public static boolean recordSignals = true;
+        // 60 seconds of both mechanisms at 100 Hz before the writer has to catch up
+        public static int signalRecorderCapacity = 12000;
+        // both mechanisms at 100 Hz are about 14 kB/s, so a file holds about 20 minutes enabled and the files 2.5 hours
+        public static long signalRecorderMaxFileBytes = 16L * 1024 * 1024;
+        public static int signalRecorderMaxFiles = 8;
+        public static boolean recordWhileDisabled = false;
+        public static double recordingUpdatePeriodSeconds = 0.02;
+        public static double recordingUpdateOffsetSeconds = 0.0;
     }
+
+    public static class JvmEvents {
+        // overruns wait 50 ms for GC notifications, longer than the update period so JIT windows are in by then
+        public static JvmEventMonitorConfigs jvmEventMonitorConfigs = new JvmEventMonitorConfigs(
+                64,
+                0.005,
+                0.05);
+        public static double updatePeriodSeconds = 0.02;
+        public static double updateOffsetSeconds = 0.0;
+    }
+
+    public static class JitWarmup {
+        // a couple of seconds of disabled time, then half a second without new compilation
+        public static JitWarmupConfigs jitWarmupConfigs = new JitWarmupConfigs(
+                20000,
+                0.005,
+                25);
+    }
+
+    public static class Power {
+        public static double busVoltageSamplePeriodSeconds = 0.01;
+        public static double busVoltageSampleOffsetSeconds = 0.0;
+        // fold the output limit back from 8 V to a quarter of the bus voltage at the 6.75 V brownout; profiles are
+        // sized in 0.5 V steps and only sized up again once the limit is 0.1 V past the next step
+        public static BusVoltageConfigs busVoltageConfigs = new BusVoltageConfigs(
+                6.75,
+                8.0,
+                0.25,
+                0.5,
+                0.1);
+
+        public static PowerArbiterConfigs powerArbiterConfigs = new PowerArbiterConfigs(
+                0.02,
+                8.0,
+                60.0,
+                240.0,
+                5,
+                2.0);
+        public static double powerArbiterPeriodSeconds = 0.02;
+        public static double powerArbiterOffsetSeconds = 0.005;
+
+        public static int flywheelPriority = 0;
+        public static int flywheelMinCurrentLimitAmps = 30;
+        public static int turretPriority = 1;
+        public static int turretMinCurrentLimitAmps = 20;
+    }
+
+    public static class LEDs {
+        public static int port = 0;
+        public static int length = 100;
+        public static double animationPeriodSeconds = 0.02;
+        public static boolean renderOffThread = true;
+        // pixels at the end of the strip that show flywheel spin-up
+        public static int flywheelStatusLength = 20;
+        // one full hue circle every 1.2 s at the animation period, 3 hue steps per frame as before the engine
+        public static int rainbowFrameCount = 60;
+    }
+
     private Constants() {
     }
 }
@@ -24,6 +24,7 @@ public class Robot extends TimedRobot {
 
     @Override
     public void disabledPeriodic() {
+        robotContainer.disabledPeriodic();
     }
 
 
@@ -66,4 +67,10 @@ public class Robot extends TimedRobot {
     }
 
 
+    @Override
+    public void simulationPeriodic() {
+        robotContainer.simulationPeriodic();
+    }
+
+
 }
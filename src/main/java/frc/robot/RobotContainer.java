@@ -5,11 +5,35 @@
 
 package frc.robot;
 
+import com.goatlib.analysis.StartupTracer;
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.configurator.rev.REVConfigs;
+import com.goatlib.configs.MechanismConfigs;
+import com.goatlib.configs.ReloadableMechanismConfigs;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.controlLoops.position.ExplicitMPCPositionControlLoop;
 import com.goatlib.controlLoops.position.SimplePIDPositionControlLoop;
+import com.goatlib.health.JvmEventMonitor;
+import com.goatlib.interpolation.ReloadableInterpolatingTable;
+import com.goatlib.logging.SignalRecorder;
 import com.goatlib.mechanisms.turrets.Turret;
+import com.goatlib.motors.rev.REVFusedMotor;
+import com.goatlib.motors.rev.REVMotorGroup;
 import com.goatlib.motors.rev.REVRelativeMotor;
 import com.goatlib.periodic.PeriodicTask;
+import com.goatlib.power.BusVoltage;
+import com.goatlib.power.PowerArbiter;
+import com.goatlib.telemetry.MechanismTelemetry;
+import com.goatlib.telemetry.TelemetryScheduler;
+import com.goatlib.warmup.JitWarmup;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.networktables.DoubleSubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.simulation.BatterySim;
+import edu.wpi.first.wpilibj.simulation.RoboRioSim;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -17,52 +41,315 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.button.CommandXboxController;
 import com.goatlib.controlLoops.velocity.SimplePIDFVelocityControlLoop;
 import com.goatlib.mechanisms.flywheels.Flywheel;
+import com.goatlib.mechanisms.flywheels.ShotDetector;
+import com.goatlib.motors.Motor;
 import com.goatlib.motors.SimMotor;
+import com.goatlib.motors.SimMotorGroup;
 import frc.robot.subsystems.FlywheelSubsystem;
 import frc.robot.subsystems.LEDSubsystem;
 import frc.robot.subsystems.TurretSubsystem;
 
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
 import static edu.wpi.first.units.Units.Degrees;
 import static edu.wpi.first.units.Units.RPM;
 
 
 public class RobotContainer {
 
+    private final StartupTracer startupTracer = new StartupTracer();
     private final CommandXboxController commandXboxController = new CommandXboxController(0);
     private final FlywheelSubsystem exampleFlywheelSubsystem;
     private final TurretSubsystem exampleTurretSubsystem;
     private final LEDSubsystem exampleLedSubsystem;
+    private final Motor exampleFlywheelMotor;
+    private final Motor exampleTurretMotor;
+    private final ReloadableMechanismConfigs exampleFlywheelConfigs = startupTracer.trace(
+            "Flywheel configs",
+            () -> new ReloadableMechanismConfigs(
+                    Constants.ExampleFlywheel.configFile,
+                    new MechanismConfigs(Constants.ExampleFlywheel.flywheelConfigs, Constants.ExampleFlywheel.revConfigs)));
+    private final ReloadableMechanismConfigs exampleTurretConfigs = startupTracer.trace(
+            "Turret configs",
+            () -> new ReloadableMechanismConfigs(
+                    Constants.ExampleTurret.configFile,
+                    new MechanismConfigs(Constants.ExampleTurret.simpleMotorConfigs, Constants.ExampleTurret.revConfigs)));
+    private final PowerArbiter powerArbiter = new PowerArbiter(Constants.Power.powerArbiterConfigs);
+    private final MechanismTelemetry exampleFlywheelTelemetry = new MechanismTelemetry(
+            exampleFlywheelConfigs.getSimpleMotorConfigs().name(),
+            Constants.ExampleFlywheel.telemetryPeriodSeconds,
+            exampleFlywheelConfigs.getSimpleMotorConfigs().controlLoopPeriodSeconds());
+    private final MechanismTelemetry exampleTurretTelemetry = new MechanismTelemetry(
+            exampleTurretConfigs.getSimpleMotorConfigs().name(),
+            Constants.ExampleTurret.telemetryPeriodSeconds,
+            exampleTurretConfigs.getSimpleMotorConfigs().controlLoopPeriodSeconds());
+    private final JvmEventMonitor jvmEventMonitor = new JvmEventMonitor(
+            Constants.JvmEvents.jvmEventMonitorConfigs);
+    private final JitWarmup jitWarmup = new JitWarmup(Constants.JitWarmup.jitWarmupConfigs);
+    private final SignalRecorder signalRecorder = new SignalRecorder(
+            Constants.Logging.signalRecorderCapacity,
+            Constants.Logging.signalRecorderMaxFileBytes,
+            Constants.Logging.signalRecorderMaxFiles);
+    private final TelemetryScheduler telemetryScheduler = new TelemetryScheduler(Constants.Telemetry.budgetBytesPerSecond);
     private final SendableChooser<Command> autoChooser = new SendableChooser<>();
+    private boolean jitWarmupTasksAdded = false;
+    private final ReloadableInterpolatingTable flywheelVelocityTable = startupTracer.trace(
+            "Flywheel velocity table",
+            () -> new ReloadableInterpolatingTable(
+                    Constants.Aiming.flywheelVelocityTableFile,
+                    Constants.Aiming.flywheelVelocityInterpolation,
+                    Constants.Aiming.flywheelVelocityFallbackTable));
+    private final ReloadableInterpolatingTable turretOffsetTable = startupTracer.trace(
+            "Turret offset table",
+            () -> new ReloadableInterpolatingTable(
+                    Constants.Aiming.turretOffsetTableFile,
+                    Constants.Aiming.turretOffsetInterpolation,
+                    Constants.Aiming.turretOffsetFallbackTable));
+    private final DoubleSubscriber targetDistanceSubscriber = NetworkTableInstance.getDefault()
+            .getDoubleTopic(Constants.Aiming.targetDistanceTopic)
+            .subscribe(Constants.Aiming.defaultTargetDistanceMeters);
+    private final DoubleSubscriber targetBearingSubscriber = NetworkTableInstance.getDefault()
+            .getDoubleTopic(Constants.Aiming.targetBearingTopic)
+            .subscribe(0.0);
 
     public RobotContainer(PeriodicTask addPeriodic) {
-        exampleFlywheelSubsystem = new FlywheelSubsystem(
-                new Flywheel(
-                        RobotBase.isReal()
-                                ? new REVRelativeMotor(Constants.ExampleFlywheel.revConfigs)
-                                : new SimMotor(Constants.ExampleFlywheel.flywheelConfigs),
-                        new SimplePIDFVelocityControlLoop(Constants.ExampleFlywheel.flywheelConfigs)),
-                Constants.ExampleFlywheel.flywheelConfigs,
-                addPeriodic);
-        exampleTurretSubsystem = new TurretSubsystem(
-                new Turret(
-                        RobotBase.isReal()
-                                ? new REVRelativeMotor(Constants.ExampleTurret.revConfigs)
-                                : new SimMotor(Constants.ExampleTurret.simpleMotorConfigs),
-                        SimplePIDPositionControlLoop.createWithTrapezoidProfile(
-                                Constants.ExampleTurret.simpleMotorConfigs,
-                                -Math.PI / 2,
-                                Math.PI / 2)),
-                Constants.ExampleFlywheel.flywheelConfigs,
-                addPeriodic);
-        exampleLedSubsystem = new LEDSubsystem();
-        SmartDashboard.putData("Example Flywheel", exampleFlywheelSubsystem);
-        SmartDashboard.putData("Example Turret", exampleTurretSubsystem);
-        autoChooser.addOption("NONE", Commands.none());
-        autoChooser.addOption("ExampleFlywheelSysIdQuasiForward", exampleFlywheelSubsystem.sysIdQuasistaticForward());
-        autoChooser.addOption("ExampleFlywheelSysIdQuasiReverse", exampleFlywheelSubsystem.sysIdQuasistaticReverse());
-        autoChooser.addOption("ExampleFlywheelSysIdDynamicForward", exampleFlywheelSubsystem.sysIdDynamicForward());
-        autoChooser.addOption("ExampleFlywheelSysIdDynamicReverse", exampleFlywheelSubsystem.sysIdDynamicReverse());
-        configureBindings();
+        BusVoltage.configure(Constants.Power.busVoltageConfigs);
+        addPeriodic.accept(
+                BusVoltage::update,
+                Constants.Power.busVoltageSamplePeriodSeconds,
+                Constants.Power.busVoltageSampleOffsetSeconds);
+        exampleFlywheelMotor = startupTracer.trace(
+                "Flywheel motor",
+                () -> createExampleFlywheelMotor(exampleFlywheelConfigs));
+        exampleFlywheelSubsystem = startupTracer.trace(
+                "Flywheel subsystem",
+                () -> new FlywheelSubsystem(
+                        createExampleFlywheel(exampleFlywheelMotor, exampleFlywheelConfigs.getSimpleMotorConfigsHandle()),
+                        exampleFlywheelConfigs.getSimpleMotorConfigs(),
+                        Constants.ExampleFlywheel.setpointEvaluatorConfigs,
+                        Constants.ExampleFlywheel.healthMonitorConfigs,
+                        exampleFlywheelTelemetry,
+                        addPeriodic));
+        exampleTurretMotor = startupTracer.trace(
+                "Turret motor",
+                () -> RobotBase.isReal()
+                        ? new REVFusedMotor(
+                                exampleTurretConfigs.getRevConfigs(),
+                                Constants.ExampleTurret.fusedEncoderConfigs)
+                        : new SimMotor(exampleTurretConfigs.getSimpleMotorConfigs()));
+        exampleTurretSubsystem = startupTracer.trace(
+                "Turret subsystem",
+                () -> new TurretSubsystem(
+                        createExampleTurret(exampleTurretMotor, exampleTurretConfigs.getSimpleMotorConfigsHandle()),
+                        exampleTurretConfigs.getSimpleMotorConfigs(),
+                        Constants.ExampleTurret.setpointEvaluatorConfigs,
+                        Constants.ExampleTurret.healthMonitorConfigs,
+                        exampleTurretTelemetry,
+                        addPeriodic));
+        startupTracer.run("JVM event monitor", () -> {
+            exampleFlywheelSubsystem.setJvmEventMonitor(jvmEventMonitor);
+            exampleTurretSubsystem.setJvmEventMonitor(jvmEventMonitor);
+            jvmEventMonitor.start();
+            addPeriodic.accept(
+                    jvmEventMonitor::update,
+                    Constants.JvmEvents.updatePeriodSeconds,
+                    Constants.JvmEvents.updateOffsetSeconds);
+            SmartDashboard.putData("JVM Events", jvmEventMonitor);
+        });
+        SmartDashboard.putData("JIT Warm-up", jitWarmup);
+        exampleLedSubsystem = startupTracer.trace(
+                "LEDs",
+                () -> new LEDSubsystem(exampleFlywheelSubsystem.getSnapshot()));
+        startupTracer.run("Power arbiter", () -> {
+            powerArbiter.register(
+                    exampleFlywheelMotor,
+                    Constants.Power.flywheelPriority,
+                    Constants.Power.flywheelMinCurrentLimitAmps,
+                    // a motor group's limit is for all of its motors
+                    exampleFlywheelConfigs.getRevConfigs().smartCurrentLimit()
+                            * (Constants.ExampleFlywheel.followerRevConfigs.size() + 1));
+            powerArbiter.register(
+                    exampleTurretMotor,
+                    Constants.Power.turretPriority,
+                    Constants.Power.turretMinCurrentLimitAmps,
+                    exampleTurretConfigs.getRevConfigs().smartCurrentLimit());
+            addPeriodic.accept(
+                    powerArbiter::update,
+                    Constants.Power.powerArbiterPeriodSeconds,
+                    Constants.Power.powerArbiterOffsetSeconds);
+            SmartDashboard.putData("Power Arbiter", powerArbiter);
+        });
+        startupTracer.run("Telemetry", () -> {
+            telemetryScheduler.register(
+                    exampleFlywheelTelemetry,
+                    Constants.ExampleFlywheel.telemetryPriority,
+                    Constants.ExampleFlywheel.telemetryPeriodSeconds,
+                    Constants.ExampleFlywheel.telemetryIdlePeriodSeconds,
+                    Constants.Telemetry.movingVelocityThresholdRadiansPerSecond,
+                    Constants.Telemetry.movingOutputThresholdVolts);
+            telemetryScheduler.register(
+                    exampleTurretTelemetry,
+                    Constants.ExampleTurret.telemetryPriority,
+                    Constants.ExampleTurret.telemetryPeriodSeconds,
+                    Constants.ExampleTurret.telemetryIdlePeriodSeconds,
+                    Constants.Telemetry.movingVelocityThresholdRadiansPerSecond,
+                    Constants.Telemetry.movingOutputThresholdVolts);
+            addPeriodic.accept(
+                    telemetryScheduler::update,
+                    Constants.Telemetry.schedulerPeriodSeconds,
+                    Constants.Telemetry.schedulerOffsetSeconds);
+            SmartDashboard.putData("Telemetry Scheduler", telemetryScheduler);
+        });
+        if (Constants.Logging.recordSignals) {
+            startupTracer.run("Signal recorder", () -> {
+                exampleFlywheelTelemetry.setRecorder(
+                        signalRecorder,
+                        exampleFlywheelConfigs.getSimpleMotorConfigsHandle());
+                exampleTurretTelemetry.setRecorder(
+                        signalRecorder,
+                        exampleTurretConfigs.getSimpleMotorConfigsHandle());
+                addPeriodic.accept(
+                        () -> signalRecorder.setRecording(
+                                Constants.Logging.recordWhileDisabled || DriverStation.isEnabled()),
+                        Constants.Logging.recordingUpdatePeriodSeconds,
+                        Constants.Logging.recordingUpdateOffsetSeconds);
+                signalRecorder.start(Path.of(
+                        DataLogManager.getLogDir(),
+                        String.format("goatlib_%d.bin", System.currentTimeMillis())));
+            });
+        }
+        startupTracer.run("Config watchers", () -> {
+            exampleFlywheelConfigs.startWatching();
+            exampleTurretConfigs.startWatching();
+        });
+        startupTracer.run("Dashboard", () -> {
+            SmartDashboard.putData("Example Flywheel Configs", exampleFlywheelConfigs);
+            SmartDashboard.putData("Example Turret Configs", exampleTurretConfigs);
+            SmartDashboard.putData("Example Flywheel", exampleFlywheelSubsystem);
+            SmartDashboard.putData("Example Turret", exampleTurretSubsystem);
+            // diagnostic commands are only built when pressed
+            SmartDashboard.putData(
+                    "Reload Aiming Tables",
+                    createDiagnosticCommand("Reload", () -> Commands.runOnce(() -> {
+                        flywheelVelocityTable.reloadAsync();
+                        turretOffsetTable.reloadAsync();
+                    })));
+            SmartDashboard.putData(
+                    "Reload Mechanism Configs",
+                    createDiagnosticCommand("Reload", () -> Commands.runOnce(() -> {
+                        exampleFlywheelConfigs.reloadAsync();
+                        exampleTurretConfigs.reloadAsync();
+                    })));
+            SmartDashboard.putData(
+                    "Reset Health",
+                    createDiagnosticCommand("Reset", () -> Commands.parallel(
+                            exampleFlywheelSubsystem.createResetHealthCommand(),
+                            exampleTurretSubsystem.createResetHealthCommand())));
+        });
+        startupTracer.run("Autos", () -> {
+            // the SysId options build their routines when they first run
+            autoChooser.addOption("NONE", Commands.none());
+            autoChooser.addOption("ExampleFlywheelSysIdQuasiForward", exampleFlywheelSubsystem.sysIdQuasistaticForward());
+            autoChooser.addOption("ExampleFlywheelSysIdQuasiReverse", exampleFlywheelSubsystem.sysIdQuasistaticReverse());
+            autoChooser.addOption("ExampleFlywheelSysIdDynamicForward", exampleFlywheelSubsystem.sysIdDynamicForward());
+            autoChooser.addOption("ExampleFlywheelSysIdDynamicReverse", exampleFlywheelSubsystem.sysIdDynamicReverse());
+        });
+        startupTracer.run("Bindings", this::configureBindings);
+        startupTracer.finish();
+    }
+
+
+    /**
+     * Returns a dashboard command that builds the command it runs each time it is pressed instead of at startup.
+     */
+    private static Command createDiagnosticCommand(String name, Supplier<Command> commandFactory) {
+        return Commands.defer(commandFactory, Set.of())
+                .ignoringDisable(true)
+                .withName(name);
+    }
+
+
+    /**
+     * Builds the example flywheel around a motor. Shared with {@code ReplayMain} so replay runs the same control
+     * stack as the robot.
+     */
+    static Flywheel createExampleFlywheel(Motor motor, ConfigHandle<SimpleMotorConfigs> flywheelConfigs) {
+        return new Flywheel(
+                motor,
+                new SimplePIDFVelocityControlLoop(flywheelConfigs),
+                new ShotDetector(
+                        flywheelConfigs,
+                        Constants.ExampleFlywheel.shotDetectorConfigs));
+    }
+
+    /**
+     * Creates the example flywheel's motor, as a motor group when it has followers.
+     */
+    private static Motor createExampleFlywheelMotor(ReloadableMechanismConfigs flywheelConfigs) {
+        List<REVConfigs> followerRevConfigs = Constants.ExampleFlywheel.followerRevConfigs;
+        if (RobotBase.isReal()) {
+            return followerRevConfigs.isEmpty()
+                    ? new REVRelativeMotor(flywheelConfigs.getRevConfigs())
+                    : new REVMotorGroup(flywheelConfigs.getRevConfigs(), followerRevConfigs);
+        }
+        return followerRevConfigs.isEmpty()
+                ? new SimMotor(flywheelConfigs.getSimpleMotorConfigs())
+                : new SimMotorGroup(flywheelConfigs.getSimpleMotorConfigs(), followerRevConfigs.size() + 1);
+    }
+
+    /**
+     * Builds the example turret around a motor. Shared with {@code ReplayMain} so replay runs the same control
+     * stack as the robot.
+     */
+    static Turret createExampleTurret(Motor motor, ConfigHandle<SimpleMotorConfigs> turretConfigs) {
+        if (!Constants.ExampleTurret.useExplicitMPC) {
+            return new Turret(motor, SimplePIDPositionControlLoop.createWithTrapezoidProfile(
+                    turretConfigs,
+                    -Math.PI / 2,
+                    Math.PI / 2));
+        }
+        // the fallback stops at the same soft limits the table was solved for instead of wrapping
+        return new Turret(
+                motor,
+                ExplicitMPCPositionControlLoop.fromDeployFile(
+                        Constants.ExampleTurret.explicitMPCTableFile,
+                        turretConfigs,
+                        SimplePIDPositionControlLoop.createWithTrapezoidProfile(turretConfigs),
+                        Constants.ExampleTurret.explicitMPCProblem.minPosition(),
+                        Constants.ExampleTurret.explicitMPCProblem.maxPosition()));
+    }
+
+
+    /**
+     * Warms up shadow copies of the example subsystems, the real motors and control loops are never touched. The
+     * copies are built on the first disabled tick instead of at startup.
+     */
+    private void addJitWarmupTasks() {
+        SimpleMotorConfigs flywheelConfigs = exampleFlywheelConfigs.getSimpleMotorConfigs();
+        jitWarmup.add(
+                flywheelConfigs.name(),
+                ShadowMechanisms.createFlywheel(
+                        exampleFlywheelConfigs.getSimpleMotorConfigsHandle(),
+                        Constants.ExampleFlywheel.setpointEvaluatorConfigs,
+                        Constants.ExampleFlywheel.healthMonitorConfigs,
+                        MechanismTelemetry.unpublished(
+                                flywheelConfigs.name(),
+                                flywheelConfigs.controlLoopPeriodSeconds()),
+                        jitWarmup::nextWave).tick());
+        SimpleMotorConfigs turretConfigs = exampleTurretConfigs.getSimpleMotorConfigs();
+        jitWarmup.add(
+                turretConfigs.name(),
+                ShadowMechanisms.createTurret(
+                        exampleTurretConfigs.getSimpleMotorConfigsHandle(),
+                        Constants.ExampleTurret.setpointEvaluatorConfigs,
+                        Constants.ExampleTurret.healthMonitorConfigs,
+                        MechanismTelemetry.unpublished(
+                                turretConfigs.name(),
+                                turretConfigs.controlLoopPeriodSeconds()),
+                        jitWarmup::nextWave).tick());
     }
 
 
@@ -79,6 +366,40 @@ public class RobotContainer {
                 exampleTurretSubsystem.createSetPositionCommand(Degrees.of(0.0)));
         commandXboxController.x().onFalse(
                 exampleTurretSubsystem.createHoldCommand());
+        commandXboxController.y().whileTrue(
+                Commands.parallel(
+                        exampleFlywheelSubsystem.createTrackVelocityCommand(
+                                () -> Units.rotationsPerMinuteToRadiansPerSecond(
+                                        flywheelVelocityTable.get(targetDistanceSubscriber.get()))),
+                        exampleTurretSubsystem.createTrackPositionCommand(
+                                () -> Math.toRadians(targetBearingSubscriber.get()
+                                        + turretOffsetTable.get(targetDistanceSubscriber.get())))));
+        commandXboxController.y().onFalse(
+                Commands.parallel(
+                                exampleFlywheelSubsystem.createSetVelocityCommand(RPM.of(0.0)),
+                                exampleTurretSubsystem.createHoldCommand())
+                        .withName("STOP"));
+        if (exampleFlywheelMotor instanceof SimMotor simMotor) {
+            commandXboxController.rightBumper().onTrue(
+                    Commands.runOnce(() -> simMotor.applyLoadTorque(
+                                    Constants.ExampleFlywheel.simulatedShotTorqueNewtonMeters,
+                                    Constants.ExampleFlywheel.simulatedShotDurationSeconds))
+                            .withName("simulated shot"));
+        }
+    }
+
+
+    public void disabledPeriodic() {
+        if (!jitWarmupTasksAdded) {
+            addJitWarmupTasks();
+            jitWarmupTasksAdded = true;
+        }
+        jitWarmup.update();
+    }
+
+
+    public void simulationPeriodic() {
+        RoboRioSim.setVInVoltage(BatterySim.calculateDefaultBatteryLoadedVoltage(powerArbiter.getTotalCurrentAmps()));
     }
 
 
@@ -0,0 +1,113 @@
+package frc.robot;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.health.HealthMonitorConfigs;
+import com.goatlib.mechanisms.SetpointEvaluatorConfigs;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motors.MotorInputs;
+import com.goatlib.motors.ReplayMotor;
+import com.goatlib.telemetry.MechanismTelemetry;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.subsystems.FlywheelSubsystem;
+import frc.robot.subsystems.TurretSubsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Second copies of the example subsystems around {@link ReplayMotor}s. A tick feeds the replay motor synthetic
+ * readings and runs the subsystem's periodic callbacks directly, so the same code the robot runs is exercised
+ * without touching a real motor. The copies are unregistered from the command scheduler, so their tracking command is
+ * started by hand and follows a setpoint that moves with the wave, with the synthetic readings lagging a little behind
+ * it so the loops see a nonzero error.
+ */
+final class ShadowMechanisms {
+
+    record Shadow<T extends SubsystemBase>(T subsystem, Runnable tick) {
+    }
+
+    private ShadowMechanisms() {
+    }
+
+    /**
+     * @param wave supplier of values between -1 and 1 that change every call
+     */
+    static Shadow<FlywheelSubsystem> createFlywheel(
+            ConfigHandle<SimpleMotorConfigs> flywheelConfigs,
+            SetpointEvaluatorConfigs setpointEvaluatorConfigs,
+            HealthMonitorConfigs healthMonitorConfigs,
+            MechanismTelemetry telemetry,
+            DoubleSupplier wave) {
+        SimpleMotorConfigs configs = flywheelConfigs.get();
+        ReplayMotor motor = new ReplayMotor(configs.historyLength());
+        List<Runnable> callbackList = new ArrayList<>();
+        FlywheelSubsystem flywheelSubsystem = new FlywheelSubsystem(
+                RobotContainer.createExampleFlywheel(motor, flywheelConfigs),
+                configs,
+                setpointEvaluatorConfigs,
+                healthMonitorConfigs,
+                telemetry,
+                (callback, periodSeconds, offsetSeconds) -> callbackList.add(callback));
+        CommandScheduler.getInstance().unregisterSubsystem(flywheelSubsystem);
+        Runnable[] callbacks = callbackList.toArray(new Runnable[0]);
+        MotorInputs inputs = new MotorInputs();
+        double[] setpoint = new double[1];
+        flywheelSubsystem.createTrackVelocityCommand(() -> setpoint[0]).initialize();
+        double periodSeconds = configs.controlLoopPeriodSeconds();
+        return new Shadow<>(flywheelSubsystem, () -> {
+            double value = wave.getAsDouble();
+            setpoint[0] = 300.0 + 20.0 * value;
+            inputs.timestampSeconds += periodSeconds;
+            inputs.position += inputs.velocity * periodSeconds;
+            inputs.velocity = 300.0 + 18.0 * value;
+            inputs.current = 20.0 + 10.0 * value;
+            inputs.voltage = 6.0 + value;
+            motor.setInputs(inputs);
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        });
+    }
+
+    /**
+     * @param wave supplier of values between -1 and 1 that change every call
+     */
+    static Shadow<TurretSubsystem> createTurret(
+            ConfigHandle<SimpleMotorConfigs> turretConfigs,
+            SetpointEvaluatorConfigs setpointEvaluatorConfigs,
+            HealthMonitorConfigs healthMonitorConfigs,
+            MechanismTelemetry telemetry,
+            DoubleSupplier wave) {
+        SimpleMotorConfigs configs = turretConfigs.get();
+        ReplayMotor motor = new ReplayMotor(configs.historyLength());
+        List<Runnable> callbackList = new ArrayList<>();
+        TurretSubsystem turretSubsystem = new TurretSubsystem(
+                RobotContainer.createExampleTurret(motor, turretConfigs),
+                configs,
+                setpointEvaluatorConfigs,
+                healthMonitorConfigs,
+                telemetry,
+                (callback, periodSeconds, offsetSeconds) -> callbackList.add(callback));
+        CommandScheduler.getInstance().unregisterSubsystem(turretSubsystem);
+        Runnable[] callbacks = callbackList.toArray(new Runnable[0]);
+        MotorInputs inputs = new MotorInputs();
+        double[] setpoint = new double[1];
+        turretSubsystem.createTrackPositionCommand(() -> setpoint[0]).initialize();
+        double periodSeconds = configs.controlLoopPeriodSeconds();
+        return new Shadow<>(turretSubsystem, () -> {
+            double value = wave.getAsDouble();
+            setpoint[0] = 0.5 * value;
+            inputs.timestampSeconds += periodSeconds;
+            inputs.position = 0.45 * value;
+            inputs.velocity = 0.5 * value;
+            inputs.current = 10.0 * value;
+            inputs.voltage = 3.0 * value;
+            motor.setInputs(inputs);
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        });
+    }
+}
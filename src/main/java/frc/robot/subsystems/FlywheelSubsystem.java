@@ -1,8 +1,11 @@
 package frc.robot.subsystems;
 
 
+import com.goatlib.health.HealthMonitor;
+import com.goatlib.health.HealthMonitorConfigs;
+import com.goatlib.health.JvmEventMonitor;
 import com.goatlib.periodic.PeriodicTask;
-import edu.wpi.first.math.MathUtil;
+import com.goatlib.telemetry.MechanismTelemetry;
 import edu.wpi.first.units.*;
 import edu.wpi.first.util.sendable.SendableBuilder;
 import edu.wpi.first.wpilibj2.command.Command;
@@ -11,60 +14,109 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import com.goatlib.mechanisms.flywheels.Flywheel;
+import com.goatlib.mechanisms.MechanismSnapshot;
+import com.goatlib.mechanisms.SetpointEvaluator;
+import com.goatlib.mechanisms.SetpointEvaluatorConfigs;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
 
+import java.util.function.DoubleSupplier;
+
 import static edu.wpi.first.units.Units.*;
 
 public class FlywheelSubsystem extends SubsystemBase {
 
     private final Flywheel flywheel;
+    private final MechanismTelemetry telemetry;
+    private final SetpointEvaluator setpointEvaluator;
+    private final HealthMonitor healthMonitor;
+    private final String name;
+    private final MechanismSnapshot snapshot = new MechanismSnapshot();
     private final MutableMeasure<Velocity<Angle>> velocitySetpoint = MutableMeasure.zero(RadiansPerSecond);
-    private final SysIdRoutine sysIdRoutine;
+    private SysIdRoutine sysIdRoutine = null;
     private boolean sysIdActive = false;
+    private DoubleSupplier trackedVelocity = null;
 
 
     public FlywheelSubsystem(
             Flywheel flywheel,
             SimpleMotorConfigs flywheelConfigs,
+            SetpointEvaluatorConfigs setpointEvaluatorConfigs,
+            HealthMonitorConfigs healthMonitorConfigs,
+            MechanismTelemetry telemetry,
             PeriodicTask addPeriodic) {
         this.flywheel = flywheel;
+        this.telemetry = telemetry;
+        this.setpointEvaluator = new SetpointEvaluator(setpointEvaluatorConfigs, flywheelConfigs.controlLoopPeriodSeconds());
+        this.healthMonitor = new HealthMonitor(healthMonitorConfigs);
+        this.name = flywheelConfigs.name();
 
-        addPeriodic.accept(flywheel::update, flywheelConfigs.updatePeriodSeconds(), flywheelConfigs.updatePeriodOffsetSeconds());
+        addPeriodic.accept(
+                () -> {
+                    long updateStartNanos = System.nanoTime();
+                    flywheel.update();
+                    healthMonitor.recordMotorUpdate(updateStartNanos);
+                },
+                flywheelConfigs.updatePeriodSeconds(),
+                flywheelConfigs.updatePeriodOffsetSeconds());
 
         addPeriodic.accept(
                 () -> {
+                    healthMonitor.startTick();
                     if (!sysIdActive) {
-                        double input = flywheel.velocityControlLoop.getOutput(
+                        if (trackedVelocity != null) {
+                            velocitySetpoint.mut_setMagnitude(trackedVelocity.getAsDouble());
+                        }
+                        boolean safeMode = healthMonitor.isSafeMode();
+                        double input = flywheel.runControlTick(velocitySetpoint.in(RadiansPerSecond), safeMode);
+                        setpointEvaluator.update(
+                                velocitySetpoint.in(RadiansPerSecond) - flywheel.velocity.in(RadiansPerSecond),
+                                0.0);
+                        snapshot.write(
+                                flywheel.position.in(Radians),
+                                flywheel.velocity.in(RadiansPerSecond),
+                                velocitySetpoint.in(RadiansPerSecond),
+                                input,
+                                setpointEvaluator.isAtSetpoint());
+                        telemetry.record(
+                                flywheel.position.in(Radians),
                                 flywheel.velocity.in(RadiansPerSecond),
-                                velocitySetpoint.in(RadiansPerSecond));
-                        flywheel.setInput(input);
+                                flywheel.current.in(Amps),
+                                flywheel.voltage.in(Volts),
+                                velocitySetpoint.in(RadiansPerSecond),
+                                0.0,
+                                input,
+                                safeMode,
+                                true);
+                        healthMonitor.update(
+                                flywheel.velocity.in(RadiansPerSecond),
+                                input,
+                                velocitySetpoint.in(RadiansPerSecond) - flywheel.velocity.in(RadiansPerSecond),
+                                flywheel.isConnected());
+                    } else {
+                        setpointEvaluator.reset();
                     }
                 },
                 flywheelConfigs.controlLoopPeriodSeconds(),
                 flywheelConfigs.controlLoopPeriodOffsetSeconds());
+    }
 
-        sysIdRoutine = new SysIdRoutine(
-                // Empty config defaults to 1 volt/second ramp rate and 7 volt step voltage.
-                new SysIdRoutine.Config(),
-                new SysIdRoutine.Mechanism(
-                        // Tell SysId how to plumb the driving voltage to the motor(s).
-                        (voltage) -> flywheel.setInput(voltage.in(Volts)),
-                        // Tell SysId how to record a frame of data for each motor on the mechanism being
-                        // characterized.
-                        log -> {
-                            // Record a frame for the shooter motor.
-                            log.motor("flywheel")
-                                    .voltage(flywheel.voltage)
-                                    .angularVelocity(flywheel.velocity);
-                        },
-                        // Tell SysId to make generated commands require this subsystem, suffix test state in
-                        // WPILog with this subsystem's name ("shooter")
-                        this,
-                        flywheelConfigs.name()));
+    /**
+     * Returns a trigger that is true while the flywheel is at its current velocity setpoint. The state is worked out
+     * once per control tick, so polling the trigger only reads a boolean.
+     */
+    public Trigger createAtSetpointTrigger() {
+        return new Trigger(setpointEvaluator::isAtSetpoint);
     }
 
-    public Trigger createAtSetpointTrigger(Measure<Velocity<Angle>> setpoint, Measure<Velocity<Angle>> tolerance) {
-        return new Trigger(() -> MathUtil.isNear(setpoint.in(RadiansPerSecond), flywheel.velocity.in(RadiansPerSecond), tolerance.in(RadiansPerSecond)));
+    public boolean isAtSetpoint() {
+        return setpointEvaluator.isAtSetpoint();
+    }
+
+    /**
+     * Returns the flywheel's state from the last control tick, safe to read from other threads.
+     */
+    public MechanismSnapshot getSnapshot() {
+        return snapshot;
     }
 
 
@@ -75,13 +127,56 @@ public class FlywheelSubsystem extends SubsystemBase {
                 .withName(String.format("Velocity set to %s rad/s", velocity.in(RadiansPerSecond)));
     }
 
+    /**
+     * Returns a command that tracks a changing velocity. The supplier is read by the control loop itself every
+     * control tick, so the setpoint is followed at control loop rate with nothing allocated per tick.
+     *
+     * @param velocityRadiansPerSecond supplier of the velocity setpoint in radians per second
+     */
+    public Command createTrackVelocityCommand(DoubleSupplier velocityRadiansPerSecond) {
+        return startEnd(
+                () -> {
+                    sysIdActive = false;
+                    trackedVelocity = velocityRadiansPerSecond;
+                },
+                () -> trackedVelocity = null)
+                .withName("Velocity tracking");
+    }
+
+    /**
+     * Builds the SysId routine on first use, it isn't needed to drive the mechanism.
+     */
+    private SysIdRoutine getSysIdRoutine() {
+        if (sysIdRoutine == null) {
+            sysIdRoutine = new SysIdRoutine(
+                    // Empty config defaults to 1 volt/second ramp rate and 7 volt step voltage.
+                    new SysIdRoutine.Config(),
+                    new SysIdRoutine.Mechanism(
+                            // Tell SysId how to plumb the driving voltage to the motor(s).
+                            (voltage) -> flywheel.setInput(voltage.in(Volts)),
+                            // Tell SysId how to record a frame of data for each motor on the mechanism being
+                            // characterized.
+                            log -> {
+                                // Record a frame for the shooter motor.
+                                log.motor("flywheel")
+                                        .voltage(flywheel.voltage)
+                                        .angularVelocity(flywheel.velocity);
+                            },
+                            // Tell SysId to make generated commands require this subsystem, suffix test state in
+                            // WPILog with this subsystem's name ("shooter")
+                            this,
+                            name));
+        }
+        return sysIdRoutine;
+    }
+
     /**
      * Returns a command that will execute a quasistatic test in the forward direction.
      */
     public Command sysIdQuasistaticForward() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.quasistatic(SysIdRoutine.Direction.kForward))
+                        getSysIdRoutine().quasistatic(SysIdRoutine.Direction.kForward)))
                 .withName("sysIdQuasiForward");
     }
 
@@ -89,9 +184,9 @@ public class FlywheelSubsystem extends SubsystemBase {
      * Returns a command that will execute a quasistatic test in the reverse direction.
      */
     public Command sysIdQuasistaticReverse() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.quasistatic(SysIdRoutine.Direction.kReverse))
+                        getSysIdRoutine().quasistatic(SysIdRoutine.Direction.kReverse)))
                 .withName("sysIdQuasiReverse");
     }
 
@@ -99,9 +194,9 @@ public class FlywheelSubsystem extends SubsystemBase {
      * Returns a command that will execute a dynamic test in the forward direction.
      */
     public Command sysIdDynamicForward() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.dynamic(SysIdRoutine.Direction.kForward))
+                        getSysIdRoutine().dynamic(SysIdRoutine.Direction.kForward)))
                 .withName("sysIdDynamicForward");
     }
 
@@ -109,31 +204,66 @@ public class FlywheelSubsystem extends SubsystemBase {
      * Returns a command that will execute a dynamic test in the reverse direction.
      */
     public Command sysIdDynamicReverse() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.dynamic(SysIdRoutine.Direction.kReverse))
+                        getSysIdRoutine().dynamic(SysIdRoutine.Direction.kReverse)))
                 .withName("sysIdDynamicReverse");
     }
 
+    /**
+     * Returns a command that clears the health checks and leaves safe mode.
+     */
+    public Command createResetHealthCommand() {
+        return Commands.runOnce(healthMonitor::reset)
+                .ignoringDisable(true)
+                .withName("Reset Health");
+    }
+
+    public boolean isSafeMode() {
+        return healthMonitor.isSafeMode();
+    }
+
+    /**
+     * Reports control callback and motor update overruns to the monitor. Call before the monitor is started.
+     */
+    public void setJvmEventMonitor(JvmEventMonitor jvmEventMonitor) {
+        healthMonitor.setJvmEventMonitor(jvmEventMonitor, name);
+    }
+
     @Override
     public void initSendable(SendableBuilder builder) {
+        // per-tick signals are published as one packed struct by the MechanismTelemetry
         super.initSendable(builder);
-        builder.addDoubleProperty(
-                "Velocity (rpm)",
-                () -> flywheel.velocity.in(RPM),
+        builder.addBooleanProperty(
+                "At Setpoint",
+                setpointEvaluator::isAtSetpoint,
+                null);
+        builder.addStringProperty(
+                "Health",
+                () -> healthMonitor.getState().name(),
                 null);
-        builder.addDoubleProperty(
-                "Velocity Setpoint (rpm)",
-                () -> velocitySetpoint.in(RPM),
+        builder.addIntegerProperty(
+                "Health Faults",
+                healthMonitor::getFaults,
                 null);
-        builder.addDoubleProperty(
-                "Voltage (Volts)",
-                () -> flywheel.voltage.in(Volts),
+        builder.addIntegerProperty(
+                "Overruns",
+                healthMonitor::getOverrunCount,
                 null);
-        builder.addDoubleProperty(
-                "Current (Amps)",
-                () -> flywheel.current.in(Amps),
+        builder.addBooleanProperty(
+                "Safe Mode",
+                healthMonitor::isSafeMode,
                 null);
+        if (flywheel.shotDetector != null) {
+            builder.addDoubleProperty(
+                    "Shot Count",
+                    flywheel.shotDetector::getShotCount,
+                    null);
+            builder.addDoubleProperty(
+                    "Last Shot Recovery Time (s)",
+                    flywheel.shotDetector::getLastRecoveryTimeSeconds,
+                    null);
+        }
     }
 }
 
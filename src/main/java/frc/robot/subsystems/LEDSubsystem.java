@@ -1,60 +1,56 @@
 package frc.robot.subsystems;
 
 
-import edu.wpi.first.wpilibj.AddressableLED;
-import edu.wpi.first.wpilibj.AddressableLEDBuffer;
-import edu.wpi.first.wpilibj.simulation.AddressableLEDSim;
+import com.goatlib.leds.LEDEngine;
+import com.goatlib.leds.LEDSegment;
+import com.goatlib.leds.ProgressBarPattern;
+import com.goatlib.leds.RainbowPattern;
+import com.goatlib.leds.SolidPattern;
+import com.goatlib.leds.SwitchPattern;
+import com.goatlib.mechanisms.MechanismSnapshot;
+import edu.wpi.first.wpilibj.util.Color8Bit;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants;
 
 public class LEDSubsystem extends SubsystemBase {
-    private final AddressableLED m_led;
-    private final AddressableLEDBuffer m_ledBuffer;
-    private int m_rainbowFirstPixelHue = 0;
-    private int m_bluePulseBrightness = 128;
-
-    public LEDSubsystem() {
-        m_led = new AddressableLED(0);
-        m_ledBuffer = new AddressableLEDBuffer(100);
-        m_led.setLength(m_ledBuffer.getLength());
-        m_led.setData(m_ledBuffer);
-        m_led.start();
-    }
-
-    private void rainbow() {
-        // For every pixel
-        for (var i = 0; i < m_ledBuffer.getLength(); i++) {
-            // Calculate the hue - hue is easier for rainbows because the color
-            // shape is a circle so only one value needs to precess
-            final var hue = (m_rainbowFirstPixelHue + (i * 180 / m_ledBuffer.getLength())) % 180;
-            // Set the value
-            m_ledBuffer.setHSV(i, hue, 255, 128);
-        }
-        // Increase by to make the rainbow "move"
-        m_rainbowFirstPixelHue += 3;
-        // Check bounds
-        m_rainbowFirstPixelHue %= 180;
-    }
-
-    public void bluePulse() {
-        for (var i = 0; i < m_ledBuffer.getLength(); i++) {
-            // Sets the specified LED to the RGB values for blue
-            m_ledBuffer.setRGB(i, 0, 0, m_bluePulseBrightness);
+    private static final int BASE_LAYER = 0;
+
+    private final LEDEngine m_ledEngine;
+
+    /**
+     * @param flywheelSnapshot flywheel state shown at the end of the strip, read from the render thread
+     */
+    public LEDSubsystem(MechanismSnapshot flywheelSnapshot) {
+        int stripLength = Constants.LEDs.length - Constants.LEDs.flywheelStatusLength;
+        m_ledEngine = new LEDEngine(
+                Constants.LEDs.port,
+                Constants.LEDs.length,
+                Constants.LEDs.animationPeriodSeconds);
+        // moving rainbow along the rest of the strip
+        LEDSegment strip = m_ledEngine.createSegment(0, stripLength, 1);
+        strip.setLayer(
+                BASE_LAYER,
+                new RainbowPattern(stripLength, Constants.LEDs.rainbowFrameCount, 255, 128));
+
+        // orange bar while spinning up, solid green once the flywheel is at speed
+        LEDSegment flywheelStatus = m_ledEngine.createSegment(stripLength, Constants.LEDs.flywheelStatusLength, 1);
+        flywheelStatus.setLayer(
+                BASE_LAYER,
+                new SwitchPattern(
+                        flywheelSnapshot::isAtSetpoint,
+                        new SolidPattern(Constants.LEDs.flywheelStatusLength, new Color8Bit(0, 255, 0)),
+                        new ProgressBarPattern(
+                                Constants.LEDs.flywheelStatusLength,
+                                new Color8Bit(255, 80, 0),
+                                flywheelSnapshot::getVelocityFraction)));
+
+        if (Constants.LEDs.renderOffThread) {
+            m_ledEngine.startRenderThread();
         }
-
-        //increase brightness
-        m_bluePulseBrightness += 5;
-
-        //Check bounds
-        m_bluePulseBrightness %= 255;
-
-        m_led.setData(m_ledBuffer);
-
     }
 
     @Override
     public void periodic() {
-        rainbow();
-        m_led.setData(m_ledBuffer);
+        m_ledEngine.update();
     }
 }
-
@@ -1,11 +1,17 @@
 package frc.robot.subsystems;
 
 
+import com.goatlib.mechanisms.MechanismSnapshot;
+import com.goatlib.mechanisms.SetpointEvaluator;
+import com.goatlib.mechanisms.SetpointEvaluatorConfigs;
 import com.goatlib.mechanisms.SimpleMotorConfigs;
 import com.goatlib.mechanisms.turrets.Turret;
 import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.health.HealthMonitor;
+import com.goatlib.health.HealthMonitorConfigs;
+import com.goatlib.health.JvmEventMonitor;
 import com.goatlib.periodic.PeriodicTask;
-import edu.wpi.first.math.MathUtil;
+import com.goatlib.telemetry.MechanismTelemetry;
 import edu.wpi.first.units.Angle;
 import edu.wpi.first.units.Measure;
 import edu.wpi.first.units.MutableMeasure;
@@ -16,68 +22,122 @@ import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 
+import java.util.function.DoubleSupplier;
+
 import static edu.wpi.first.units.Units.*;
 
 public class TurretSubsystem extends SubsystemBase {
 
     private final Turret turret;
+    private final MechanismTelemetry telemetry;
+    private final SetpointEvaluator setpointEvaluator;
+    private final HealthMonitor healthMonitor;
+    private final String name;
+    private final MechanismSnapshot snapshot = new MechanismSnapshot();
     private final PositionState currentPositionState;
     private final PositionState nextPositionState;
     private final MutableMeasure<Angle> positionSetpoint = MutableMeasure.zero(Radians);
-    private final SysIdRoutine sysIdRoutine;
+    private SysIdRoutine sysIdRoutine = null;
     private boolean sysIdActive = false;
+    private DoubleSupplier trackedPosition = null;
+    private DoubleSupplier trackedVelocity = null;
 
 
     public TurretSubsystem(
             Turret turret,
             SimpleMotorConfigs turretConfigs,
+            SetpointEvaluatorConfigs setpointEvaluatorConfigs,
+            HealthMonitorConfigs healthMonitorConfigs,
+            MechanismTelemetry telemetry,
             PeriodicTask addPeriodic) {
         this.turret = turret;
+        this.telemetry = telemetry;
+        this.setpointEvaluator = new SetpointEvaluator(setpointEvaluatorConfigs, turretConfigs.controlLoopPeriodSeconds());
+        this.healthMonitor = new HealthMonitor(healthMonitorConfigs);
+        this.name = turretConfigs.name();
         this.currentPositionState = new PositionState();
         this.nextPositionState = new PositionState();
 
-        addPeriodic.accept(turret::update, turretConfigs.updatePeriodSeconds(), turretConfigs.updatePeriodOffsetSeconds());
+        addPeriodic.accept(
+                () -> {
+                    long updateStartNanos = System.nanoTime();
+                    turret.update();
+                    healthMonitor.recordMotorUpdate(updateStartNanos);
+                },
+                turretConfigs.updatePeriodSeconds(),
+                turretConfigs.updatePeriodOffsetSeconds());
 
         addPeriodic.accept(
                 () -> {
+                    healthMonitor.startTick();
                     if (!sysIdActive) {
                         currentPositionState.position = turret.position.in(Radians);
                         currentPositionState.velocity = turret.velocity.in(RadiansPerSecond);
-                        nextPositionState.position = positionSetpoint.in(Radians);
-                        nextPositionState.velocity = 0.0;
-                        turret.setInput(
-                                turret.positionControlLoop.getOutput(
-                                        currentPositionState,
-                                        nextPositionState));
+                        if (trackedPosition != null) {
+                            nextPositionState.position = trackedPosition.getAsDouble();
+                            nextPositionState.velocity = trackedVelocity.getAsDouble();
+                        } else {
+                            nextPositionState.position = positionSetpoint.in(Radians);
+                            nextPositionState.velocity = 0.0;
+                        }
+                        boolean safeMode = healthMonitor.isSafeMode();
+                        double input = turret.runControlTick(
+                                currentPositionState,
+                                nextPositionState,
+                                trackedPosition != null,
+                                safeMode);
+                        // keeps the hold the turret switched to once its position became known
+                        positionSetpoint.mut_setMagnitude(nextPositionState.position);
+                        boolean positionKnown = turret.isPositionKnown();
+                        setpointEvaluator.update(
+                                nextPositionState.position - currentPositionState.position,
+                                nextPositionState.velocity - currentPositionState.velocity);
+                        snapshot.write(
+                                currentPositionState.position,
+                                currentPositionState.velocity,
+                                nextPositionState.position,
+                                input,
+                                setpointEvaluator.isAtSetpoint());
+                        telemetry.record(
+                                currentPositionState.position,
+                                currentPositionState.velocity,
+                                turret.current.in(Amps),
+                                turret.voltage.in(Volts),
+                                nextPositionState.position,
+                                nextPositionState.velocity,
+                                input,
+                                safeMode,
+                                positionKnown);
+                        healthMonitor.update(
+                                currentPositionState.position,
+                                input,
+                                positionKnown ? nextPositionState.position - currentPositionState.position : 0.0,
+                                turret.isConnected());
+                    } else {
+                        setpointEvaluator.reset();
                     }
                 },
                 turretConfigs.controlLoopPeriodSeconds(),
                 turretConfigs.controlLoopPeriodOffsetSeconds());
+    }
+
+    /**
+     * Returns a trigger that is true while the turret is at its current position setpoint and moving at the target
+     * velocity. The state is worked out once per control tick, so polling the trigger only reads a boolean.
+     */
+    public Trigger createAtSetpointTrigger() {
+        return new Trigger(setpointEvaluator::isAtSetpoint);
+    }
+
+    public boolean isAtSetpoint() {
+        return setpointEvaluator.isAtSetpoint();
+    }
 
-        sysIdRoutine = new SysIdRoutine(
-                // Empty config defaults to 1 volt/second ramp rate and 7 volt step voltage.
-                new SysIdRoutine.Config(),
-                new SysIdRoutine.Mechanism(
-                        // Tell SysId how to plumb the driving voltage to the motor(s).
-                        (voltage) -> turret.setInput(voltage.in(Volts)),
-                        // Tell SysId how to record a frame of data for each motor on the mechanism being
-                        // characterized.
-                        log -> {
-                            // Record a frame for the shooter motor.
-                            log.motor("turret")
-                                    .voltage(turret.voltage)
-                                    .angularPosition(turret.position)
-                                    .angularVelocity(turret.velocity);
-                        },
-                        // Tell SysId to make generated commands require this subsystem, suffix test state in
-                        // WPILog with this subsystem's name ("shooter")
-                        this,
-                        turretConfigs.name()));
-    }
-
-    public Trigger createAtSetpointTrigger(Measure<Angle> setpoint, Measure<Angle> tolerance) {
-        return new Trigger(() -> MathUtil.isNear(setpoint.in(Radians), turret.position.in(Radians), tolerance.in(Radians)))
-                .and(() -> MathUtil.isNear(0.0, turret.velocity.in(RadiansPerSecond), 0.0));
+    /**
+     * Returns the turret's state from the last control tick, safe to read from other threads.
+     */
+    public MechanismSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public Command createHoldCommand() {
@@ -94,13 +154,71 @@ public class TurretSubsystem extends SubsystemBase {
                 .withName(String.format("position set to %s degrees", position.in(Degrees)));
     }
 
+    /**
+     * Returns a command that tracks a moving target. The suppliers are read by the control loop itself every control
+     * tick, so the target is followed at control loop rate with nothing allocated per tick.
+     *
+     * @param positionRadians          supplier of the target position in radians
+     * @param velocityRadiansPerSecond supplier of the target velocity in radians per second, used as feedforward
+     */
+    public Command createTrackPositionCommand(DoubleSupplier positionRadians, DoubleSupplier velocityRadiansPerSecond) {
+        return startEnd(
+                () -> {
+                    sysIdActive = false;
+                    trackedPosition = positionRadians;
+                    trackedVelocity = velocityRadiansPerSecond;
+                },
+                () -> {
+                    trackedPosition = null;
+                    trackedVelocity = null;
+                })
+                .withName("position tracking");
+    }
+
+    /**
+     * Returns a command that tracks a moving target position with no velocity feedforward.
+     *
+     * @param positionRadians supplier of the target position in radians
+     */
+    public Command createTrackPositionCommand(DoubleSupplier positionRadians) {
+        return createTrackPositionCommand(positionRadians, () -> 0.0);
+    }
+
+    /**
+     * Builds the SysId routine on first use, it isn't needed to drive the mechanism.
+     */
+    private SysIdRoutine getSysIdRoutine() {
+        if (sysIdRoutine == null) {
+            sysIdRoutine = new SysIdRoutine(
+                    // Empty config defaults to 1 volt/second ramp rate and 7 volt step voltage.
+                    new SysIdRoutine.Config(),
+                    new SysIdRoutine.Mechanism(
+                            // Tell SysId how to plumb the driving voltage to the motor(s).
+                            (voltage) -> turret.setInput(voltage.in(Volts)),
+                            // Tell SysId how to record a frame of data for each motor on the mechanism being
+                            // characterized.
+                            log -> {
+                                // Record a frame for the shooter motor.
+                                log.motor("turret")
+                                        .voltage(turret.voltage)
+                                        .angularPosition(turret.position)
+                                        .angularVelocity(turret.velocity);
+                            },
+                            // Tell SysId to make generated commands require this subsystem, suffix test state in
+                            // WPILog with this subsystem's name ("shooter")
+                            this,
+                            name));
+        }
+        return sysIdRoutine;
+    }
+
     /**
      * Returns a command that will execute a quasistatic test in the forward direction.
      */
     public Command sysIdQuasistaticForward() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.quasistatic(SysIdRoutine.Direction.kForward))
+                        getSysIdRoutine().quasistatic(SysIdRoutine.Direction.kForward)))
                 .withName("sysIdQuasiForward");
     }
 
@@ -108,9 +226,9 @@ public class TurretSubsystem extends SubsystemBase {
      * Returns a command that will execute a quasistatic test in the reverse direction.
      */
     public Command sysIdQuasistaticReverse() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.quasistatic(SysIdRoutine.Direction.kReverse))
+                        getSysIdRoutine().quasistatic(SysIdRoutine.Direction.kReverse)))
                 .withName("sysIdQuasiReverse");
     }
 
@@ -118,9 +236,9 @@ public class TurretSubsystem extends SubsystemBase {
      * Returns a command that will execute a dynamic test in the forward direction.
      */
     public Command sysIdDynamicForward() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.dynamic(SysIdRoutine.Direction.kForward))
+                        getSysIdRoutine().dynamic(SysIdRoutine.Direction.kForward)))
                 .withName("sysIdDynamicForward");
     }
 
@@ -128,30 +246,55 @@ public class TurretSubsystem extends SubsystemBase {
      * Returns a command that will execute a dynamic test in the reverse direction.
      */
     public Command sysIdDynamicReverse() {
-        return Commands.sequence(
+        return defer(() -> Commands.sequence(
                         runOnce(() -> sysIdActive = true),
-                        sysIdRoutine.dynamic(SysIdRoutine.Direction.kReverse))
+                        getSysIdRoutine().dynamic(SysIdRoutine.Direction.kReverse)))
                 .withName("sysIdDynamicReverse");
     }
 
+    /**
+     * Returns a command that clears the health checks and leaves safe mode.
+     */
+    public Command createResetHealthCommand() {
+        return Commands.runOnce(healthMonitor::reset)
+                .ignoringDisable(true)
+                .withName("Reset Health");
+    }
+
+    public boolean isSafeMode() {
+        return healthMonitor.isSafeMode();
+    }
+
+    /**
+     * Reports control callback and motor update overruns to the monitor. Call before the monitor is started.
+     */
+    public void setJvmEventMonitor(JvmEventMonitor jvmEventMonitor) {
+        healthMonitor.setJvmEventMonitor(jvmEventMonitor, name);
+    }
+
     @Override
     public void initSendable(SendableBuilder builder) {
+        // per-tick signals are published as one packed struct by the MechanismTelemetry
         super.initSendable(builder);
-        builder.addDoubleProperty(
-                "Position (degrees)",
-                () -> turret.position.in(Degrees),
+        builder.addBooleanProperty(
+                "At Setpoint",
+                setpointEvaluator::isAtSetpoint,
+                null);
+        builder.addStringProperty(
+                "Health",
+                () -> healthMonitor.getState().name(),
                 null);
-        builder.addDoubleProperty(
-                "Position Setpoint (degrees)",
-                () -> positionSetpoint.in(Degrees),
+        builder.addIntegerProperty(
+                "Health Faults",
+                healthMonitor::getFaults,
                 null);
-        builder.addDoubleProperty(
-                "Voltage (Volts)",
-                () -> turret.voltage.in(Volts),
+        builder.addIntegerProperty(
+                "Overruns",
+                healthMonitor::getOverrunCount,
                 null);
-        builder.addDoubleProperty(
-                "Current (Amps)",
-                () -> turret.current.in(Amps),
+        builder.addBooleanProperty(
+                "Safe Mode",
+                healthMonitor::isSafeMode,
                 null);
     }
 }
@@ -0,0 +1,39 @@
+package com.goatlib.analysis;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the bytes the current thread allocates while running a tick callback, using the JVM's per-thread allocation
+ * counter. Reading the counter allocates nothing itself, so a steady-state tick that allocates nothing reads as 0.
+ */
+public final class AllocationProbe {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private AllocationProbe() {
+    }
+
+    public static boolean isSupported() {
+        return THREAD_MX_BEAN.isThreadAllocatedMemorySupported() && THREAD_MX_BEAN.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Runs the tick until it is warmed up, then counts what it allocates over the measured ticks.
+     *
+     * @param tick          one control tick, built before measuring so creating it isn't counted
+     * @param warmupTicks   ticks run first so class loading, lazy initialization and JIT compilation aren't counted
+     * @param measuredTicks ticks to count
+     * @return bytes allocated over the measured ticks
+     */
+    public static long measure(Runnable tick, int warmupTicks, int measuredTicks) {
+        for (int i = 0; i < warmupTicks; i++) {
+            tick.run();
+        }
+        long before = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < measuredTicks; i++) {
+            tick.run();
+        }
+        return THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - before;
+    }
+}
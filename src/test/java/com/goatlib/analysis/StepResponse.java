@@ -0,0 +1,80 @@
+package com.goatlib.analysis;
+
+/**
+ * Collects a mechanism's response to one setpoint step, then works out its {@link StepResponseMetrics}.
+ */
+public class StepResponse {
+
+    private final double[] timestamps;
+    private final double[] values;
+    private final double[] currents;
+    private int count = 0;
+
+    /**
+     * @param capacity maximum number of samples
+     */
+    public StepResponse(int capacity) {
+        timestamps = new double[capacity];
+        values = new double[capacity];
+        currents = new double[capacity];
+    }
+
+    /**
+     * @param timestampSeconds time since the step
+     * @param value            measured position or velocity
+     * @param currentAmps      measured current
+     */
+    public void add(double timestampSeconds, double value, double currentAmps) {
+        if (count == timestamps.length) {
+            throw new IllegalStateException("step response is full");
+        }
+        timestamps[count] = timestampSeconds;
+        values[count] = value;
+        currents[count] = currentAmps;
+        count++;
+    }
+
+    /**
+     * @param initial              value before the step
+     * @param target               setpoint after the step
+     * @param settlingBandFraction half-width of the settling band as a fraction of the step, e.g. 0.02
+     */
+    public StepResponseMetrics analyze(double initial, double target, double settlingBandFraction) {
+        if (count == 0 || target == initial) {
+            throw new IllegalStateException("need samples and a non-zero step");
+        }
+        double step = target - initial;
+        double riseStart = Double.POSITIVE_INFINITY;
+        double riseEnd = Double.POSITIVE_INFINITY;
+        double peakProgress = Double.NEGATIVE_INFINITY;
+        double peakCurrent = 0.0;
+        double settledSince = 0.0;
+        double settlingBand = Math.abs(step) * settlingBandFraction;
+        for (int i = 0; i < count; i++) {
+            // progress is 0 at the initial value and 1 at the target whichever way the step goes
+            double progress = (values[i] - initial) / step;
+            if (progress >= 0.1 && Double.isInfinite(riseStart)) {
+                riseStart = timestamps[i];
+            }
+            if (progress >= 0.9 && Double.isInfinite(riseEnd)) {
+                riseEnd = timestamps[i];
+            }
+            peakProgress = Math.max(peakProgress, progress);
+            peakCurrent = Math.max(peakCurrent, Math.abs(currents[i]));
+            if (Math.abs(values[i] - target) > settlingBand) {
+                settledSince = i + 1 < count ? timestamps[i + 1] : Double.POSITIVE_INFINITY;
+            }
+        }
+        int tailStart = count - Math.max(1, count / 10);
+        double tailError = 0.0;
+        for (int i = tailStart; i < count; i++) {
+            tailError += Math.abs(target - values[i]);
+        }
+        return new StepResponseMetrics(
+                Double.isInfinite(riseEnd) ? Double.POSITIVE_INFINITY : riseEnd - riseStart,
+                Math.max(0.0, peakProgress - 1.0) * 100.0,
+                settledSince,
+                tailError / (count - tailStart),
+                peakCurrent);
+    }
+}
@@ -0,0 +1,77 @@
+package com.goatlib.analysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named baseline {@link StepResponseMetrics}, stored as CSV with one line per case:
+ * <code>name,riseTimeSeconds,overshootPercent,settlingTimeSeconds,steadyStateError,peakCurrentAmps</code>.
+ * Lines starting with # are comments.
+ */
+public class StepResponseBaselines {
+
+    private static final String HEADER =
+            "# name,riseTimeSeconds,overshootPercent,settlingTimeSeconds,steadyStateError,peakCurrentAmps";
+
+    private final Map<String, StepResponseMetrics> baselines = new LinkedHashMap<>();
+
+    /**
+     * @return the baselines in the file, or none if the file doesn't exist yet
+     */
+    public static StepResponseBaselines fromCsv(Path path) throws IOException {
+        StepResponseBaselines stepResponseBaselines = new StepResponseBaselines();
+        if (!Files.exists(path)) {
+            return stepResponseBaselines;
+        }
+        for (String line : Files.readAllLines(path)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split(",");
+            if (fields.length != 6) {
+                throw new IllegalArgumentException("expected 6 fields in baseline line: " + line);
+            }
+            stepResponseBaselines.put(fields[0].trim(), new StepResponseMetrics(
+                    Double.parseDouble(fields[1].trim()),
+                    Double.parseDouble(fields[2].trim()),
+                    Double.parseDouble(fields[3].trim()),
+                    Double.parseDouble(fields[4].trim()),
+                    Double.parseDouble(fields[5].trim())));
+        }
+        return stepResponseBaselines;
+    }
+
+    public StepResponseMetrics get(String name) {
+        return baselines.get(name);
+    }
+
+    public void put(String name, StepResponseMetrics metrics) {
+        baselines.put(name, metrics);
+    }
+
+    public void writeCsv(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (Map.Entry<String, StepResponseMetrics> entry : baselines.entrySet()) {
+            StepResponseMetrics metrics = entry.getValue();
+            lines.add(String.format(
+                    "%s,%s,%s,%s,%s,%s",
+                    entry.getKey(),
+                    metrics.riseTimeSeconds(),
+                    metrics.overshootPercent(),
+                    metrics.settlingTimeSeconds(),
+                    metrics.steadyStateError(),
+                    metrics.peakCurrentAmps()));
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, lines);
+    }
+}
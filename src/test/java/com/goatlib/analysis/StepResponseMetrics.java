@@ -0,0 +1,65 @@
+package com.goatlib.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How a mechanism answered one setpoint step.
+ *
+ * @param riseTimeSeconds      time from 10% to 90% of the step
+ * @param overshootPercent     how far past the target the response peaked, in percent of the step
+ * @param settlingTimeSeconds  time after which the response stays inside the settling band
+ * @param steadyStateError     mean distance from the target over the last tenth of the run
+ * @param peakCurrentAmps      largest current magnitude during the run
+ */
+public record StepResponseMetrics(
+        double riseTimeSeconds,
+        double overshootPercent,
+        double settlingTimeSeconds,
+        double steadyStateError,
+        double peakCurrentAmps) {
+
+    /**
+     * @return whether the response rose through the step and stayed inside the settling band before the run ended
+     */
+    public boolean hasSettled() {
+        return Double.isFinite(riseTimeSeconds) && Double.isFinite(settlingTimeSeconds);
+    }
+
+    /**
+     * Lists the metrics that got worse than a baseline by more than the tolerances allow. Getting better is never a
+     * regression.
+     *
+     * @param baseline   metrics to compare with
+     * @param tolerances allowed slack
+     * @return one line per regressed metric, empty if none
+     */
+    public List<String> findRegressions(StepResponseMetrics baseline, StepResponseTolerances tolerances) {
+        List<String> regressions = new ArrayList<>();
+        check(regressions, "rise time (s)", riseTimeSeconds, baseline.riseTimeSeconds,
+                tolerances.relativeTolerance(), tolerances.riseTimeSeconds());
+        check(regressions, "overshoot (%)", overshootPercent, baseline.overshootPercent,
+                tolerances.relativeTolerance(), tolerances.overshootPercent());
+        check(regressions, "settling time (s)", settlingTimeSeconds, baseline.settlingTimeSeconds,
+                tolerances.relativeTolerance(), tolerances.settlingTimeSeconds());
+        check(regressions, "steady-state error", steadyStateError, baseline.steadyStateError,
+                tolerances.relativeTolerance(), tolerances.steadyStateError());
+        check(regressions, "peak current (A)", peakCurrentAmps, baseline.peakCurrentAmps,
+                tolerances.relativeTolerance(), tolerances.peakCurrentAmps());
+        return regressions;
+    }
+
+    private static void check(
+            List<String> regressions,
+            String name,
+            double value,
+            double baseline,
+            double relativeTolerance,
+            double absoluteTolerance) {
+        // a response that never rises or settles is reported as infinite, which fails against any baseline
+        double limit = baseline + Math.max(Math.abs(baseline) * relativeTolerance, absoluteTolerance);
+        if (!(value <= limit)) {
+            regressions.add(String.format("%s %.6g exceeds baseline %.6g (limit %.6g)", name, value, baseline, limit));
+        }
+    }
+}
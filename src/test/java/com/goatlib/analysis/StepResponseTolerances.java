@@ -0,0 +1,14 @@
+package com.goatlib.analysis;
+
+/**
+ * How much worse than its baseline a step response may get. A metric fails when it exceeds the baseline by more
+ * than the larger of the relative tolerance and its absolute tolerance.
+ */
+public record StepResponseTolerances(
+        double relativeTolerance,
+        double riseTimeSeconds,
+        double overshootPercent,
+        double settlingTimeSeconds,
+        double steadyStateError,
+        double peakCurrentAmps) {
+}
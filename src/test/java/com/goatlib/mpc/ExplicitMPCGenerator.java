@@ -0,0 +1,567 @@
+package com.goatlib.mpc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Solves an {@link ExplicitMPCProblem} offline into an {@link ExplicitMPCTable}.
+ * <p>
+ * The problem is condensed to a QP in the horizon's voltages, parameterised by theta = (position, velocity, last
+ * voltage, reference). A voltage is applied on the tick after it is computed, so the step the plan starts from is
+ * already driven by the last voltage, and the first planned voltage only acts from the step after.
+ * <p>
+ * Instead of exploring regions geometrically, a grid of theta samples is solved one by one with Hildreth's dual
+ * method; each solution's active set gives, through the KKT conditions, an affine law and the polyhedron of theta
+ * where that active set stays optimal. Samples already inside a found region are skipped. States between samples
+ * whose active set was never visited aren't covered, which is what the control loop's fallback is for.
+ * <p>
+ * This runs on the desktop, not the robot, so it lives in the test source set and favours plain arrays over speed.
+ */
+public final class ExplicitMPCGenerator {
+
+    private static final int MAX_HILDRETH_ITERATIONS = 20000;
+    private static final double HILDRETH_TOLERANCE = 1e-12;
+    private static final double ACTIVE_TOLERANCE = 1e-7;
+    private static final double FEASIBILITY_TOLERANCE = 1e-6;
+    private static final double ZERO_ROW_TOLERANCE = 1e-10;
+    // position, velocity, last voltage and reference
+    private static final int PARAMETERS = 4;
+
+    /**
+     * How much of the sampled grid the generated table covers.
+     */
+    public record Result(ExplicitMPCTable table, int samples, int coveredSamples, int infeasibleSamples) {
+    }
+
+    private ExplicitMPCGenerator() {
+    }
+
+    /**
+     * @param positionSamples   grid points across the limits, used for both position and reference
+     * @param velocitySamples   grid points across +/-maxSampleVelocity
+     * @param maxSampleVelocity largest speed sampled
+     * @param voltageSamples    grid points across +/-maxVolts for the last voltage
+     */
+    public static Result generate(
+            ExplicitMPCProblem problem,
+            int positionSamples,
+            int velocitySamples,
+            double maxSampleVelocity,
+            int voltageSamples) {
+        int n = problem.horizon();
+        double alpha = problem.kV() / problem.kA();
+        double a = Math.exp(-alpha * problem.dtSeconds());
+        double[][] stateMatrix = {
+                {1.0, (1.0 - a) / alpha},
+                {0.0, a}};
+        double[] inputVector = {
+                (problem.dtSeconds() - (1.0 - a) / alpha) / problem.kV(),
+                (1.0 - a) / problem.kV()};
+
+        double[][] stateWeight = {
+                {1.0 / (problem.positionTolerance() * problem.positionTolerance()), 0.0},
+                {0.0, 1.0 / (problem.velocityTolerance() * problem.velocityTolerance())}};
+        double inputWeight = 1.0 / (problem.maxVolts() * problem.maxVolts());
+        double[][] terminalWeight = solveRiccati(stateMatrix, inputVector, stateWeight, inputWeight);
+
+        // predicted state k + 2 = phi[k] x0 + psi[k] lastVolts + gamma[k] U, state 1 is already set by lastVolts
+        double[][][] phi = new double[n][][];
+        double[][] psi = new double[n][2];
+        double[][][] gamma = new double[n][2][n];
+        double[][] power = stateMatrix;
+        for (int k = 0; k < n; k++) {
+            psi[k][0] = power[0][0] * inputVector[0] + power[0][1] * inputVector[1];
+            psi[k][1] = power[1][0] * inputVector[0] + power[1][1] * inputVector[1];
+            power = multiply(stateMatrix, power);
+            phi[k] = power;
+            if (k > 0) {
+                double[][] previous = new double[2][];
+                previous[0] = gamma[k - 1][0];
+                previous[1] = gamma[k - 1][1];
+                gamma[k] = multiply(stateMatrix, previous);
+            }
+            gamma[k][0][k] = inputVector[0];
+            gamma[k][1][k] = inputVector[1];
+        }
+
+        // J = 0.5 U^T H U + (F theta)^T U, with the tracking error of each step being M theta + Gamma U
+        double[][] hessian = new double[n][n];
+        double[][] linear = new double[n][PARAMETERS];
+        for (int k = 0; k < n; k++) {
+            double[][] weight = k == n - 1 ? terminalWeight : stateWeight;
+            double[][] errorMap = {
+                    {phi[k][0][0], phi[k][0][1], psi[k][0], -1.0},
+                    {phi[k][1][0], phi[k][1][1], psi[k][1], 0.0}};
+            double[][] gammaTransposeWeight = multiply(transpose(gamma[k]), weight);
+            add(hessian, multiply(gammaTransposeWeight, gamma[k]), 2.0);
+            add(linear, multiply(gammaTransposeWeight, errorMap), 2.0);
+        }
+        for (int i = 0; i < n; i++) {
+            hessian[i][i] += 2.0 * inputWeight;
+        }
+        double[][] hessianInverse = invert(hessian);
+        if (hessianInverse == null) {
+            throw new IllegalArgumentException("explicit MPC problem has a singular Hessian");
+        }
+
+        // G U <= w + S theta: voltage limits, then the position limits at each step the plan can still change
+        int constraintCount = 4 * n;
+        double[][] constraints = new double[constraintCount][n];
+        double[] bounds = new double[constraintCount];
+        double[][] boundMap = new double[constraintCount][PARAMETERS];
+        for (int k = 0; k < n; k++) {
+            constraints[2 * k][k] = 1.0;
+            bounds[2 * k] = problem.maxVolts();
+            constraints[2 * k + 1][k] = -1.0;
+            bounds[2 * k + 1] = problem.maxVolts();
+
+            int upper = 2 * n + 2 * k;
+            int lower = upper + 1;
+            for (int j = 0; j < n; j++) {
+                constraints[upper][j] = gamma[k][0][j];
+                constraints[lower][j] = -gamma[k][0][j];
+            }
+            bounds[upper] = problem.maxPosition();
+            boundMap[upper][0] = -phi[k][0][0];
+            boundMap[upper][1] = -phi[k][0][1];
+            boundMap[upper][2] = -psi[k][0];
+            bounds[lower] = -problem.minPosition();
+            boundMap[lower][0] = phi[k][0][0];
+            boundMap[lower][1] = phi[k][0][1];
+            boundMap[lower][2] = psi[k][0];
+        }
+
+        // the least each constraint's G U can be with every voltage within its limit
+        double[] minConstraintValues = new double[constraintCount];
+        for (int c = 0; c < constraintCount; c++) {
+            for (int j = 0; j < n; j++) {
+                minConstraintValues[c] -= Math.abs(constraints[c][j]) * problem.maxVolts();
+            }
+        }
+
+        double[][] hessianInverseLinear = multiply(hessianInverse, linear);
+        double[][] hessianInverseConstraintsT = multiply(hessianInverse, transpose(constraints));
+        double[][] dualHessian = multiply(constraints, hessianInverseConstraintsT);
+        double[][] dualLinearMap = multiply(constraints, hessianInverseLinear);
+
+        RegionBuilder regions = new RegionBuilder();
+        int samples = 0;
+        int covered = 0;
+        int infeasible = 0;
+        for (int i = 0; i < positionSamples; i++) {
+            double position = lerp(problem.minPosition(), problem.maxPosition(), i, positionSamples);
+            for (int j = 0; j < velocitySamples; j++) {
+                double velocity = lerp(-maxSampleVelocity, maxSampleVelocity, j, velocitySamples);
+                for (int v = 0; v < voltageSamples; v++) {
+                    double lastVolts = lerp(-problem.maxVolts(), problem.maxVolts(), v, voltageSamples);
+                    for (int l = 0; l < positionSamples; l++) {
+                        double reference = lerp(problem.minPosition(), problem.maxPosition(), l, positionSamples);
+                        double[] theta = {position, velocity, lastVolts, reference};
+                        samples++;
+                        if (regions.covers(theta)) {
+                            covered++;
+                            continue;
+                        }
+                        // Hildreth only finds out a sample is infeasible by running out of iterations, so skip the
+                        // ones where the last voltage already carries a position past a limit no plan can undo
+                        boolean reachable = true;
+                        for (int c = 0; c < constraintCount; c++) {
+                            if (minConstraintValues[c] > bounds[c] + dot(boundMap[c], theta) + FEASIBILITY_TOLERANCE) {
+                                reachable = false;
+                                break;
+                            }
+                        }
+                        if (!reachable) {
+                            infeasible++;
+                            continue;
+                        }
+                        double[] dualLinear = new double[constraintCount];
+                        for (int c = 0; c < constraintCount; c++) {
+                            dualLinear[c] = bounds[c] + dot(boundMap[c], theta) + dot(dualLinearMap[c], theta);
+                        }
+                        double[] multipliers = hildreth(dualHessian, dualLinear);
+                        if (multipliers == null) {
+                            infeasible++;
+                            continue;
+                        }
+                        double[] inputs = new double[n];
+                        for (int r = 0; r < n; r++) {
+                            inputs[r] = -dot(hessianInverseLinear[r], theta)
+                                    - dot(hessianInverseConstraintsT[r], multipliers);
+                        }
+                        boolean feasible = true;
+                        for (int c = 0; c < constraintCount; c++) {
+                            if (dot(constraints[c], inputs)
+                                    > bounds[c] + dot(boundMap[c], theta) + FEASIBILITY_TOLERANCE) {
+                                feasible = false;
+                                break;
+                            }
+                        }
+                        if (!feasible) {
+                            infeasible++;
+                            continue;
+                        }
+
+                        List<Integer> active = new ArrayList<>();
+                        for (int c = 0; c < constraintCount; c++) {
+                            if (multipliers[c] > ACTIVE_TOLERANCE) {
+                                active.add(c);
+                            }
+                        }
+                        if (regions.addRegion(
+                                theta,
+                                active,
+                                constraints,
+                                bounds,
+                                boundMap,
+                                hessianInverseLinear,
+                                hessianInverseConstraintsT,
+                                dualHessian,
+                                dualLinearMap)) {
+                            covered++;
+                        }
+                    }
+                }
+            }
+        }
+        return new Result(regions.build(problem), samples, covered, infeasible);
+    }
+
+    /**
+     * Minimises 0.5 lambda^T P lambda + lambda^T K over lambda >= 0 one coordinate at a time.
+     *
+     * @return the multipliers, or null if they diverge, which means the primal problem is infeasible
+     */
+    private static double[] hildreth(double[][] dualHessian, double[] dualLinear) {
+        int m = dualLinear.length;
+        double[] multipliers = new double[m];
+        for (int iteration = 0; iteration < MAX_HILDRETH_ITERATIONS; iteration++) {
+            double change = 0.0;
+            double size = 0.0;
+            for (int i = 0; i < m; i++) {
+                double gradient = dualLinear[i];
+                for (int j = 0; j < m; j++) {
+                    if (j != i) {
+                        gradient += dualHessian[i][j] * multipliers[j];
+                    }
+                }
+                double next = Math.max(0.0, -gradient / dualHessian[i][i]);
+                change += (next - multipliers[i]) * (next - multipliers[i]);
+                size += next * next;
+                multipliers[i] = next;
+            }
+            if (!Double.isFinite(size)) {
+                return null;
+            }
+            if (change <= HILDRETH_TOLERANCE * Math.max(1.0, size)) {
+                return multipliers;
+            }
+        }
+        return null;
+    }
+
+    private static double[][] solveRiccati(
+            double[][] stateMatrix,
+            double[] inputVector,
+            double[][] stateWeight,
+            double inputWeight) {
+        double[][] cost = copy(stateWeight);
+        double[][] stateMatrixT = transpose(stateMatrix);
+        for (int iteration = 0; iteration < 10000; iteration++) {
+            double[] costInput = {
+                    cost[0][0] * inputVector[0] + cost[0][1] * inputVector[1],
+                    cost[1][0] * inputVector[0] + cost[1][1] * inputVector[1]};
+            double inputCost = inputWeight + inputVector[0] * costInput[0] + inputVector[1] * costInput[1];
+            // A^T P B, as a column
+            double[] crossTerm = {
+                    stateMatrixT[0][0] * costInput[0] + stateMatrixT[0][1] * costInput[1],
+                    stateMatrixT[1][0] * costInput[0] + stateMatrixT[1][1] * costInput[1]};
+            double[][] next = multiply(multiply(stateMatrixT, cost), stateMatrix);
+            double change = 0.0;
+            for (int i = 0; i < 2; i++) {
+                for (int j = 0; j < 2; j++) {
+                    next[i][j] += stateWeight[i][j] - crossTerm[i] * crossTerm[j] / inputCost;
+                    change = Math.max(change, Math.abs(next[i][j] - cost[i][j]) / Math.max(1.0, Math.abs(next[i][j])));
+                }
+            }
+            cost = next;
+            if (change < 1e-12) {
+                break;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Collects critical regions and flattens them into a table.
+     */
+    private static class RegionBuilder {
+        private final List<double[]> laws = new ArrayList<>();
+        private final List<List<double[]>> halfspaces = new ArrayList<>();
+
+        boolean covers(double[] theta) {
+            for (List<double[]> region : halfspaces) {
+                if (contains(region, theta, 0.0)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return whether the active set gave a region containing the sample
+         */
+        boolean addRegion(
+                double[] theta,
+                List<Integer> active,
+                double[][] constraints,
+                double[] bounds,
+                double[][] boundMap,
+                double[][] hessianInverseLinear,
+                double[][] hessianInverseConstraintsT,
+                double[][] dualHessian,
+                double[][] dualLinearMap) {
+            int n = hessianInverseLinear.length;
+            int activeCount = active.size();
+
+            // lambda_A = L theta + l, from the active constraints holding with equality
+            double[][] multiplierGain = new double[activeCount][PARAMETERS];
+            double[] multiplierOffset = new double[activeCount];
+            if (activeCount > 0) {
+                double[][] activeDualHessian = new double[activeCount][activeCount];
+                for (int i = 0; i < activeCount; i++) {
+                    for (int j = 0; j < activeCount; j++) {
+                        activeDualHessian[i][j] = dualHessian[active.get(i)][active.get(j)];
+                    }
+                }
+                double[][] inverse = invert(activeDualHessian);
+                if (inverse == null) {
+                    return false;
+                }
+                for (int i = 0; i < activeCount; i++) {
+                    for (int j = 0; j < activeCount; j++) {
+                        int c = active.get(j);
+                        for (int p = 0; p < PARAMETERS; p++) {
+                            multiplierGain[i][p] -= inverse[i][j] * (boundMap[c][p] + dualLinearMap[c][p]);
+                        }
+                        multiplierOffset[i] -= inverse[i][j] * bounds[c];
+                    }
+                }
+            }
+
+            // U = K theta + k
+            double[][] inputGain = new double[n][PARAMETERS];
+            double[] inputOffset = new double[n];
+            for (int r = 0; r < n; r++) {
+                for (int p = 0; p < PARAMETERS; p++) {
+                    inputGain[r][p] = -hessianInverseLinear[r][p];
+                }
+                for (int i = 0; i < activeCount; i++) {
+                    double weight = hessianInverseConstraintsT[r][active.get(i)];
+                    for (int p = 0; p < PARAMETERS; p++) {
+                        inputGain[r][p] -= weight * multiplierGain[i][p];
+                    }
+                    inputOffset[r] -= weight * multiplierOffset[i];
+                }
+            }
+
+            List<double[]> region = new ArrayList<>();
+            for (int c = 0; c < constraints.length; c++) {
+                if (active.contains(c)) {
+                    continue;
+                }
+                // G_c (K theta + k) <= w_c + S_c theta
+                double[] row = new double[PARAMETERS + 1];
+                for (int r = 0; r < n; r++) {
+                    for (int p = 0; p < PARAMETERS; p++) {
+                        row[p] += constraints[c][r] * inputGain[r][p];
+                    }
+                    row[PARAMETERS] -= constraints[c][r] * inputOffset[r];
+                }
+                for (int p = 0; p < PARAMETERS; p++) {
+                    row[p] -= boundMap[c][p];
+                }
+                row[PARAMETERS] += bounds[c];
+                addHalfspace(region, row);
+            }
+            for (int i = 0; i < activeCount; i++) {
+                // lambda_i >= 0
+                double[] row = new double[PARAMETERS + 1];
+                for (int p = 0; p < PARAMETERS; p++) {
+                    row[p] = -multiplierGain[i][p];
+                }
+                row[PARAMETERS] = multiplierOffset[i];
+                addHalfspace(region, row);
+            }
+            if (!contains(region, theta, FEASIBILITY_TOLERANCE)) {
+                return false;
+            }
+            double[] law = new double[PARAMETERS + 1];
+            System.arraycopy(inputGain[0], 0, law, 0, PARAMETERS);
+            law[PARAMETERS] = inputOffset[0];
+            laws.add(law);
+            halfspaces.add(region);
+            return true;
+        }
+
+        ExplicitMPCTable build(ExplicitMPCProblem problem) {
+            int regionCount = laws.size();
+            double[] gains = new double[regionCount * PARAMETERS];
+            double[] offsets = new double[regionCount];
+            int[] halfspaceStarts = new int[regionCount + 1];
+            List<double[]> rows = new ArrayList<>();
+            for (int region = 0; region < regionCount; region++) {
+                System.arraycopy(laws.get(region), 0, gains, region * PARAMETERS, PARAMETERS);
+                offsets[region] = laws.get(region)[PARAMETERS];
+                halfspaceStarts[region] = rows.size();
+                rows.addAll(halfspaces.get(region));
+            }
+            halfspaceStarts[regionCount] = rows.size();
+            double[] flat = new double[rows.size() * (PARAMETERS + 1)];
+            for (int i = 0; i < rows.size(); i++) {
+                System.arraycopy(rows.get(i), 0, flat, i * (PARAMETERS + 1), PARAMETERS + 1);
+            }
+            return new ExplicitMPCTable(gains, offsets, halfspaceStarts, flat, problem);
+        }
+
+        /**
+         * Normalises the halfspace and drops it if it doesn't depend on theta.
+         */
+        private static void addHalfspace(List<double[]> region, double[] row) {
+            double norm = 0.0;
+            for (int p = 0; p < PARAMETERS; p++) {
+                norm += row[p] * row[p];
+            }
+            norm = Math.sqrt(norm);
+            if (norm < ZERO_ROW_TOLERANCE) {
+                return;
+            }
+            for (int p = 0; p <= PARAMETERS; p++) {
+                row[p] /= norm;
+            }
+            region.add(row);
+        }
+
+        private static boolean contains(List<double[]> region, double[] theta, double tolerance) {
+            for (double[] row : region) {
+                double value = 0.0;
+                for (int p = 0; p < PARAMETERS; p++) {
+                    value += row[p] * theta[p];
+                }
+                if (value > row[PARAMETERS] + tolerance) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static double lerp(double min, double max, int index, int count) {
+        return count == 1 ? (min + max) / 2.0 : min + (max - min) * index / (count - 1);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double[][] identity(int size) {
+        double[][] result = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            result[i][i] = 1.0;
+        }
+        return result;
+    }
+
+    private static double[][] copy(double[][] matrix) {
+        double[][] result = new double[matrix.length][];
+        for (int i = 0; i < matrix.length; i++) {
+            result[i] = matrix[i].clone();
+        }
+        return result;
+    }
+
+    private static void add(double[][] target, double[][] matrix, double scale) {
+        for (int i = 0; i < target.length; i++) {
+            for (int j = 0; j < target[i].length; j++) {
+                target[i][j] += scale * matrix[i][j];
+            }
+        }
+    }
+
+    private static double[][] transpose(double[][] matrix) {
+        double[][] result = new double[matrix[0].length][matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < matrix[i].length; j++) {
+                result[j][i] = matrix[i][j];
+            }
+        }
+        return result;
+    }
+
+    private static double[][] multiply(double[][] a, double[][] b) {
+        double[][] result = new double[a.length][b[0].length];
+        for (int i = 0; i < a.length; i++) {
+            for (int k = 0; k < b.length; k++) {
+                double value = a[i][k];
+                for (int j = 0; j < b[0].length; j++) {
+                    result[i][j] += value * b[k][j];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gauss-Jordan elimination with partial pivoting.
+     *
+     * @return the inverse, or null if the matrix is singular
+     */
+    private static double[][] invert(double[][] matrix) {
+        int size = matrix.length;
+        double[][] work = copy(matrix);
+        double[][] result = identity(size);
+        double scale = 0.0;
+        for (double[] row : matrix) {
+            for (double value : row) {
+                scale = Math.max(scale, Math.abs(value));
+            }
+        }
+        for (int column = 0; column < size; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < size; row++) {
+                if (Math.abs(work[row][column]) > Math.abs(work[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            if (Math.abs(work[pivot][column]) <= 1e-12 * scale) {
+                return null;
+            }
+            double[] swap = work[column];
+            work[column] = work[pivot];
+            work[pivot] = swap;
+            swap = result[column];
+            result[column] = result[pivot];
+            result[pivot] = swap;
+
+            double divisor = work[column][column];
+            for (int j = 0; j < size; j++) {
+                work[column][j] /= divisor;
+                result[column][j] /= divisor;
+            }
+            for (int row = 0; row < size; row++) {
+                if (row != column && work[row][column] != 0.0) {
+                    double factor = work[row][column];
+                    for (int j = 0; j < size; j++) {
+                        work[row][j] -= factor * work[column][j];
+                        result[row][j] -= factor * result[column][j];
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,318 @@
+package frc.robot;
+
+import com.goatlib.analysis.AllocationProbe;
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.GainSchedule;
+import com.goatlib.controlLoops.position.ExplicitMPCPositionControlLoop;
+import com.goatlib.controlLoops.position.ScheduledPIDPositionControlLoop;
+import com.goatlib.controlLoops.position.SimplePIDPositionControlLoop;
+import com.goatlib.controlLoops.velocity.ScheduledPIDFVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimpleLQRVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimplePIDFVelocityControlLoop;
+import com.goatlib.health.JvmEventMonitor;
+import com.goatlib.leds.LEDEngine;
+import com.goatlib.leds.RainbowPattern;
+import com.goatlib.logging.SignalRecorder;
+import com.goatlib.mechanisms.MechanismSnapshot;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.ExponentialMotionProfile;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.motorprofiles.TrapezoidMotionProfile;
+import com.goatlib.motors.Motor;
+import com.goatlib.motors.MotorInputs;
+import com.goatlib.motors.ReplayMotor;
+import com.goatlib.motors.SimMotor;
+import com.goatlib.motors.SimMotorGroup;
+import com.goatlib.motors.rev.REVFusedMotor;
+import com.goatlib.motors.rev.REVMotorGroup;
+import com.goatlib.motors.rev.REVRelativeMotor;
+import com.goatlib.power.BusVoltage;
+import com.goatlib.power.PowerArbiter;
+import com.goatlib.telemetry.MechanismTelemetry;
+import com.goatlib.telemetry.TelemetryScheduler;
+import com.goatlib.warmup.SyntheticWave;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Voltage;
+import frc.robot.subsystems.FlywheelSubsystem;
+import frc.robot.subsystems.TurretSubsystem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.wpi.first.units.Units.Volts;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that goatlib's per-tick code paths allocate nothing once warmed up. Each case is one control tick, from the
+ * subsystems' real update and control callbacks down to single control loops and profiles, measured with the JVM's
+ * per-thread allocation counter.
+ * <p>
+ * Runs headless as part of ./gradlew test and fails if any checked case allocates. Cases whose allocations happen
+ * inside vendor code goatlib can't change are measured and reported, not checked.
+ */
+class AllocationTest {
+
+    private record AllocationCase(String name, Runnable tick, String reportOnlyReason) {
+    }
+
+    // enough ticks for the hot paths to be JIT compiled before counting
+    private static final int WARMUP_TICKS = 20000;
+    private static final int MEASURED_TICKS = 10000;
+    private static final SyntheticWave WAVE = new SyntheticWave(1.0);
+    private static final String REV_SIMULATION_REASON = "REVLib's simulated device stands in for CAN";
+
+    @Test
+    void perTickPathsDontAllocate() throws IOException {
+        assumeTrue(AllocationProbe.isSupported(), "this JVM can't count per-thread allocations");
+        HAL.initialize(500, 0);
+        BusVoltage.set(BusVoltage.NOMINAL_VOLTS);
+
+        List<AllocationCase> cases = new ArrayList<>();
+        SignalRecorder signalRecorder = new SignalRecorder(
+                Constants.Logging.signalRecorderCapacity,
+                Constants.Logging.signalRecorderMaxFileBytes,
+                Constants.Logging.signalRecorderMaxFiles);
+        signalRecorder.setRecording(true);
+        addFlywheelSubsystemCase(cases, signalRecorder);
+        addTurretSubsystemCase(cases, signalRecorder);
+        signalRecorder.start(Files.createTempFile("goatlib_allocation", ".bin"));
+        addControlLoopCases(cases);
+        addMotionProfileCases(cases);
+        addMotorCases(cases);
+        addSupportCases(cases);
+
+        List<String> failures = new ArrayList<>();
+        for (AllocationCase allocationCase : cases) {
+            long bytes = AllocationProbe.measure(
+                    allocationCase.tick(),
+                    WARMUP_TICKS,
+                    MEASURED_TICKS);
+            double bytesPerTick = (double) bytes / MEASURED_TICKS;
+            if (allocationCase.reportOnlyReason() != null) {
+                System.out.printf("%s: %.1f B/tick (reported only, %s)%n",
+                        allocationCase.name(), bytesPerTick, allocationCase.reportOnlyReason());
+            } else if (bytes != 0) {
+                failures.add(String.format("%s: %d B over %d ticks (%.1f B/tick)",
+                        allocationCase.name(), bytes, MEASURED_TICKS, bytesPerTick));
+            } else {
+                System.out.printf("%s: 0 B%n", allocationCase.name());
+            }
+        }
+        try {
+            signalRecorder.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertTrue(failures.isEmpty(), "per-tick paths allocate:\n" + String.join("\n", failures));
+    }
+
+    private static double nextWave() {
+        return WAVE.next();
+    }
+
+    private static void addFlywheelSubsystemCase(List<AllocationCase> cases, SignalRecorder signalRecorder) {
+        SimpleMotorConfigs flywheelConfigs = Constants.ExampleFlywheel.flywheelConfigs;
+        MechanismTelemetry telemetry = new MechanismTelemetry(
+                flywheelConfigs.name(),
+                Constants.ExampleFlywheel.telemetryPeriodSeconds,
+                flywheelConfigs.controlLoopPeriodSeconds());
+        ConfigHandle<SimpleMotorConfigs> configsHandle = new ConfigHandle<>(flywheelConfigs);
+        telemetry.setRecorder(signalRecorder, configsHandle);
+        ShadowMechanisms.Shadow<FlywheelSubsystem> shadow = ShadowMechanisms.createFlywheel(
+                configsHandle,
+                Constants.ExampleFlywheel.setpointEvaluatorConfigs,
+                Constants.ExampleFlywheel.healthMonitorConfigs,
+                telemetry,
+                AllocationTest::nextWave);
+        cases.add(new AllocationCase("FlywheelSubsystem callbacks", shadow.tick(), null));
+    }
+
+    private static void addTurretSubsystemCase(List<AllocationCase> cases, SignalRecorder signalRecorder) {
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        MechanismTelemetry telemetry = new MechanismTelemetry(
+                turretConfigs.name(),
+                Constants.ExampleTurret.telemetryPeriodSeconds,
+                turretConfigs.controlLoopPeriodSeconds());
+        ConfigHandle<SimpleMotorConfigs> configsHandle = new ConfigHandle<>(turretConfigs);
+        telemetry.setRecorder(signalRecorder, configsHandle);
+        ShadowMechanisms.Shadow<TurretSubsystem> shadow = ShadowMechanisms.createTurret(
+                configsHandle,
+                Constants.ExampleTurret.setpointEvaluatorConfigs,
+                Constants.ExampleTurret.healthMonitorConfigs,
+                telemetry,
+                AllocationTest::nextWave);
+        cases.add(new AllocationCase("TurretSubsystem callbacks", shadow.tick(), null));
+    }
+
+    private static void addControlLoopCases(List<AllocationCase> cases) {
+        SimpleMotorConfigs flywheelConfigs = Constants.ExampleFlywheel.flywheelConfigs;
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        SimplePIDFVelocityControlLoop pidf = new SimplePIDFVelocityControlLoop(flywheelConfigs);
+        cases.add(new AllocationCase("SimplePIDFVelocityControlLoop.getOutput",
+                () -> pidf.getOutput(300.0 + 20.0 * nextWave(), 314.0), null));
+
+        SimpleLQRVelocityControlLoop lqr = new SimpleLQRVelocityControlLoop(
+                flywheelConfigs.kV(),
+                flywheelConfigs.kA(),
+                3.0,
+                0.01,
+                8.0,
+                BusVoltage.NOMINAL_VOLTS,
+                flywheelConfigs.controlLoopPeriodSeconds());
+        cases.add(new AllocationCase("SimpleLQRVelocityControlLoop.getOutput",
+                () -> lqr.getOutput(300.0 + 20.0 * nextWave(), 314.0), null));
+
+        ScheduledPIDFVelocityControlLoop scheduledVelocity = new ScheduledPIDFVelocityControlLoop(
+                flywheelConfigs,
+                Constants.ExampleFlywheel.gainScheduleConfigs,
+                GainSchedule.velocityLQR(
+                        Constants.ExampleFlywheel.scheduledVelocityToleranceFraction,
+                        Constants.ExampleFlywheel.scheduledMinVelocityToleranceRadiansPerSecond));
+        cases.add(new AllocationCase("ScheduledPIDFVelocityControlLoop.getOutput",
+                () -> scheduledVelocity.getOutput(300.0 + 20.0 * nextWave(), 314.0), null));
+
+        PositionState currentState = new PositionState();
+        PositionState nextState = new PositionState();
+        nextState.position = Math.PI / 4;
+        SimplePIDPositionControlLoop trapezoid = SimplePIDPositionControlLoop.createWithTrapezoidProfile(
+                turretConfigs, -Math.PI / 2, Math.PI / 2);
+        cases.add(new AllocationCase("SimplePIDPositionControlLoop.getOutput (trapezoid)", () -> {
+            currentState.position = 0.5 * nextWave();
+            trapezoid.getOutput(currentState, nextState);
+        }, null));
+        ScheduledPIDPositionControlLoop scheduledPosition = ScheduledPIDPositionControlLoop.createWithTrapezoidProfile(
+                new ConfigHandle<>(turretConfigs),
+                Constants.ExampleTurret.gainScheduleConfigs,
+                GainSchedule.positionLQR(
+                        Constants.ExampleTurret.scheduledPositionToleranceRadians,
+                        Constants.ExampleTurret.scheduledVelocityToleranceRadiansPerSecond,
+                        Constants.ExampleTurret.loadScale),
+                -Math.PI / 2,
+                Math.PI / 2);
+        cases.add(new AllocationCase("ScheduledPIDPositionControlLoop.getOutput (trapezoid)", () -> {
+            currentState.position = 0.5 * nextWave();
+            scheduledPosition.getOutput(currentState, nextState);
+        }, null));
+        ExplicitMPCPositionControlLoop explicitMPC = ExplicitMPCPositionControlLoop.fromDeployFile(
+                Constants.ExampleTurret.explicitMPCTableFile,
+                new ConfigHandle<>(turretConfigs),
+                SimplePIDPositionControlLoop.createWithTrapezoidProfile(turretConfigs),
+                Constants.ExampleTurret.explicitMPCProblem.minPosition(),
+                Constants.ExampleTurret.explicitMPCProblem.maxPosition());
+        PositionState movingState = new PositionState();
+        cases.add(new AllocationCase("ExplicitMPCPositionControlLoop.getOutput", () -> {
+            movingState.position = 0.5 * nextWave();
+            movingState.velocity = 50.0 * nextWave();
+            explicitMPC.getOutput(movingState, nextState);
+        }, null));
+        SimplePIDPositionControlLoop exponential = SimplePIDPositionControlLoop.createwithExponentialProfile(
+                turretConfigs, -Math.PI / 2, Math.PI / 2);
+        cases.add(new AllocationCase("SimplePIDPositionControlLoop.getOutput (exponential)", () -> {
+            currentState.position = 0.5 * nextWave();
+            exponential.getOutput(currentState, nextState);
+        }, null));
+    }
+
+    private static void addMotionProfileCases(List<AllocationCase> cases) {
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        PositionState currentState = new PositionState();
+        PositionState nextState = new PositionState();
+        nextState.position = Math.PI / 4;
+        TrapezoidMotionProfile trapezoid = new TrapezoidMotionProfile(new SimpleMotorFeedforward(
+                turretConfigs.kS(),
+                turretConfigs.kV(),
+                turretConfigs.kA()));
+        cases.add(new AllocationCase("TrapezoidMotionProfile.calculate", () -> {
+            currentState.position = 0.5 * nextWave();
+            trapezoid.calculate(currentState, nextState, turretConfigs.controlLoopPeriodSeconds());
+        }, null));
+        ExponentialMotionProfile exponential = new ExponentialMotionProfile(turretConfigs.kV(), turretConfigs.kA());
+        cases.add(new AllocationCase("ExponentialMotionProfile.calculate", () -> {
+            currentState.position = 0.5 * nextWave();
+            exponential.calculate(currentState, nextState, turretConfigs.controlLoopPeriodSeconds());
+        }, null));
+    }
+
+    private static void addSupportCases(List<AllocationCase> cases) {
+        cases.add(new AllocationCase("BusVoltage.update", BusVoltage::update, null));
+
+        ReplayMotor first = new ReplayMotor(2);
+        ReplayMotor second = new ReplayMotor(2);
+        PowerArbiter powerArbiter = new PowerArbiter(Constants.Power.powerArbiterConfigs);
+        powerArbiter.register(first, 0, 30, 80);
+        powerArbiter.register(second, 1, 20, 80);
+        MotorInputs inputs = new MotorInputs();
+        cases.add(new AllocationCase("PowerArbiter.update", () -> {
+            inputs.current = 60.0 + 40.0 * nextWave();
+            first.setInputs(inputs);
+            second.setInputs(inputs);
+            first.update();
+            second.update();
+            powerArbiter.update();
+        }, null));
+
+        MechanismTelemetry telemetry = new MechanismTelemetry("allocation-check", 0.02, 0.01);
+        TelemetryScheduler telemetryScheduler = new TelemetryScheduler(Constants.Telemetry.budgetBytesPerSecond);
+        telemetryScheduler.register(telemetry, 0, 0.02, 1.0, 0.1, 0.25);
+        cases.add(new AllocationCase("TelemetryScheduler.update", telemetryScheduler::update, null));
+
+        MechanismSnapshot snapshot = new MechanismSnapshot();
+        cases.add(new AllocationCase("MechanismSnapshot write and read", () -> {
+            snapshot.write(nextWave(), 1.0, 2.0, 3.0, true);
+            snapshot.getVelocityFraction();
+        }, null));
+
+        cases.add(new AllocationCase("InterpolatingTable.get",
+                () -> Constants.Aiming.flywheelVelocityFallbackTable.get(3.0 + nextWave()), null));
+
+        LEDEngine ledEngine = new LEDEngine(Constants.LEDs.port, Constants.LEDs.length, 0.0);
+        ledEngine.createSegment(0, Constants.LEDs.length, 1)
+                .setLayer(0, new RainbowPattern(Constants.LEDs.length, Constants.LEDs.rainbowFrameCount, 255, 128));
+        cases.add(new AllocationCase("LEDEngine.update", ledEngine::update, null));
+
+        JvmEventMonitor jvmEventMonitor = new JvmEventMonitor(Constants.JvmEvents.jvmEventMonitorConfigs);
+        int source = jvmEventMonitor.addSource("allocation-check");
+        jvmEventMonitor.start();
+        // an overrun older than the correlation delay is matched and published on the same update
+        long overrunAgeNanos = 2 * (long) (Constants.JvmEvents.jvmEventMonitorConfigs.correlationDelaySeconds() * 1e9);
+        cases.add(new AllocationCase("JvmEventMonitor report and update", () -> {
+            long nowNanos = System.nanoTime();
+            jvmEventMonitor.reportOverrun(source, nowNanos - overrunAgeNanos - 1000000, nowNanos - overrunAgeNanos);
+            jvmEventMonitor.update();
+        }, null));
+    }
+
+    private static void addMotorCases(List<AllocationCase> cases) {
+        MutableMeasure<Voltage> voltage = MutableMeasure.zero(Volts);
+        addMotorCase(cases, "SimMotor", new SimMotor(Constants.ExampleFlywheel.flywheelConfigs), voltage, null);
+        addMotorCase(cases, "SimMotorGroup", new SimMotorGroup(Constants.ExampleFlywheel.flywheelConfigs, 2),
+                voltage, null);
+        addMotorCase(cases, "REVRelativeMotor", new REVRelativeMotor(Constants.ExampleFlywheel.revConfigs),
+                voltage, REV_SIMULATION_REASON);
+        addMotorCase(cases, "REVFusedMotor", new REVFusedMotor(
+                Constants.ExampleTurret.revConfigs,
+                Constants.ExampleTurret.fusedEncoderConfigs), voltage, REV_SIMULATION_REASON);
+        addMotorCase(cases, "REVMotorGroup", new REVMotorGroup(
+                Constants.ExampleFlywheel.revConfigs.withDeviceId(17),
+                List.of(Constants.ExampleFlywheel.revConfigs.withDeviceId(18))), voltage, REV_SIMULATION_REASON);
+    }
+
+    private static void addMotorCase(
+            List<AllocationCase> cases,
+            String name,
+            Motor motor,
+            MutableMeasure<Voltage> voltage,
+            String reportOnlyReason) {
+        cases.add(new AllocationCase(name + " set and update", () -> {
+            voltage.mut_setMagnitude(6.0 * nextWave());
+            motor.setVoltage(voltage);
+            motor.update();
+        }, reportOnlyReason));
+    }
+}
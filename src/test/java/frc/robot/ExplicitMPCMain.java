@@ -0,0 +1,49 @@
+package frc.robot;
+
+import com.goatlib.mpc.ExplicitMPCGenerator;
+import com.goatlib.mpc.ExplicitMPCProblem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Solves the example turret's constrained MPC problem into the explicit region table the robot loads from the deploy
+ * directory. It lives in the test source set so the solver stays out of the robot jar; commit the regenerated file.
+ * <p>
+ * Usage: ./gradlew generateTurretMPC
+ */
+public final class ExplicitMPCMain {
+
+    private ExplicitMPCMain() {
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1 || args[0].isEmpty()) {
+            System.err.println("usage: ExplicitMPCMain <output csv>");
+            System.exit(2);
+        }
+        Path output = Path.of(args[0]);
+        ExplicitMPCProblem problem = Constants.ExampleTurret.explicitMPCProblem;
+        ExplicitMPCGenerator.Result result = ExplicitMPCGenerator.generate(
+                problem,
+                Constants.ExampleTurret.explicitMPCPositionSamples,
+                Constants.ExampleTurret.explicitMPCVelocitySamples,
+                Constants.ExampleTurret.explicitMPCMaxSampleVelocityRadiansPerSecond,
+                Constants.ExampleTurret.explicitMPCVoltageSamples);
+
+        String coverage = String.format(
+                "%d regions, %d halfspaces, %d of %d samples covered, %d infeasible",
+                result.table().getRegionCount(),
+                result.table().getHalfspaceCount(),
+                result.coveredSamples(),
+                result.samples(),
+                result.infeasibleSamples());
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        result.table().writeCsv(output, List.of(
+                "Generated by ./gradlew generateTurretMPC, don't edit by hand",
+                coverage));
+        System.out.printf("%s: %s%n", output, coverage);
+    }
+}
@@ -0,0 +1,221 @@
+package frc.robot;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.configs.MechanismConfigLoader;
+import com.goatlib.logging.LogRecord;
+import com.goatlib.logging.RecordType;
+import com.goatlib.logging.ReplayResult;
+import com.goatlib.logging.SignalLogReader;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.mechanisms.flywheels.Flywheel;
+import com.goatlib.mechanisms.turrets.Turret;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.motors.MotorInputs;
+import com.goatlib.motors.ReplayMotor;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.wpilibj.Filesystem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a goatlib signal log through the example mechanisms' control stack and compares the recomputed outputs
+ * with the recorded ones. Runs as fast as the log can be read, with no robot runtime.
+ * <p>
+ * Usage: ./gradlew replay -PreplayLog=path/to/goatlib_*.bin [-PreplayToleranceVolts=1e-6]
+ * <p>
+ * Exits with status 1 if any output differs by more than the tolerance, so control changes can be regression-tested
+ * against match data. The gains come from the configs records in the log, so hot reloads during the match are
+ * replayed at the tick they took effect. Each tick runs the same control step the subsystems run, with the recorded
+ * setpoint, setpoint velocity, safe mode and whether the position was known.
+ */
+public final class ReplayMain {
+
+    private interface ReplayStep {
+        double step(LogRecord record);
+    }
+
+    private ReplayMain() {
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1 || args[0].isEmpty()) {
+            System.err.println("usage: ReplayMain <log file> [tolerance volts]");
+            System.exit(2);
+        }
+        Path logFile = Path.of(args[0]);
+        double toleranceVolts = args.length > 1 ? Double.parseDouble(args[1]) : 1e-6;
+
+        SimpleMotorConfigs flywheelConfigs = loadConfigs(
+                Constants.ExampleFlywheel.configFile,
+                Constants.ExampleFlywheel.flywheelConfigs);
+        SimpleMotorConfigs turretConfigs = loadConfigs(
+                Constants.ExampleTurret.configFile,
+                Constants.ExampleTurret.simpleMotorConfigs);
+        ConfigHandle<SimpleMotorConfigs> flywheelConfigsHandle = new ConfigHandle<>(
+                findInitialConfigs(logFile, flywheelConfigs));
+        ConfigHandle<SimpleMotorConfigs> turretConfigsHandle = new ConfigHandle<>(
+                findInitialConfigs(logFile, turretConfigs));
+
+        try (SignalLogReader reader = new SignalLogReader(logFile)) {
+            List<String> channelNames = reader.getChannelNames();
+            List<RecordType> channelTypes = reader.getChannelTypes();
+            ReplayStep[] steps = new ReplayStep[channelNames.size()];
+            ReplayResult[] results = new ReplayResult[channelNames.size()];
+            List<ConfigHandle<SimpleMotorConfigs>> configsHandles = new ArrayList<>();
+            for (int i = 0; i < channelNames.size(); i++) {
+                String name = channelNames.get(i);
+                boolean configsChannel = channelTypes.get(i) == RecordType.CONFIGS;
+                configsHandles.add(null);
+                if (configsChannel && name.equals(flywheelConfigs.name())) {
+                    configsHandles.set(i, flywheelConfigsHandle);
+                    continue;
+                } else if (configsChannel && name.equals(turretConfigs.name())) {
+                    configsHandles.set(i, turretConfigsHandle);
+                    continue;
+                } else if (configsChannel) {
+                    System.out.printf("%s: skipped configs, no replay step for this channel%n", name);
+                    continue;
+                } else if (name.equals(flywheelConfigs.name())) {
+                    steps[i] = createFlywheelStep(flywheelConfigsHandle);
+                } else if (name.equals(turretConfigs.name())) {
+                    steps[i] = createTurretStep(turretConfigsHandle);
+                } else {
+                    System.out.printf("%s: skipped, no replay step for this channel%n", name);
+                    continue;
+                }
+                results[i] = new ReplayResult(name, toleranceVolts);
+            }
+
+            LogRecord record = new LogRecord();
+            long startNanos = System.nanoTime();
+            double firstTimestamp = Double.NaN;
+            double lastTimestamp = Double.NaN;
+            while (reader.next(record)) {
+                if (record.channel < 0 || record.channel >= steps.length) {
+                    continue;
+                }
+                ConfigHandle<SimpleMotorConfigs> configsHandle = configsHandles.get(record.channel);
+                if (configsHandle != null) {
+                    // publish the gains the robot switched to, exactly as a reload would
+                    configsHandle.set(withRecordedGains(configsHandle.get(), record));
+                    continue;
+                }
+                if (steps[record.channel] == null) {
+                    continue;
+                }
+                if (Double.isNaN(firstTimestamp)) {
+                    firstTimestamp = record.timestampSeconds;
+                }
+                lastTimestamp = record.timestampSeconds;
+                BusVoltage.set(record.busVoltage);
+                double replayedOutput = steps[record.channel].step(record);
+                results[record.channel].add(record.timestampSeconds, record.output, replayedOutput);
+            }
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+            boolean passed = true;
+            List<String> lines = new ArrayList<>();
+            for (ReplayResult result : results) {
+                if (result != null) {
+                    lines.add(result.toString());
+                    passed &= result.passed();
+                }
+            }
+            lines.forEach(System.out::println);
+            System.out.printf(
+                    "replayed %.1f s of match data in %.2f s%n",
+                    Double.isNaN(firstTimestamp) ? 0.0 : lastTimestamp - firstTimestamp,
+                    elapsedSeconds);
+            System.exit(passed ? 0 : 1);
+        }
+    }
+
+    /**
+     * Loads the config file the robot loads, for everything the log doesn't record: periods, gearbox and history
+     * length, and the gains if the log has no configs records.
+     */
+    private static SimpleMotorConfigs loadConfigs(String deployFileName, SimpleMotorConfigs fallback) {
+        Path path = Filesystem.getDeployDirectory().toPath().resolve(deployFileName);
+        try {
+            return MechanismConfigLoader.load(path).simpleMotorConfigs();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.printf("%s: using compiled configs, %s%n", path, e.getMessage());
+            return fallback;
+        }
+    }
+
+    /**
+     * Finds the gains the mechanism had when the log starts, the first configs record in it. Samples before that
+     * record, e.g. the few buffered when a file rolled over, are replayed with those gains too.
+     */
+    private static SimpleMotorConfigs findInitialConfigs(Path logFile, SimpleMotorConfigs configs) throws IOException {
+        try (SignalLogReader reader = new SignalLogReader(logFile)) {
+            LogRecord record = new LogRecord();
+            while (reader.next(record)) {
+                if (record.type == RecordType.CONFIGS
+                        && reader.getChannelNames().get(record.channel).equals(configs.name())) {
+                    return withRecordedGains(configs, record);
+                }
+            }
+        }
+        System.out.printf("%s: no recorded configs, using the gains in the deploy directory%n", configs.name());
+        return configs;
+    }
+
+    /**
+     * @param record a configs record
+     */
+    private static SimpleMotorConfigs withRecordedGains(SimpleMotorConfigs configs, LogRecord record) {
+        return new SimpleMotorConfigs(
+                configs.name(),
+                configs.gearbox(),
+                configs.gearing(),
+                configs.controlLoopPeriodSeconds(),
+                configs.controlLoopPeriodOffsetSeconds(),
+                configs.updatePeriodSeconds(),
+                configs.updatePeriodOffsetSeconds(),
+                record.kS,
+                record.kV,
+                record.kA,
+                record.kP,
+                record.kI,
+                record.kD,
+                configs.historyLength());
+    }
+
+    private static ReplayStep createFlywheelStep(ConfigHandle<SimpleMotorConfigs> flywheelConfigs) {
+        ReplayMotor motor = new ReplayMotor(flywheelConfigs.get().historyLength());
+        Flywheel flywheel = RobotContainer.createExampleFlywheel(motor, flywheelConfigs);
+        MotorInputs inputs = new MotorInputs();
+        return record -> {
+            record.copyInputsTo(inputs);
+            motor.setInputs(inputs);
+            flywheel.update();
+            flywheel.runControlTick(record.setpoint, record.isSafeMode());
+            return motor.getCommandedVoltage();
+        };
+    }
+
+    private static ReplayStep createTurretStep(ConfigHandle<SimpleMotorConfigs> turretConfigs) {
+        ReplayMotor motor = new ReplayMotor(turretConfigs.get().historyLength());
+        Turret turret = RobotContainer.createExampleTurret(motor, turretConfigs);
+        MotorInputs inputs = new MotorInputs();
+        PositionState currentPositionState = new PositionState();
+        PositionState nextPositionState = new PositionState();
+        return record -> {
+            record.copyInputsTo(inputs);
+            motor.setInputs(inputs);
+            turret.update();
+            currentPositionState.position = record.position;
+            currentPositionState.velocity = record.velocity;
+            nextPositionState.position = record.setpoint;
+            nextPositionState.velocity = record.setpointVelocity;
+            // the recorded setpoint is already the one the robot held once the position became known
+            turret.runControlTick(currentPositionState, nextPositionState, true, record.isSafeMode());
+            return motor.getCommandedVoltage();
+        };
+    }
+}
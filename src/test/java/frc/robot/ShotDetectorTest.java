@@ -0,0 +1,103 @@
+package frc.robot;
+
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.velocity.SimplePIDFVelocityControlLoop;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.mechanisms.flywheels.Flywheel;
+import com.goatlib.mechanisms.flywheels.ShotDetectorConfigs;
+import com.goatlib.motors.SimMotor;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.hal.HAL;
+import org.junit.jupiter.api.Test;
+
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fires a simulated game piece through the example flywheel, a {@link SimMotor} load torque on a wheel held at speed
+ * by the robot's own control loop and shot detector, and checks that the shot is detected once, the boost stays
+ * within its bound, recovery is reported within a bound, and the wheel loses less speed than it does without the
+ * boost.
+ */
+class ShotDetectorTest {
+
+    private static final double SETPOINT_RADIANS_PER_SECOND = 314.0;
+    private static final double SPIN_UP_SECONDS = 1.0;
+    private static final double RECORD_SECONDS = 1.0;
+    // a game piece in contact with the example flywheel for 100 ms, slowing it by about 6% without the boost
+    private static final double SHOT_TORQUE_NEWTON_METERS = 0.3;
+    private static final double SHOT_DURATION_SECONDS = 0.1;
+    private static final double MAX_RECOVERY_SECONDS = 0.2;
+
+    private record ShotResult(
+            int shotsBeforeLoad,
+            int shots,
+            double maxBoostVolts,
+            double recoverySeconds,
+            double lostRadians) {
+    }
+
+    @Test
+    void shotIsDetectedAndRecoveredWithBoundedBoost() {
+        HAL.initialize(500, 0);
+        BusVoltage.set(BusVoltage.NOMINAL_VOLTS);
+        ShotDetectorConfigs shotDetectorConfigs = Constants.ExampleFlywheel.shotDetectorConfigs;
+
+        ShotResult boosted = fireShot(true);
+        ShotResult unboosted = fireShot(false);
+        System.out.printf("with boost: %s%nwithout boost: %s%n", boosted, unboosted);
+
+        assertEquals(0, boosted.shotsBeforeLoad(), "a shot was detected while the flywheel was spinning up");
+        assertEquals(1, boosted.shots(), "the shot wasn't detected exactly once");
+        assertTrue(boosted.maxBoostVolts() > 0.0, "the shot got no boost");
+        assertTrue(boosted.maxBoostVolts() <= shotDetectorConfigs.maxBoostVolts() + 1e-9,
+                "the boost went past its bound");
+        assertTrue(boosted.recoverySeconds() > 0.0 && boosted.recoverySeconds() <= MAX_RECOVERY_SECONDS,
+                "the recovery time wasn't reported within " + MAX_RECOVERY_SECONDS + " s");
+        assertTrue(boosted.lostRadians() < unboosted.lostRadians(),
+                "the flywheel didn't lose less speed with the boost");
+    }
+
+    /**
+     * Spins the flywheel up, fires one shot and measures the distance the wheel fell behind its setpoint.
+     *
+     * @param boost whether the shot detector's boost is applied
+     */
+    private static ShotResult fireShot(boolean boost) {
+        SimpleMotorConfigs flywheelConfigs = Constants.ExampleFlywheel.flywheelConfigs;
+        ConfigHandle<SimpleMotorConfigs> configsHandle = new ConfigHandle<>(flywheelConfigs);
+        SimMotor motor = new SimMotor(flywheelConfigs);
+        Flywheel flywheel = boost
+                ? RobotContainer.createExampleFlywheel(motor, configsHandle)
+                : new Flywheel(motor, new SimplePIDFVelocityControlLoop(configsHandle));
+        double periodSeconds = flywheelConfigs.controlLoopPeriodSeconds();
+        int spinUpTicks = (int) Math.round(SPIN_UP_SECONDS / periodSeconds);
+        int ticks = spinUpTicks + (int) Math.round(RECORD_SECONDS / periodSeconds);
+
+        int shotsBeforeLoad = 0;
+        double maxBoostVolts = 0.0;
+        double lostRadians = 0.0;
+        for (int tick = 0; tick < ticks; tick++) {
+            if (tick == spinUpTicks) {
+                shotsBeforeLoad = boost ? flywheel.shotDetector.getShotCount() : 0;
+                motor.applyLoadTorque(SHOT_TORQUE_NEWTON_METERS, SHOT_DURATION_SECONDS);
+            }
+            flywheel.update();
+            double velocity = flywheel.velocity.in(RadiansPerSecond);
+            double output = flywheel.velocityControlLoop.getOutput(velocity, SETPOINT_RADIANS_PER_SECOND);
+            double input = flywheel.applyShotBoost(SETPOINT_RADIANS_PER_SECOND, output);
+            flywheel.setInput(input);
+            if (tick >= spinUpTicks) {
+                maxBoostVolts = Math.max(maxBoostVolts, input - output);
+                lostRadians += Math.abs(SETPOINT_RADIANS_PER_SECOND - velocity) * periodSeconds;
+            }
+        }
+        return new ShotResult(
+                shotsBeforeLoad,
+                boost ? flywheel.shotDetector.getShotCount() : 0,
+                maxBoostVolts,
+                boost ? flywheel.shotDetector.getLastRecoveryTimeSeconds() : 0.0,
+                lostRadians);
+    }
+}
@@ -0,0 +1,194 @@
+package frc.robot;
+
+import com.goatlib.analysis.StepResponse;
+import com.goatlib.analysis.StepResponseBaselines;
+import com.goatlib.analysis.StepResponseMetrics;
+import com.goatlib.analysis.StepResponseTolerances;
+import com.goatlib.configs.ConfigHandle;
+import com.goatlib.controlLoops.GainSchedule;
+import com.goatlib.controlLoops.position.ExplicitMPCPositionControlLoop;
+import com.goatlib.controlLoops.position.PositionControlLoop;
+import com.goatlib.controlLoops.position.ScheduledPIDPositionControlLoop;
+import com.goatlib.controlLoops.position.SimplePIDPositionControlLoop;
+import com.goatlib.controlLoops.velocity.ScheduledPIDFVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimpleLQRVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.SimplePIDFVelocityControlLoop;
+import com.goatlib.controlLoops.velocity.VelocityControlLoop;
+import com.goatlib.mechanisms.SimpleMotorConfigs;
+import com.goatlib.motorprofiles.PositionState;
+import com.goatlib.motors.SimMotor;
+import com.goatlib.power.BusVoltage;
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Voltage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.wpi.first.units.Units.Amps;
+import static edu.wpi.first.units.Units.Radians;
+import static edu.wpi.first.units.Units.RadiansPerSecond;
+import static edu.wpi.first.units.Units.Volts;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a setpoint step through every goatlib control loop and profile combination against a {@link SimMotor} built
+ * from the example mechanisms' configs, and compares rise time, overshoot, settling time, steady-state error and
+ * peak current with the baselines in baselines/step_response.csv.
+ * <p>
+ * Runs headless as part of ./gradlew test and fails if a case never rises or settles, if any metric regressed past
+ * {@link #TOLERANCES}, or if a case has no baseline. To accept new behaviour or add a case, run
+ * ./gradlew test -PupdateStepBaselines, which rewrites the baseline file, and commit it.
+ */
+class StepResponseTest {
+
+    private static final Path BASELINE_FILE =
+            Path.of(System.getProperty("goatlib.stepBaselineFile", "baselines/step_response.csv"));
+    private static final boolean UPDATE_BASELINES = Boolean.getBoolean("goatlib.updateStepBaselines");
+    private static final double DURATION_SECONDS = 3.0;
+    private static final double SETTLING_BAND_FRACTION = 0.02;
+    // the velocity the a button asks for and the position the b button asks for
+    private static final double FLYWHEEL_STEP_RADIANS_PER_SECOND = Units.rotationsPerMinuteToRadiansPerSecond(3000);
+    private static final double TURRET_STEP_RADIANS = Units.degreesToRadians(45);
+    private static final StepResponseTolerances TOLERANCES = new StepResponseTolerances(
+            0.1,
+            0.02,
+            1.0,
+            0.05,
+            0.01,
+            2.0);
+
+    @Test
+    void stepResponsesMatchBaselines() throws IOException {
+        HAL.initialize(500, 0);
+        BusVoltage.set(BusVoltage.NOMINAL_VOLTS);
+
+        SimpleMotorConfigs flywheelConfigs = Constants.ExampleFlywheel.flywheelConfigs;
+        SimpleMotorConfigs turretConfigs = Constants.ExampleTurret.simpleMotorConfigs;
+        StepResponseBaselines baselines = StepResponseBaselines.fromCsv(BASELINE_FILE);
+        List<String> failures = new ArrayList<>();
+
+        String[] names = {
+                "flywheel-pidf",
+                "flywheel-lqr",
+                "turret-pid-trapezoid",
+                "turret-pid-exponential",
+                "flywheel-scheduled-lqr",
+                "turret-scheduled-lqr-trapezoid",
+                "turret-explicit-mpc"
+        };
+        StepResponseMetrics[] results = {
+                runVelocityStep(flywheelConfigs, new SimplePIDFVelocityControlLoop(flywheelConfigs)),
+                runVelocityStep(flywheelConfigs, new SimpleLQRVelocityControlLoop(
+                        flywheelConfigs.kV(),
+                        flywheelConfigs.kA(),
+                        3.0,
+                        0.01,
+                        8.0,
+                        BusVoltage.NOMINAL_VOLTS,
+                        flywheelConfigs.controlLoopPeriodSeconds())),
+                runPositionStep(turretConfigs, SimplePIDPositionControlLoop.createWithTrapezoidProfile(
+                        turretConfigs,
+                        -Math.PI / 2,
+                        Math.PI / 2)),
+                runPositionStep(turretConfigs, SimplePIDPositionControlLoop.createwithExponentialProfile(
+                        turretConfigs,
+                        -Math.PI / 2,
+                        Math.PI / 2)),
+                runVelocityStep(flywheelConfigs, new ScheduledPIDFVelocityControlLoop(
+                        flywheelConfigs,
+                        Constants.ExampleFlywheel.gainScheduleConfigs,
+                        GainSchedule.velocityLQR(
+                                Constants.ExampleFlywheel.scheduledVelocityToleranceFraction,
+                                Constants.ExampleFlywheel.scheduledMinVelocityToleranceRadiansPerSecond))),
+                runPositionStep(turretConfigs, ScheduledPIDPositionControlLoop.createWithTrapezoidProfile(
+                        new ConfigHandle<>(turretConfigs),
+                        Constants.ExampleTurret.gainScheduleConfigs,
+                        GainSchedule.positionLQR(
+                                Constants.ExampleTurret.scheduledPositionToleranceRadians,
+                                Constants.ExampleTurret.scheduledVelocityToleranceRadiansPerSecond,
+                                Constants.ExampleTurret.loadScale),
+                        -Math.PI / 2,
+                        Math.PI / 2)),
+                runPositionStep(turretConfigs, ExplicitMPCPositionControlLoop.fromDeployFile(
+                        Constants.ExampleTurret.explicitMPCTableFile,
+                        new ConfigHandle<>(turretConfigs),
+                        SimplePIDPositionControlLoop.createWithTrapezoidProfile(turretConfigs),
+                        Constants.ExampleTurret.explicitMPCProblem.minPosition(),
+                        Constants.ExampleTurret.explicitMPCProblem.maxPosition()))
+        };
+
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("%s: %s%n", names[i], results[i]);
+            // a case that never settles is broken, not a baseline to hold later runs to
+            if (!results[i].hasSettled()) {
+                failures.add(String.format("%s: never rose or settled within %.1f s", names[i], DURATION_SECONDS));
+                continue;
+            }
+            if (UPDATE_BASELINES) {
+                baselines.put(names[i], results[i]);
+                continue;
+            }
+            StepResponseMetrics baseline = baselines.get(names[i]);
+            if (baseline == null) {
+                failures.add(String.format("%s: no baseline in %s", names[i], BASELINE_FILE));
+                continue;
+            }
+            for (String regression : results[i].findRegressions(baseline, TOLERANCES)) {
+                failures.add(String.format("%s: %s", names[i], regression));
+            }
+        }
+        if (UPDATE_BASELINES) {
+            baselines.writeCsv(BASELINE_FILE);
+            System.out.printf("wrote %s%n", BASELINE_FILE);
+        }
+        assertTrue(failures.isEmpty(), "step responses don't match their baselines, to accept them run "
+                + "./gradlew test -PupdateStepBaselines and commit the baselines:\n" + String.join("\n", failures));
+    }
+
+    private static StepResponseMetrics runVelocityStep(
+            SimpleMotorConfigs simpleMotorConfigs,
+            VelocityControlLoop velocityControlLoop) {
+        SimMotor motor = new SimMotor(simpleMotorConfigs);
+        MutableMeasure<Voltage> voltage = MutableMeasure.zero(Volts);
+        double target = FLYWHEEL_STEP_RADIANS_PER_SECOND;
+        double periodSeconds = simpleMotorConfigs.controlLoopPeriodSeconds();
+        int ticks = (int) Math.round(DURATION_SECONDS / periodSeconds);
+        StepResponse stepResponse = new StepResponse(ticks);
+        for (int tick = 0; tick < ticks; tick++) {
+            motor.update();
+            double velocity = motor.getVelocity().in(RadiansPerSecond);
+            stepResponse.add(tick * periodSeconds, velocity, motor.getCurrent().in(Amps));
+            voltage.mut_setMagnitude(velocityControlLoop.getOutput(velocity, target));
+            motor.setVoltage(voltage);
+        }
+        return stepResponse.analyze(0.0, target, SETTLING_BAND_FRACTION);
+    }
+
+    private static StepResponseMetrics runPositionStep(
+            SimpleMotorConfigs simpleMotorConfigs,
+            PositionControlLoop positionControlLoop) {
+        SimMotor motor = new SimMotor(simpleMotorConfigs);
+        MutableMeasure<Voltage> voltage = MutableMeasure.zero(Volts);
+        PositionState currentState = new PositionState();
+        PositionState targetState = new PositionState();
+        targetState.position = TURRET_STEP_RADIANS;
+        double periodSeconds = simpleMotorConfigs.controlLoopPeriodSeconds();
+        int ticks = (int) Math.round(DURATION_SECONDS / periodSeconds);
+        StepResponse stepResponse = new StepResponse(ticks);
+        for (int tick = 0; tick < ticks; tick++) {
+            motor.update();
+            currentState.position = motor.getPosition().in(Radians);
+            currentState.velocity = motor.getVelocity().in(RadiansPerSecond);
+            stepResponse.add(tick * periodSeconds, currentState.position, motor.getCurrent().in(Amps));
+            voltage.mut_setMagnitude(positionControlLoop.getOutput(currentState, targetState));
+            motor.setVoltage(voltage);
+        }
+        return stepResponse.analyze(0.0, targetState.position, SETTLING_BAND_FRACTION);
+    }
+}